@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.cuppa.model.TestBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how long it takes to define a test tree through the {@link org.forgerock.cuppa.Cuppa} API, which builds
+ * the tree in {@link org.forgerock.cuppa.internal.TestContainer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DefinitionBenchmark {
+    /**
+     * The shape of the test tree.
+     */
+    @Param
+    public TreeShape shape;
+
+    /**
+     * The number of {@code beforeEach} and {@code afterEach} hooks in every block.
+     */
+    @Param({"0", "2"})
+    public int hooksPerBlock;
+
+    /**
+     * Defines the test tree.
+     *
+     * @return The root test block.
+     */
+    @Benchmark
+    public final TestBlock defineTests() {
+        return shape.define(hooksPerBlock);
+    }
+}
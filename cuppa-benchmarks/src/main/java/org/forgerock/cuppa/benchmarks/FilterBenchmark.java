@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.benchmarks;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.internal.filters.CoreTestBlockFilter;
+import org.forgerock.cuppa.model.CompactTestTree;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how long each of the built-in test tree filters takes to filter an already defined test tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterBenchmark {
+    /**
+     * The shape of the test tree.
+     */
+    @Param
+    public TreeShape shape;
+
+    private TestBlock rootBlock;
+    private CompactTestTree tree;
+    private Function<TestBlock, TestBlock> noTags;
+    private CoreTestBlockFilter runTags;
+    private Function<TestBlock, TestBlock> excludedTags;
+    private Function<TestBlock, TestBlock> tagExpression;
+    private Function<TestBlock, TestBlock> selectionById;
+    private Function<TestBlock, TestBlock> selectionByDescription;
+
+    /**
+     * Defines the test tree and creates the filters.
+     */
+    @Setup
+    public final void setUp() {
+        rootBlock = shape.define(0);
+        noTags = new CoreTestBlockFilter(Tags.EMPTY_TAGS);
+        tree = CompactTestTree.of(rootBlock);
+        runTags = new CoreTestBlockFilter(Tags.tags(singleton("group0")));
+        excludedTags = new CoreTestBlockFilter(Tags.excludedTags(singleton("group0")));
+        tagExpression = new CoreTestBlockFilter(Tags.expression("group0 or (group1 and not group2)"));
+        TestBlock firstBlock = rootBlock.testBlocks.get(0);
+        selectionById = TestSelection.of(asList("id:" + Long.toHexString(firstBlock.id),
+                "id:" + Long.toHexString(firstBlock.tests.get(0).id)));
+        selectionByDescription = TestSelection.of(asList("test 1", "block 1.0"));
+    }
+
+    /**
+     * Applies the core filter with no run tags, which only handles {@code only} and skipped tests.
+     *
+     * @return The filtered root test block.
+     */
+    @Benchmark
+    public final TestBlock coreFilterWithoutTags() {
+        return noTags.apply(rootBlock);
+    }
+
+    /**
+     * Applies the core filter with a run tag.
+     *
+     * @return The filtered root test block.
+     */
+    @Benchmark
+    public final TestBlock coreFilterWithRunTags() {
+        return runTags.apply(rootBlock);
+    }
+
+    /**
+     * Applies the core filter with a run tag to a compact form of the tree.
+     *
+     * @return The filtered tree.
+     */
+    @Benchmark
+    public final CompactTestTree compactCoreFilterWithRunTags() {
+        return runTags.apply(tree);
+    }
+
+    /**
+     * Applies the core filter with an excluded tag.
+     *
+     * @return The filtered root test block.
+     */
+    @Benchmark
+    public final TestBlock coreFilterWithExcludedTags() {
+        return excludedTags.apply(rootBlock);
+    }
+
+    /**
+     * Applies the core filter with a tag expression.
+     *
+     * @return The filtered root test block.
+     */
+    @Benchmark
+    public final TestBlock coreFilterWithTagExpression() {
+        return tagExpression.apply(rootBlock);
+    }
+
+    /**
+     * Applies a selection of a test block and a test by ID.
+     *
+     * @return The filtered root test block.
+     */
+    @Benchmark
+    public final TestBlock selectionById() {
+        return selectionById.apply(rootBlock);
+    }
+
+    /**
+     * Applies a selection by description patterns.
+     *
+     * @return The filtered root test block.
+     */
+    @Benchmark
+    public final TestBlock selectionByDescription() {
+        return selectionByDescription.apply(rootBlock);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.internal.SynchronizedReporter;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.DefaultReporter;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of each reporter shipped with Cuppa core, by running a test tree of tests that do nothing and
+ * reporting to it. Output is written to a stream that discards it. The {@code none} reporter ignores every event, so
+ * the cost of a reporter is the difference between its score and the score of {@code none}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReporterBenchmark {
+    /**
+     * The reporter to report to: {@code none}, {@code default} or {@code synchronized}, which is the default reporter
+     * wrapped in a {@link SynchronizedReporter}, as used when tests are run on several threads.
+     */
+    @Param({"none", "default", "synchronized"})
+    public String reporter;
+
+    private Runner runner;
+    private TestBlock rootBlock;
+
+    /**
+     * Defines the test tree and creates the runner.
+     */
+    @Setup
+    public final void setUp() {
+        runner = new Runner();
+        rootBlock = TreeShape.BALANCED.define(1);
+    }
+
+    /**
+     * Runs the test tree, reporting to a new reporter, as reporters keep counts and failures between runs.
+     */
+    @Benchmark
+    public final void runTests() {
+        runner.run(rootBlock, newReporter());
+    }
+
+    private Reporter newReporter() {
+        switch (reporter) {
+            case "none":
+                return new Reporter() {
+                };
+            case "default":
+                return new DefaultReporter(new DiscardingOutputStream());
+            case "synchronized":
+                return new SynchronizedReporter(new DefaultReporter(new DiscardingOutputStream()));
+            default:
+                throw new IllegalArgumentException("Unknown reporter: " + reporter);
+        }
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how long the {@link Runner} takes to run an already defined test tree of tests and hooks that do nothing,
+ * with a reporter that ignores every event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RunnerBenchmark {
+    /**
+     * The shape of the test tree.
+     */
+    @Param
+    public TreeShape shape;
+
+    /**
+     * The number of {@code beforeEach} and {@code afterEach} hooks in every block.
+     */
+    @Param({"0", "1", "4"})
+    public int hooksPerBlock;
+
+    private final Reporter reporter = new Reporter() {
+    };
+    private Runner runner;
+    private TestBlock rootBlock;
+
+    /**
+     * Defines the test tree and creates the runner.
+     */
+    @Setup
+    public final void setUp() {
+        runner = new Runner();
+        rootBlock = shape.define(hooksPerBlock);
+    }
+
+    /**
+     * Runs the test tree.
+     */
+    @Benchmark
+    public final void runTests() {
+        runner.run(rootBlock, reporter);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.benchmarks;
+
+import static java.util.Collections.singleton;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.internal.TestContainer;
+import org.forgerock.cuppa.internal.filters.CoreTestBlockFilter;
+import org.forgerock.cuppa.model.CompactTestTree;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Measures how Cuppa scales with the size of a test suite, by defining, filtering and running {@link SyntheticSuite}s
+ * of increasing sizes, up to millions of tests, and printing a line of CSV for each size.
+ *
+ * <p>For each size, the harness records the time taken to define the suite, to filter it by a run tag, and to run it
+ * with a reporter that ignores every event. It then records the time taken to create a {@link CompactTestTree} from
+ * the suite, and to filter that by the same run tag. It also records the peak heap usage over all of these, and the
+ * heap retained by the test blocks and tests, and by the compact tree on its own, along with the estimated heap that
+ * interning repeated descriptions saved while the suite was defined. If a phase fails, for
+ * example with a {@link StackOverflowError} in a very deep tree or an {@link OutOfMemoryError}, the error is recorded
+ * and no larger sizes are tried. Sizes are measured once each, in a single JVM, so the curve shows trends rather
+ * than precise timings; use the JMH benchmarks for those.</p>
+ *
+ * <p>Options, each followed by a value:</p>
+ * <ul>
+ *     <li>{@code --sizes}: comma separated minimum test counts. Defaults to
+ *     {@code 1000,10000,100000,1000000}.</li>
+ *     <li>{@code --depth}: the number of levels of test blocks. Defaults to 3.</li>
+ *     <li>{@code --tests-per-block}: defaults to 10.</li>
+ *     <li>{@code --hooks-per-block}: the number of {@code beforeEach}/{@code afterEach} pairs. Defaults to 1.</li>
+ *     <li>{@code --tags}: the number of tags to spread the tests across. Defaults to 10.</li>
+ * </ul>
+ */
+public final class ScalingHarness {
+    private static final String HEADER = "tests,blocks,hooks,definitionMillis,transformMillis,runMillis,"
+            + "runNanosPerTest,compactMillis,compactTransformMillis,peakHeapBytes,modelHeapBytes,compactHeapBytes,"
+            + "internedDescriptionBytes,error";
+    private static final long[] DEFAULT_SIZES = {1000, 10000, 100000, 1000000};
+    private static final int DEFAULT_DEPTH = 3;
+    private static final int DEFAULT_TESTS_PER_BLOCK = 10;
+    private static final int DEFAULT_TAG_COUNT = 10;
+    private static final int EXIT_USAGE = 2;
+    private static final Reporter NO_OP_REPORTER = new Reporter() {
+    };
+
+    private final List<Long> sizes = new ArrayList<>();
+    private int depth = DEFAULT_DEPTH;
+    private int testsPerBlock = DEFAULT_TESTS_PER_BLOCK;
+    private int hooksPerBlock = 1;
+    private int tagCount = DEFAULT_TAG_COUNT;
+
+    private ScalingHarness() {
+        for (long size : DEFAULT_SIZES) {
+            sizes.add(size);
+        }
+    }
+
+    /**
+     * Runs the harness with the given options and prints the results to standard out.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) { // @Checkstyle:ignore
+        ScalingHarness harness = new ScalingHarness();
+        try {
+            harness.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(EXIT_USAGE);
+        }
+        harness.run(System.out);
+    }
+
+    private void parse(String[] args) {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sizes":
+                    sizes.clear();
+                    for (String size : value.split(",")) {
+                        sizes.add((long) parseCount(args[i], size.trim()));
+                    }
+                    break;
+                case "--depth":
+                    depth = parseCount(args[i], value);
+                    break;
+                case "--tests-per-block":
+                    testsPerBlock = parseCount(args[i], value);
+                    break;
+                case "--hooks-per-block":
+                    hooksPerBlock = parseCount(args[i], value);
+                    break;
+                case "--tags":
+                    tagCount = parseCount(args[i], value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private static int parseCount(String option, String value) {
+        try {
+            return Integer.parseUnsignedInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Value of " + option + " must be a number: " + value);
+        }
+    }
+
+    private void run(PrintStream out) {
+        Runner runner = new Runner();
+        CoreTestBlockFilter filter = new CoreTestBlockFilter(tagCount == 0 ? Tags.EMPTY_TAGS
+                : Tags.tags(singleton("group0")));
+        out.println(HEADER);
+        for (long size : sizes) {
+            SyntheticSuite suite = SyntheticSuite.withTestCount(size, depth, testsPerBlock, hooksPerBlock, tagCount);
+            Measurement measurement = new Measurement();
+            try {
+                measure(suite, runner, filter, measurement);
+            } catch (StackOverflowError | OutOfMemoryError e) {
+                measurement.error = e.getClass().getSimpleName();
+            }
+            out.println(suite.getTestCount() + "," + suite.getBlockCount() + "," + suite.getHookCount() + ","
+                    + measurement.format(suite.getTestCount()));
+            if (measurement.error != null) {
+                return;
+            }
+        }
+    }
+
+    private static void measure(SyntheticSuite suite, Runner runner, CoreTestBlockFilter filter,
+            Measurement measurement) {
+        long baseHeap = getUsedHeap();
+        resetPeakHeap();
+        long internedBytes = TestContainer.INSTANCE.getInternedDescriptionBytes();
+        long start = System.nanoTime();
+        TestBlock rootBlock = suite.define();
+        measurement.definition = System.nanoTime() - start;
+        measurement.internedBytes = TestContainer.INSTANCE.getInternedDescriptionBytes() - internedBytes;
+        measurement.modelHeap = getUsedHeap() - baseHeap;
+        start = System.nanoTime();
+        filter.apply(rootBlock);
+        measurement.transform = System.nanoTime() - start;
+        start = System.nanoTime();
+        runner.run(rootBlock, NO_OP_REPORTER);
+        measurement.run = System.nanoTime() - start;
+        start = System.nanoTime();
+        measurement.tree = CompactTestTree.of(rootBlock);
+        measurement.compact = System.nanoTime() - start;
+        start = System.nanoTime();
+        filter.apply(measurement.tree);
+        measurement.compactTransform = System.nanoTime() - start;
+        measurement.peakHeap = getPeakHeap();
+        rootBlock = null;
+        measurement.compactHeap = getUsedHeap() - baseHeap;
+    }
+
+    private static long getUsedHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * The times, in nanoseconds, of each phase for one size of suite, and the heap sizes, in bytes. Phases that did not
+     * complete have a time of -1.
+     */
+    private static final class Measurement {
+        private long definition = -1;
+        private long transform = -1;
+        private long run = -1;
+        private long compact = -1;
+        private long compactTransform = -1;
+        private long peakHeap = -1;
+        private long modelHeap = -1;
+        private long compactHeap = -1;
+        private long internedBytes = -1;
+        private String error;
+        /**
+         * Keeps the compact tree reachable until the heap that it retains has been measured.
+         */
+        private CompactTestTree tree;
+
+        private String format(long testCount) {
+            return toMillis(definition) + "," + toMillis(transform) + "," + toMillis(run) + ","
+                    + (run < 0 || testCount == 0 ? -1 : run / testCount) + "," + toMillis(compact) + ","
+                    + toMillis(compactTransform) + "," + peakHeap + "," + modelHeap + "," + compactHeap + ","
+                    + internedBytes + "," + (error == null ? "" : error);
+        }
+
+        private static long toMillis(long nanos) {
+            return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.benchmarks;
+
+import static org.forgerock.cuppa.Cuppa.afterEach;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.tags;
+import static org.forgerock.cuppa.Cuppa.when;
+import static org.forgerock.cuppa.Cuppa.with;
+
+import org.forgerock.cuppa.functions.HookFunction;
+import org.forgerock.cuppa.functions.TestBlockFunction;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.internal.TestContainer;
+import org.forgerock.cuppa.model.TestBlock;
+
+/**
+ * Generates synthetic test trees whose hooks and tests do nothing, so that only the cost of Cuppa itself is measured.
+ *
+ * <p>A suite is a tree of {@code depth} levels of test blocks, with {@code width} blocks at the top level and nested
+ * in each block above the last level. Every block holds {@code testsPerBlock} tests and {@code hooksPerBlock}
+ * {@code beforeEach} and {@code afterEach} hooks. The tests are numbered in definition order, and test {@code n} is
+ * tagged {@code group<n % tagCount>}, so a filter for a single tag keeps one test in {@code tagCount}.</p>
+ *
+ * <p>Trees are defined through the {@link org.forgerock.cuppa.Cuppa} API, in the same way as a test class defines
+ * them, so that generating a tree also measures how long Cuppa takes to define it.</p>
+ */
+public final class SyntheticSuite {
+    private final int depth;
+    private final int width;
+    private final int testsPerBlock;
+    private final int hooksPerBlock;
+    private final int tagCount;
+
+    /**
+     * Creates a new suite.
+     *
+     * @param depth The number of levels of test blocks. Must be at least one.
+     * @param width The number of blocks at the top level and nested in each block. Must be at least one.
+     * @param testsPerBlock The number of tests in each block.
+     * @param hooksPerBlock The number of {@code beforeEach} hooks, and of {@code afterEach} hooks, in each block.
+     * @param tagCount The number of tags to spread the tests across, or zero to not tag any tests.
+     */
+    public SyntheticSuite(int depth, int width, int testsPerBlock, int hooksPerBlock, int tagCount) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("Depth and width must be at least one");
+        }
+        if (testsPerBlock < 0 || hooksPerBlock < 0 || tagCount < 0) {
+            throw new IllegalArgumentException("Counts must not be negative");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.testsPerBlock = testsPerBlock;
+        this.hooksPerBlock = hooksPerBlock;
+        this.tagCount = tagCount;
+    }
+
+    /**
+     * Creates a suite of the given depth with at least the given number of tests, using the narrowest width that
+     * gives enough tests.
+     *
+     * @param testCount The minimum number of tests.
+     * @param depth The number of levels of test blocks. Must be at least one.
+     * @param testsPerBlock The number of tests in each block. Must be at least one.
+     * @param hooksPerBlock The number of {@code beforeEach} hooks, and of {@code afterEach} hooks, in each block.
+     * @param tagCount The number of tags to spread the tests across, or zero to not tag any tests.
+     * @return The suite.
+     */
+    public static SyntheticSuite withTestCount(long testCount, int depth, int testsPerBlock, int hooksPerBlock,
+            int tagCount) {
+        if (testsPerBlock < 1) {
+            throw new IllegalArgumentException("There must be at least one test per block");
+        }
+        int width = 1;
+        while (countBlocks(depth, width) * testsPerBlock < testCount) {
+            width++;
+        }
+        return new SyntheticSuite(depth, width, testsPerBlock, hooksPerBlock, tagCount);
+    }
+
+    /**
+     * Get the number of test blocks in the suite, not counting the root block.
+     *
+     * @return The number of test blocks.
+     */
+    public long getBlockCount() {
+        return countBlocks(depth, width);
+    }
+
+    /**
+     * Get the number of tests in the suite.
+     *
+     * @return The number of tests.
+     */
+    public long getTestCount() {
+        return getBlockCount() * testsPerBlock;
+    }
+
+    /**
+     * Get the number of hooks in the suite.
+     *
+     * @return The number of hooks.
+     */
+    public long getHookCount() {
+        return getBlockCount() * hooksPerBlock * 2;
+    }
+
+    private static long countBlocks(int depth, int width) {
+        long count = 0;
+        long levelCount = 1;
+        for (int level = 0; level < depth; level++) {
+            levelCount *= width;
+            count += levelCount;
+        }
+        return count;
+    }
+
+    /**
+     * Defines the test tree through {@link TestContainer}.
+     *
+     * @return The root test block.
+     */
+    public TestBlock define() {
+        return TestContainer.INSTANCE.defineTests(SyntheticSuite.class, () -> defineBlocks(1, new int[1]));
+    }
+
+    private void defineBlocks(int level, int[] testCounter) {
+        for (int i = 0; i < width; i++) {
+            String description = "block " + level + "." + i;
+            TestBlockFunction body = () -> {
+                for (int j = 0; j < hooksPerBlock; j++) {
+                    beforeEach(HookFunction.identity());
+                    afterEach(HookFunction.identity());
+                }
+                for (int j = 0; j < testsPerBlock; j++) {
+                    defineTest(testCounter[0]++);
+                }
+                if (level < depth) {
+                    defineBlocks(level + 1, testCounter);
+                }
+            };
+            if (level == 1) {
+                describe(description, body);
+            } else {
+                when(description, body);
+            }
+        }
+    }
+
+    private void defineTest(int test) {
+        if (tagCount == 0) {
+            it("test " + test, TestFunction.identity());
+        } else {
+            with(tags("group" + test % tagCount))
+                    .it("test " + test, TestFunction.identity());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + ", width " + width + ", " + testsPerBlock + " tests and " + hooksPerBlock
+                + " hook pairs per block, " + tagCount + " tags";
+    }
+}
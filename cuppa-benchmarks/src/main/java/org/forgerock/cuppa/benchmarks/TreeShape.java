@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.benchmarks;
+
+import org.forgerock.cuppa.model.TestBlock;
+
+/**
+ * The shapes of test tree that the benchmarks are run against. All shapes have about a thousand tests, which are
+ * spread across {@value #TAG_COUNT} tags.
+ */
+public enum TreeShape {
+    /**
+     * A hundred top-level blocks of ten tests each.
+     */
+    WIDE(1, 100, 10),
+    /**
+     * A chain of ten nested blocks with a hundred tests each.
+     */
+    DEEP(10, 1, 100),
+    /**
+     * Three levels of ten blocks each, with one test in every block.
+     */
+    BALANCED(3, 10, 1);
+
+    /**
+     * The number of tags that the tests are spread across.
+     */
+    static final int TAG_COUNT = 10;
+
+    private final int depth;
+    private final int breadth;
+    private final int testsPerBlock;
+
+    TreeShape(int depth, int breadth, int testsPerBlock) {
+        this.depth = depth;
+        this.breadth = breadth;
+        this.testsPerBlock = testsPerBlock;
+    }
+
+    /**
+     * Defines a test tree of this shape.
+     *
+     * @param hooksPerBlock The number of {@code beforeEach} hooks, and of {@code afterEach} hooks, in each block.
+     * @return The root test block.
+     * @see SyntheticSuite
+     */
+    TestBlock define(int hooksPerBlock) {
+        return new SyntheticSuite(depth, breadth, testsPerBlock, hooksPerBlock, TAG_COUNT).define();
+    }
+}
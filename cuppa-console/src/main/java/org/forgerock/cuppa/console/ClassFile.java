@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.forgerock.cuppa.Test;
+
+/**
+ * The parts of a class file that the launcher needs: the name of the class, whether it is a test class, and the
+ * classes that it refers to. A class is a test class if it is a concrete class annotated with {@link Test}.
+ */
+final class ClassFile {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MEMBER_HEADER_SIZE = 6;
+    private static final int ENUM_VALUE_SIZE = 4;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    /** The size in bytes of each kind of constant pool entry, indexed by tag, other than UTF-8 and class entries. */
+    private static final int[] CONSTANT_SIZES = {-1, -1, -1, 4, 4, 8, 8, -1, 2, 4, 4, 4, 4, -1, -1, 3, 2, 4, 4, 2, 2};
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_NOT_INSTANTIABLE = ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION;
+    private static final String TEST_ANNOTATION = "L" + Test.class.getName().replace('.', '/') + ";";
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String DESCRIPTOR_START = "(L[";
+    private static final Pattern DESCRIPTOR_CLASS_NAME = Pattern.compile("L([^;<>()\\[\\]]+)[;<]");
+
+    /**
+     * The fully qualified name of the class.
+     */
+    final String name;
+
+    /**
+     * Whether the class is a test class.
+     */
+    final boolean testClass;
+
+    /**
+     * The fully qualified names of the other classes that the class refers to, either as class constants or in the
+     * descriptors and signatures of its members, lambdas and generic types.
+     */
+    final Set<String> referencedClassNames;
+
+    private ClassFile(String name, boolean testClass, Set<String> referencedClassNames) {
+        this.name = name;
+        this.testClass = testClass;
+        this.referencedClassNames = referencedClassNames;
+    }
+
+    /**
+     * Reads a class file.
+     *
+     * @param bytes The contents of the class file.
+     * @param testClassesOnly Whether to stop reading, and return empty, as soon as it is clear that the class is not
+     *     a test class. Class files whose constant pool does not mention the annotation are rejected without reading
+     *     the rest of the file.
+     * @return The class file, or empty if it is not a class file, or if it is not a test class and
+     *     {@code testClassesOnly} is {@code true}.
+     * @throws IOException If the class file is malformed.
+     */
+    static Optional<ClassFile> read(byte[] bytes, boolean testClassesOnly) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            return Optional.empty();
+        }
+        in.readInt();
+        int count = in.readUnsignedShort();
+        String[] constants = new String[count];
+        int[] classNameIndexes = new int[count];
+        readConstantPool(in, constants, classNameIndexes);
+        boolean mentionsTest = Arrays.asList(constants).contains(TEST_ANNOTATION);
+        if (testClassesOnly && !mentionsTest) {
+            return Optional.empty();
+        }
+        boolean instantiable = (in.readUnsignedShort() & ACC_NOT_INSTANTIABLE) == 0;
+        String name = constants[classNameIndexes[in.readUnsignedShort()]].replace('/', '.');
+        boolean testClass = mentionsTest && instantiable && hasTestAnnotation(in, constants);
+        if (testClassesOnly && !testClass) {
+            return Optional.empty();
+        }
+        return Optional.of(new ClassFile(name, testClass, getReferencedClassNames(name, constants, classNameIndexes)));
+    }
+
+    private static void readConstantPool(DataInputStream in, String[] constants, int[] classNameIndexes)
+            throws IOException {
+        int i = 1;
+        while (i < constants.length) {
+            int tag = in.readUnsignedByte();
+            if (tag == CONSTANT_UTF8) {
+                constants[i] = in.readUTF();
+            } else if (tag == CONSTANT_CLASS) {
+                classNameIndexes[i] = in.readUnsignedShort();
+            } else if (tag < CONSTANT_SIZES.length && CONSTANT_SIZES[tag] > 0) {
+                skipFully(in, CONSTANT_SIZES[tag]);
+                if (tag == CONSTANT_LONG || tag == CONSTANT_DOUBLE) {
+                    i++;
+                }
+            } else {
+                throw new IOException("Unknown constant pool tag " + tag);
+            }
+            i++;
+        }
+    }
+
+    private static Set<String> getReferencedClassNames(String name, String[] constants, int[] classNameIndexes) {
+        Set<String> classNames = new HashSet<>();
+        for (int classNameIndex : classNameIndexes) {
+            if (classNameIndex != 0) {
+                String className = constants[classNameIndex];
+                int elementStart = className.lastIndexOf('[') + 1;
+                if (elementStart == 0) {
+                    classNames.add(className.replace('/', '.'));
+                } else if (className.charAt(elementStart) == 'L') {
+                    classNames.add(className.substring(elementStart + 1, className.length() - 1).replace('/', '.'));
+                }
+            }
+        }
+        for (String constant : constants) {
+            if (constant != null && !constant.isEmpty() && DESCRIPTOR_START.indexOf(constant.charAt(0)) >= 0) {
+                Matcher matcher = DESCRIPTOR_CLASS_NAME.matcher(constant);
+                while (matcher.find()) {
+                    classNames.add(matcher.group(1).replace('/', '.'));
+                }
+            }
+        }
+        classNames.remove(name);
+        return classNames;
+    }
+
+    /**
+     * Reads the rest of the class file, after its name, to find out whether the class is annotated with {@link Test}.
+     */
+    private static boolean hasTestAnnotation(DataInputStream in, String[] constants) throws IOException {
+        in.readUnsignedShort();
+        skipFully(in, 2 * in.readUnsignedShort());
+        skipMembers(in);
+        skipMembers(in);
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = constants[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                return hasTestAnnotation(in.readUnsignedShort(), in, constants);
+            }
+            skipFully(in, length);
+        }
+        return false;
+    }
+
+    private static boolean hasTestAnnotation(int annotationCount, DataInputStream in, String[] constants)
+            throws IOException {
+        for (int i = 0; i < annotationCount; i++) {
+            if (TEST_ANNOTATION.equals(constants[in.readUnsignedShort()])) {
+                return true;
+            }
+            skipElementValuePairs(in);
+        }
+        return false;
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int memberCount = in.readUnsignedShort();
+        for (int i = 0; i < memberCount; i++) {
+            skipFully(in, MEMBER_HEADER_SIZE);
+            int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                in.readUnsignedShort();
+                skipFully(in, in.readInt());
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            in.readUnsignedShort();
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag == 'e') {
+            skipFully(in, ENUM_VALUE_SIZE);
+        } else if (tag == '@') {
+            in.readUnsignedShort();
+            skipElementValuePairs(in);
+        } else if (tag == '[') {
+            int valueCount = in.readUnsignedShort();
+            for (int i = 0; i < valueCount; i++) {
+                skipElementValue(in);
+            }
+        } else {
+            in.readUnsignedShort();
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        if (in.skipBytes(length) != length) {
+            throw new IOException("Unexpected end of class file");
+        }
+    }
+}
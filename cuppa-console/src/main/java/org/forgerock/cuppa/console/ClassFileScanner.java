@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.forgerock.cuppa.CuppaException;
+
+/**
+ * Finds the Cuppa test classes in directories and jars by reading their class files directly, without loading any
+ * classes. A class is a test class if it is a concrete class annotated with {@link org.forgerock.cuppa.Test}.
+ *
+ * <p>Class files are read on a pool of threads. Each jar is read by a single task, and the class files of a directory
+ * are split into batches.</p>
+ */
+final class ClassFileScanner {
+    private static final int BATCH_SIZE = 256;
+    private static final int BUFFER_SIZE = 8192;
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final int threadCount;
+
+    /**
+     * Creates a new scanner.
+     *
+     * @param threadCount The number of threads to read class files on. Must be at least one.
+     */
+    ClassFileScanner(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least one");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Finds the names of the test classes in the given directories and jars. Entries that do not exist are ignored.
+     *
+     * @param classPath The directories and jars to search.
+     * @return The fully qualified names of the test classes, in order.
+     * @throws IOException If a directory or jar could not be read.
+     */
+    SortedSet<String> findTestClassNames(List<Path> classPath) throws IOException {
+        List<Callable<List<String>>> tasks = new ArrayList<>();
+        for (Path entry : classPath) {
+            if (Files.isDirectory(entry)) {
+                for (List<Path> batch : getClassFileBatches(entry)) {
+                    tasks.add(() -> scanClassFiles(batch));
+                }
+            } else if (Files.isRegularFile(entry)) {
+                tasks.add(() -> scanJar(entry));
+            }
+        }
+        SortedSet<String> classNames = new TreeSet<>();
+        runTasks(tasks).forEach(classNames::addAll);
+        return classNames;
+    }
+
+    /**
+     * Reads all of the class files in the given directories.
+     *
+     * @param directories The directories to read.
+     * @return The class files, by path.
+     * @throws IOException If a directory could not be read.
+     */
+    Map<Path, ClassFile> readClassFiles(List<Path> directories) throws IOException {
+        List<Callable<Map<Path, ClassFile>>> tasks = new ArrayList<>();
+        for (Path directory : directories) {
+            for (List<Path> batch : getClassFileBatches(directory)) {
+                tasks.add(() -> readClassFileBatch(batch));
+            }
+        }
+        Map<Path, ClassFile> classFiles = new HashMap<>();
+        runTasks(tasks).forEach(classFiles::putAll);
+        return classFiles;
+    }
+
+    private <T> List<T> runTasks(List<Callable<T>> tasks) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "cuppa-scanner-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(getResult(future));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<List<Path>> getClassFileBatches(Path directory) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(directory)) {
+            classFiles = files.filter(f -> f.getFileName().toString().endsWith(CLASS_FILE_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        List<List<Path>> batches = new ArrayList<>();
+        for (int i = 0; i < classFiles.size(); i += BATCH_SIZE) {
+            batches.add(classFiles.subList(i, Math.min(i + BATCH_SIZE, classFiles.size())));
+        }
+        return batches;
+    }
+
+    private static List<String> scanClassFiles(List<Path> classFiles) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        for (Path classFile : classFiles) {
+            getTestClassName(Files.readAllBytes(classFile)).ifPresent(classNames::add);
+        }
+        return classNames;
+    }
+
+    private static Map<Path, ClassFile> readClassFileBatch(List<Path> classFiles) throws IOException {
+        Map<Path, ClassFile> classFilesByPath = new HashMap<>();
+        for (Path classFile : classFiles) {
+            ClassFile.read(Files.readAllBytes(classFile), false).ifPresent(c -> classFilesByPath.put(classFile, c));
+        }
+        return classFilesByPath;
+    }
+
+    private static List<String> scanJar(Path jar) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(CLASS_FILE_SUFFIX)) {
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        getTestClassName(readAllBytes(in)).ifPresent(classNames::add);
+                    }
+                }
+            }
+        }
+        return classNames;
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new CuppaException("Failed to scan for test classes", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CuppaException("Interrupted while scanning for test classes", e);
+        }
+    }
+
+    /**
+     * Reads a class file and gets the name of the class if it is a test class.
+     *
+     * @param classFile The contents of the class file.
+     * @return The fully qualified name of the class, or empty if the class is not a test class.
+     * @throws IOException If the class file is malformed.
+     */
+    static Optional<String> getTestClassName(byte[] classFile) throws IOException {
+        return ClassFile.read(classFile, true).map(c -> c.name);
+    }
+
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches directories, and all of their sub-directories, for changes to class files.
+ *
+ * <p>Compilers write many class files in quick succession, so once a change has been seen the watcher waits until no
+ * further changes have been seen for a short, quiet period before returning all of the changes together.</p>
+ */
+final class ClassFileWatcher implements AutoCloseable {
+    private static final long QUIET_PERIOD_MILLIS = 100;
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    /**
+     * Starts watching directories.
+     *
+     * @param roots The directories to watch.
+     * @throws IOException If the directories could not be watched.
+     */
+    ClassFileWatcher(List<Path> roots) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            register(root);
+        }
+    }
+
+    private void register(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE),
+                        directory);
+            }
+        }
+    }
+
+    /**
+     * Waits for class files to be created, modified or deleted.
+     *
+     * @param timeout The maximum time to wait for the first change.
+     * @param unit The unit of the timeout.
+     * @return The paths of the changed class files, and of any watched directories that were deleted or moved away,
+     *     or an empty set if there were no changes before the timeout. A deleted directory is reported by a single
+     *     event, so the class files that were in it are not returned separately. If the watcher lost track of
+     *     changes, all of the class files in the watched directories are returned.
+     * @throws IOException If a new directory could not be watched.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    Set<Path> awaitChanges(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        Set<Path> changes = new HashSet<>();
+        WatchKey key = watchService.poll(timeout, unit);
+        while (key != null) {
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    changes.addAll(getAllClassFiles());
+                } else if (directory != null) {
+                    addChange(changes, directory.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+            key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return changes;
+    }
+
+    private void addChange(Set<Path> changes, Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            register(path);
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(ClassFileWatcher::isClassFile).forEach(changes::add);
+            }
+        } else if (isClassFile(path)) {
+            changes.add(path);
+        } else if (directories.containsValue(path)) {
+            directories.values().removeIf(d -> d.startsWith(path));
+            changes.add(path);
+        }
+    }
+
+    private Set<Path> getAllClassFiles() throws IOException {
+        Set<Path> classFiles = new HashSet<>();
+        for (Path directory : directories.values()) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(ClassFileWatcher::isClassFile).forEach(classFiles::add);
+            }
+        }
+        return classFiles;
+    }
+
+    private static boolean isClassFile(Path path) {
+        return path.getFileName().toString().endsWith(CLASS_FILE_SUFFIX);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * An index of the class files in watched directories, used to work out which test classes are affected by changes to
+ * class files. A test class is affected by a change to a class if it is that class, or refers to it directly or
+ * through other indexed classes.
+ */
+final class ClassIndex {
+    private final Map<Path, ClassFile> classFiles = new HashMap<>();
+
+    /**
+     * Adds or replaces the class file at a path.
+     *
+     * @param path The path of the class file.
+     * @param classFile The class file.
+     */
+    void put(Path path, ClassFile classFile) {
+        classFiles.put(path, classFile);
+    }
+
+    /**
+     * Removes the class file at a path.
+     *
+     * @param path The path of the class file.
+     */
+    void remove(Path path) {
+        classFiles.remove(path);
+    }
+
+    /**
+     * Get the indexed paths at or under a path, such as the class files in a directory and its sub-directories.
+     *
+     * @param path The path of a class file or a directory.
+     * @return The indexed paths.
+     */
+    Set<Path> getPathsUnder(Path path) {
+        Set<Path> paths = new HashSet<>();
+        for (Path indexedPath : classFiles.keySet()) {
+            if (indexedPath.startsWith(path)) {
+                paths.add(indexedPath);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Get the name of the class whose class file is at a path.
+     *
+     * @param path The path of the class file.
+     * @return The fully qualified name of the class, or {@code null} if the path is not indexed.
+     */
+    String getClassName(Path path) {
+        ClassFile classFile = classFiles.get(path);
+        return classFile != null ? classFile.name : null;
+    }
+
+    /**
+     * Get the names of all indexed test classes.
+     *
+     * @return The fully qualified names of the test classes, in order.
+     */
+    SortedSet<String> getTestClassNames() {
+        SortedSet<String> testClassNames = new TreeSet<>();
+        classFiles.values().stream().filter(c -> c.testClass).forEach(c -> testClassNames.add(c.name));
+        return testClassNames;
+    }
+
+    /**
+     * Get the names of the indexed test classes that are affected by changes to the given classes.
+     *
+     * @param changedClassNames The fully qualified names of the changed classes.
+     * @return The fully qualified names of the affected test classes, in order.
+     */
+    SortedSet<String> getAffectedTestClassNames(Set<String> changedClassNames) {
+        Map<String, Set<String>> dependents = new HashMap<>();
+        for (ClassFile classFile : classFiles.values()) {
+            classFile.referencedClassNames.forEach(r -> dependents.computeIfAbsent(r, n -> new HashSet<>())
+                    .add(classFile.name));
+        }
+        Set<String> affected = new HashSet<>(changedClassNames);
+        Deque<String> queue = new ArrayDeque<>(changedClassNames);
+        while (!queue.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(queue.remove(), new HashSet<>())) {
+                if (affected.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        SortedSet<String> testClassNames = getTestClassNames();
+        testClassNames.retainAll(affected);
+        return testClassNames;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.forgerock.cuppa.internal.filters.TagQuery;
+import org.forgerock.cuppa.model.Tags;
+
+/**
+ * The command-line options of the console launcher.
+ */
+final class ConsoleOptions {
+
+    /**
+     * A description of the options, to print when the options are not valid or help is requested.
+     */
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar cuppa-console.jar [options]",
+            "",
+            "Options:",
+            "  --class-path <paths>   Directories and jars to search for test classes, separated by the path",
+            "                         separator. Defaults to the class path of the launcher.",
+            "  --tags <tags>          Comma separated tags, or a tag expression, of the tests to run.",
+            "  --exclude-tags <tags>  Comma separated tags of the tests not to run.",
+            "  --threads <n>          Run up to n test classes at once. Defaults to 1.",
+            "  --forks <n>            Run test classes in n forked JVMs. Defaults to 0, which runs tests in this JVM.",
+            "  --shard <i>/<n>        Run only shard i of n shards of the test classes, numbered from 0.",
+            "  --reporter <reporter>  'default', or the class name of a Reporter with a no-argument constructor.",
+            "  --scan-threads <n>     Read class files on n threads. Defaults to the number of processors.",
+            "  --watch                Keep running, and re-run the test classes affected by changes to the class",
+            "                         files in the directories on the class path. Cannot be used with --forks or",
+            "                         --shard.",
+            "  --daemon <port>        Run test classes in a daemon listening on the port on this machine, in up to",
+            "                         --threads sessions at once. Cannot be used with --forks or --watch.",
+            "  --serve <port>         Start a daemon on the port, which loads each session's class path in a new",
+            "                         class loader and keeps the classes of its own class path loaded. Only the",
+            "                         user who started it can run tests in it, as it writes a token to a file",
+            "                         in ~/.cuppa that only they can read.",
+            "  --dry-run              Print a plan of the selected tests, as JSON Lines, without running them.",
+            "  --help                 Print this message.");
+
+
+    private List<Path> classPath;
+    private boolean customClassPath;
+    private String tags;
+    private String excludedTags;
+    private int threadCount = 1;
+    private int forkCount;
+    private int shardIndex;
+    private int shardCount = 1;
+    private String reporter = "default";
+    private int scanThreadCount = Runtime.getRuntime().availableProcessors();
+    private boolean help;
+    private boolean watch;
+    private boolean dryRun;
+    private int daemonPort;
+    private int servePort;
+
+    private ConsoleOptions() {
+        classPath = toPaths(System.getProperty("java.class.path"));
+    }
+
+    /**
+     * Parses command-line arguments.
+     *
+     * @param args The command-line arguments.
+     * @return The options.
+     * @throws IllegalArgumentException If the arguments are not valid.
+     */
+    static ConsoleOptions parse(String[] args) {
+        ConsoleOptions options = new ConsoleOptions();
+        int i = 0;
+        while (i < args.length) {
+            String option = args[i++];
+            if ("--help".equals(option)) {
+                options.help = true;
+            } else if ("--watch".equals(option)) {
+                options.watch = true;
+            } else if ("--dry-run".equals(option)) {
+                options.dryRun = true;
+            } else if (i < args.length) {
+                options.set(option, args[i++]);
+            } else {
+                throw new IllegalArgumentException("Missing value for option " + option);
+            }
+        }
+        options.validate();
+        return options;
+    }
+
+    private void validate() {
+        if (tags != null && excludedTags != null && TagQuery.isExpression(tags)) {
+            throw new IllegalArgumentException("A tag expression cannot be combined with excluded tags");
+        }
+        if (dryRun && watch) {
+            throw new IllegalArgumentException("A dry run cannot be combined with watch mode");
+        }
+        if (watch && (forkCount > 0 || shardCount > 1)) {
+            throw new IllegalArgumentException("Watch mode cannot be combined with forks or shards");
+        }
+        if (daemonPort > 0 && (forkCount > 0 || watch)) {
+            throw new IllegalArgumentException("A daemon cannot be combined with forks or watch mode");
+        }
+    }
+
+    private void set(String option, String value) {
+        switch (option) {
+            case "--class-path":
+                classPath = toPaths(value);
+                customClassPath = true;
+                break;
+            case "--tags":
+                tags = value;
+                break;
+            case "--exclude-tags":
+                excludedTags = value;
+                break;
+            case "--threads":
+                threadCount = parsePositive(option, value);
+                break;
+            case "--forks":
+                forkCount = parsePositive(option, value);
+                break;
+            case "--shard":
+                setShard(value);
+                break;
+            case "--reporter":
+                reporter = value;
+                break;
+            case "--scan-threads":
+                scanThreadCount = parsePositive(option, value);
+                break;
+            case "--daemon":
+                daemonPort = parsePositive(option, value);
+                break;
+            case "--serve":
+                servePort = parsePositive(option, value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + option);
+        }
+    }
+
+    private void setShard(String value) {
+        String[] parts = value.split("/", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Shard must be of the form <index>/<count>: " + value);
+        }
+        shardCount = parsePositive("--shard", parts[1]);
+        try {
+            shardIndex = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Shard index must be a number: " + value);
+        }
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Shard index must be between 0 and " + (shardCount - 1) + ": "
+                    + value);
+        }
+    }
+
+    private static int parsePositive(String option, String value) {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            number = 0;
+        }
+        if (number < 1) {
+            throw new IllegalArgumentException("Value of " + option + " must be a positive number: " + value);
+        }
+        return number;
+    }
+
+    private static List<Path> toPaths(String classPath) {
+        if (classPath == null || classPath.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(classPath.split(Pattern.quote(File.pathSeparator)))
+                .filter(p -> !p.isEmpty())
+                .map(Paths::get)
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> split(String tags) {
+        if (tags == null) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(tags.split(",")).map(String::trim).collect(Collectors.toSet());
+    }
+
+    /**
+     * Get the directories and jars to search for test classes.
+     *
+     * @return The class path entries.
+     */
+    List<Path> getClassPath() {
+        return classPath;
+    }
+
+    /**
+     * Whether the class path was given on the command line, rather than being the class path of the launcher.
+     *
+     * @return {@code true} if the class path was given on the command line.
+     */
+    boolean hasCustomClassPath() {
+        return customClassPath;
+    }
+
+    /**
+     * Get the tags to filter the tests on.
+     *
+     * @return The run tags.
+     */
+    Tags getTags() {
+        if (tags != null && TagQuery.isExpression(tags)) {
+            return new Tags(Collections.emptySet(), Collections.emptySet(), Optional.of(tags));
+        }
+        return new Tags(split(tags), split(excludedTags));
+    }
+
+    /**
+     * Get the maximum number of test classes to run at once.
+     *
+     * @return The thread count.
+     */
+    int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Get the number of JVMs to fork, or zero to run tests in this JVM.
+     *
+     * @return The fork count.
+     */
+    int getForkCount() {
+        return forkCount;
+    }
+
+    /**
+     * Get the index of the shard of test classes to run, numbered from zero.
+     *
+     * @return The shard index.
+     */
+    int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Get the number of shards that the test classes are split into.
+     *
+     * @return The shard count.
+     */
+    int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Get the reporter to report results with: {@code default}, or the class name of a reporter.
+     *
+     * @return The reporter.
+     */
+    String getReporter() {
+        return reporter;
+    }
+
+    /**
+     * Get the number of threads to read class files on.
+     *
+     * @return The thread count.
+     */
+    int getScanThreadCount() {
+        return scanThreadCount;
+    }
+
+    /**
+     * Whether help was requested.
+     *
+     * @return {@code true} if help was requested.
+     */
+    boolean isHelp() {
+        return help;
+    }
+
+    /**
+     * Whether to keep running and re-run the test classes affected by changes to class files.
+     *
+     * @return {@code true} if watch mode was requested.
+     */
+    boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Whether to print a plan of the selected tests instead of running them.
+     *
+     * @return {@code true} if a dry run was requested.
+     */
+    boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Get the port of the daemon to run tests in, or zero to run tests without a daemon.
+     *
+     * @return The daemon port.
+     */
+    int getDaemonPort() {
+        return daemonPort;
+    }
+
+    /**
+     * Get the port to start a daemon on, instead of running tests, or zero to run tests.
+     *
+     * @return The port to serve on.
+     */
+    int getServePort() {
+        return servePort;
+    }
+}
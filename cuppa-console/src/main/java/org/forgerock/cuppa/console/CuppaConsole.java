@@ -0,0 +1,280 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.forgerock.cuppa.CuppaException;
+import org.forgerock.cuppa.ForkedRunner;
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.internal.fork.DaemonServer;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.DefaultReporter;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Discovers and runs Cuppa tests from the command line, without a build tool.
+ *
+ * <p>Test classes are found by reading the class files in the directories and jars of the class path, and only the
+ * selected classes are loaded. The classes are sorted by name, so that each shard of a sharded run gets the same
+ * classes on every machine. Run {@code java -jar cuppa-console.jar --help} for the available options.</p>
+ *
+ * <p>With {@code --watch}, the launcher keeps running after the first run, and re-runs the test classes affected by
+ * each change to the class files in the directories on the class path. See {@link WatchSession}.</p>
+ *
+ * <p>With {@code --serve}, the launcher runs a {@link DaemonServer} instead of running tests. Launchers started with
+ * {@code --daemon} then run their tests in sessions of that daemon, which keeps the libraries on its own class path
+ * loaded between runs. They authenticate with the token that the daemon writes to
+ * {@link DaemonServer#getDefaultTokenFile(int)}, so they must be run by the same user as the daemon.</p>
+ *
+ * <p>With {@code --dry-run}, the launcher defines the selected tests and prints a plan of them, as written by
+ * {@link Runner#dryRun(TestBlock, Appendable)}, without running any hooks or tests.</p>
+ *
+ * <p>The launcher exits with status 0 if all tests passed, 1 if any tests or hooks failed, or the tests could not be
+ * run, and 2 if the options are not valid.</p>
+ */
+public final class CuppaConsole {
+    static final int EXIT_SUCCESS = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    CuppaConsole(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Runs the tests selected by the command-line arguments and exits.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) { // @Checkstyle:ignore
+        System.exit(new CuppaConsole(System.out, System.err).run(args));
+    }
+
+    /**
+     * Runs the tests selected by the command-line arguments.
+     *
+     * @param args The command-line arguments.
+     * @return The exit status.
+     */
+    int run(String[] args) {
+        ConsoleOptions options;
+        try {
+            options = ConsoleOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(ConsoleOptions.USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.isHelp()) {
+            out.println(ConsoleOptions.USAGE);
+            return EXIT_SUCCESS;
+        }
+        if (options.getServePort() > 0) {
+            return serve(options.getServePort());
+        }
+        ClassLoader classLoader = getClassLoader(options);
+        return options.isWatch()
+                ? watch(new WatchSession(options, classLoader, l -> createReporter(options, l)))
+                : runOnce(options, classLoader);
+    }
+
+    private int runOnce(ConsoleOptions options, ClassLoader classLoader) {
+        Thread.currentThread().setContextClassLoader(classLoader);
+        try {
+            List<Class<?>> testClasses = loadTestClasses(options, classLoader);
+            if (options.isDryRun()) {
+                writePlan(options, testClasses);
+                return EXIT_SUCCESS;
+            }
+            FailureTrackingReporter reporter = new FailureTrackingReporter(createReporter(options, classLoader));
+            runTests(options, testClasses, reporter);
+            return reporter.hasFailed() ? EXIT_FAILURE : EXIT_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(err);
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int serve(int port) {
+        try (DaemonServer server = new DaemonServer(port)) {
+            out.println("Cuppa daemon listening on port " + server.getPort() + ", with its token in "
+                    + server.getTokenFile());
+            server.serve();
+            return EXIT_SUCCESS;
+        } catch (IOException e) {
+            e.printStackTrace(err);
+            return EXIT_FAILURE;
+        }
+    }
+
+    /**
+     * Runs all of the tests, and then re-runs the affected tests whenever class files change, until interrupted.
+     */
+    private int watch(WatchSession session) {
+        if (session.getDirectories().isEmpty()) {
+            err.println("Watch mode needs at least one directory on the class path");
+            return EXIT_USAGE;
+        }
+        try (ClassFileWatcher watcher = new ClassFileWatcher(session.getDirectories())) {
+            runAndReportErrors(session::runAll);
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changes = watcher.awaitChanges(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                out.println(changes.size() + " class files changed");
+                runAndReportErrors(() -> session.runAffected(changes));
+            }
+        } catch (IOException e) {
+            e.printStackTrace(err);
+            return EXIT_FAILURE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return EXIT_SUCCESS;
+    }
+
+    private void runAndReportErrors(Callable<SortedSet<String>> testRun) {
+        try {
+            SortedSet<String> testClassNames = testRun.call();
+            out.println("Ran " + testClassNames.size() + " test classes; watching for changes");
+        } catch (Exception e) {
+            e.printStackTrace(err);
+        }
+    }
+
+    private void writePlan(ConsoleOptions options, List<Class<?>> testClasses) throws IOException {
+        Runner runner = new Runner(options.getTags());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        runner.dryRun(runner.defineTests(testClasses), writer);
+        writer.flush();
+    }
+
+    private void runTests(ConsoleOptions options, List<Class<?>> testClasses, Reporter reporter)
+            throws IOException {
+        if (options.getForkCount() > 0) {
+            new ForkedRunner(options.getTags(), options.getForkCount(), getJavaCommand(options))
+                    .run(testClasses, reporter);
+            return;
+        }
+        if (options.getDaemonPort() > 0) {
+            new ForkedRunner(options.getTags(), options.getThreadCount(),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), options.getDaemonPort()),
+                    DaemonServer.readToken(DaemonServer.getDefaultTokenFile(options.getDaemonPort())),
+                    options.getClassPath().stream()
+                            .map(p -> p.toAbsolutePath().toString())
+                            .collect(Collectors.toList()))
+                    .run(testClasses, reporter);
+            return;
+        }
+        Runner runner = new Runner(options.getTags());
+        TestBlock rootBlock = runner.defineTests(testClasses);
+        if (options.getThreadCount() > 1) {
+            runner.runParallel(rootBlock, reporter, options.getThreadCount());
+        } else {
+            runner.run(rootBlock, reporter);
+        }
+    }
+
+    private static List<Class<?>> loadTestClasses(ConsoleOptions options, ClassLoader classLoader)
+            throws IOException {
+        SortedSet<String> classNames = new ClassFileScanner(options.getScanThreadCount())
+                .findTestClassNames(options.getClassPath());
+        List<Class<?>> testClasses = new ArrayList<>();
+        int index = 0;
+        for (String className : classNames) {
+            if (index++ % options.getShardCount() == options.getShardIndex()) {
+                testClasses.add(loadClass(className, classLoader));
+            }
+        }
+        return testClasses;
+    }
+
+    private static Class<?> loadClass(String className, ClassLoader classLoader) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new CuppaException("Failed to load test class " + className, e);
+        }
+    }
+
+    private static ClassLoader getClassLoader(ConsoleOptions options) {
+        ClassLoader launcherClassLoader = CuppaConsole.class.getClassLoader();
+        if (!options.hasCustomClassPath()) {
+            return launcherClassLoader;
+        }
+        URL[] urls = options.getClassPath().stream().map(CuppaConsole::toUrl).toArray(URL[]::new);
+        return new URLClassLoader(urls, launcherClassLoader);
+    }
+
+    private static URL toUrl(Path path) {
+        try {
+            return path.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid class path entry: " + path, e);
+        }
+    }
+
+    private Reporter createReporter(ConsoleOptions options, ClassLoader classLoader) {
+        if ("default".equals(options.getReporter())) {
+            return new DefaultReporter(out);
+        }
+        try {
+            return Class.forName(options.getReporter(), true, classLoader).asSubclass(Reporter.class)
+                    .getDeclaredConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            throw new CuppaException("Failed to create reporter " + options.getReporter(), e.getCause());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new CuppaException("Failed to create reporter " + options.getReporter(), e);
+        }
+    }
+
+    private static List<String> getJavaCommand(ConsoleOptions options) {
+        String classPath = System.getProperty("java.class.path");
+        if (options.hasCustomClassPath()) {
+            classPath += File.pathSeparator + options.getClassPath().stream()
+                    .map(Path::toString)
+                    .reduce((a, b) -> a + File.pathSeparator + b)
+                    .orElse("");
+        }
+        return Arrays.asList(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", classPath);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.util.List;
+
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Decorates a reporter to remember whether any tests or hooks failed, so that the launcher can set its exit status.
+ */
+final class FailureTrackingReporter implements Reporter {
+    private final Reporter reporter;
+    private volatile boolean failed;
+
+    /**
+     * Constructs a new failure tracking reporter.
+     *
+     * @param reporter The reporter to pass events to.
+     */
+    FailureTrackingReporter(Reporter reporter) {
+        this.reporter = reporter;
+    }
+
+    /**
+     * Whether any tests or hooks have failed.
+     *
+     * @return {@code true} if a test or hook failed.
+     */
+    boolean hasFailed() {
+        return failed;
+    }
+
+    @Override
+    public void start(TestBlock rootBlock) {
+        reporter.start(rootBlock);
+    }
+
+    @Override
+    public void end() {
+        reporter.end();
+    }
+
+    @Override
+    public void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+        reporter.testBlockStart(testBlock, parents);
+    }
+
+    @Override
+    public void testBlockEnd(TestBlock testBlock, List<TestBlock> parents) {
+        reporter.testBlockEnd(testBlock, parents);
+    }
+
+    @Override
+    public void hookFail(Hook hook, List<TestBlock> parents, Throwable cause) {
+        failed = true;
+        reporter.hookFail(hook, parents, cause);
+    }
+
+    @Override
+    public void testStart(Test test, List<TestBlock> parents) {
+        reporter.testStart(test, parents);
+    }
+
+    @Override
+    public void testEnd(Test test, List<TestBlock> parents) {
+        reporter.testEnd(test, parents);
+    }
+
+    @Override
+    public void testPass(Test test, List<TestBlock> parents) {
+        reporter.testPass(test, parents);
+    }
+
+    @Override
+    public void testFail(Test test, List<TestBlock> parents, Throwable cause) {
+        failed = true;
+        reporter.testFail(test, parents, cause);
+    }
+
+    @Override
+    public void testPending(Test test, List<TestBlock> parents) {
+        reporter.testPending(test, parents);
+    }
+
+    @Override
+    public void testSkip(Test test, List<TestBlock> parents) {
+        reporter.testSkip(test, parents);
+    }
+}
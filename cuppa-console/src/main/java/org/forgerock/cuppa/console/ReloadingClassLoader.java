@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * A class loader that loads the classes in its own directories itself, before asking its parent, so that a fresh
+ * instance picks up classes that have been recompiled since the parent loaded them. Classes that are not in its
+ * directories, such as Cuppa itself, are loaded by the parent and so are shared between instances.
+ */
+final class ReloadingClassLoader extends URLClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    /**
+     * Constructs a new class loader.
+     *
+     * @param urls The URLs of the directories to load classes from.
+     * @param parent The class loader to load all other classes with.
+     */
+    ReloadingClassLoader(URL[] urls, ClassLoader parent) {
+        super(urls, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null && findResource(name.replace('.', '/') + ".class") != null) {
+                loadedClass = findClass(name);
+            }
+            if (loadedClass == null) {
+                return super.loadClass(name, resolve);
+            }
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+            return loadedClass;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.forgerock.cuppa.CuppaException;
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Runs tests repeatedly in a single, warm JVM: first all of the test classes, and then only the test classes affected
+ * by each set of changed class files. Each run loads the classes in the watched directories with a fresh class loader,
+ * so that recompiled classes are picked up, while the classes in jars, and Cuppa itself, are loaded once. The class
+ * loader of a run is closed when the next run starts.
+ */
+final class WatchSession {
+    private final ConsoleOptions options;
+    private final List<Path> directories;
+    private final URL[] directoryUrls;
+    private final ClassLoader parentClassLoader;
+    private final Function<ClassLoader, Reporter> reporterFactory;
+    private final Runner runner;
+    private final ClassIndex index = new ClassIndex();
+    private ReloadingClassLoader classLoader;
+
+    /**
+     * Constructs a new watch session.
+     *
+     * @param options The options of the launcher. The directories on the class path are watched.
+     * @param parentClassLoader The class loader to load classes that are not in the watched directories with.
+     * @param reporterFactory Creates a reporter for each run, given the class loader of the run.
+     */
+    WatchSession(ConsoleOptions options, ClassLoader parentClassLoader,
+            Function<ClassLoader, Reporter> reporterFactory) {
+        this.options = options;
+        this.directories = options.getClassPath().stream().filter(Files::isDirectory).collect(Collectors.toList());
+        this.directoryUrls = directories.stream().map(WatchSession::toUrl).toArray(URL[]::new);
+        this.parentClassLoader = parentClassLoader;
+        this.reporterFactory = reporterFactory;
+        this.runner = new Runner(options.getTags());
+    }
+
+    /**
+     * Get the directories to watch.
+     *
+     * @return The directories on the class path.
+     */
+    List<Path> getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Indexes the class files in the watched directories, and runs all of the test classes on the class path.
+     *
+     * @return The fully qualified names of the test classes that were run.
+     * @throws IOException If the class path could not be read.
+     */
+    SortedSet<String> runAll() throws IOException {
+        ClassFileScanner scanner = new ClassFileScanner(options.getScanThreadCount());
+        scanner.readClassFiles(directories).forEach(index::put);
+        return run(scanner.findTestClassNames(options.getClassPath()));
+    }
+
+    /**
+     * Updates the index with changed class files, and runs the test classes that are affected by the changes.
+     *
+     * @param changedFiles The paths of the class files that have been created, modified or deleted, and of any
+     *     directories that have been deleted, whose indexed class files are treated as deleted.
+     * @return The fully qualified names of the test classes that were run.
+     * @throws IOException If a changed class file could not be read.
+     */
+    SortedSet<String> runAffected(Set<Path> changedFiles) throws IOException {
+        Set<Path> files = new HashSet<>();
+        for (Path changedFile : changedFiles) {
+            files.add(changedFile);
+            files.addAll(index.getPathsUnder(changedFile));
+        }
+        Set<String> changedClassNames = new HashSet<>();
+        for (Path file : files) {
+            String previousClassName = index.getClassName(file);
+            if (previousClassName != null) {
+                changedClassNames.add(previousClassName);
+            }
+            Optional<ClassFile> classFile = Files.isRegularFile(file)
+                    ? ClassFile.read(Files.readAllBytes(file), false)
+                    : Optional.empty();
+            if (classFile.isPresent()) {
+                index.put(file, classFile.get());
+                changedClassNames.add(classFile.get().name);
+            } else {
+                index.remove(file);
+            }
+        }
+        return run(index.getAffectedTestClassNames(changedClassNames));
+    }
+
+    private SortedSet<String> run(SortedSet<String> testClassNames) throws IOException {
+        if (classLoader != null) {
+            classLoader.close();
+        }
+        classLoader = new ReloadingClassLoader(directoryUrls, parentClassLoader);
+        Thread.currentThread().setContextClassLoader(classLoader);
+        List<Class<?>> testClasses = new ArrayList<>();
+        for (String className : testClassNames) {
+            try {
+                testClasses.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new CuppaException("Failed to load test class " + className, e);
+            }
+        }
+        Reporter reporter = reporterFactory.apply(classLoader);
+        TestBlock rootBlock = runner.defineTests(testClasses);
+        if (options.getThreadCount() > 1) {
+            runner.runParallel(rootBlock, reporter, options.getThreadCount());
+        } else {
+            runner.run(rootBlock, reporter);
+        }
+        return testClassNames;
+    }
+
+    private static URL toUrl(Path directory) {
+        try {
+            return directory.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid class path entry: " + directory, e);
+        }
+    }
+}
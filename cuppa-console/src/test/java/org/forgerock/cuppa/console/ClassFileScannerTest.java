@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.forgerock.cuppa.console.fixtures.AbstractTest;
+import org.forgerock.cuppa.console.fixtures.FailingTest;
+import org.forgerock.cuppa.console.fixtures.PassingTest;
+import org.testng.annotations.Test;
+
+public class ClassFileScannerTest {
+
+    @Test
+    public void shouldFindConcreteClassesAnnotatedWithTestInDirectory() throws Exception {
+
+        //When
+        SortedSet<String> classNames = new ClassFileScanner(2)
+                .findTestClassNames(Collections.singletonList(getTestClassesDirectory()));
+
+        //Then
+        assertThat(classNames).containsExactly(FailingTest.class.getName(), PassingTest.class.getName());
+    }
+
+    @Test
+    public void shouldFindTestClassesInJar() throws Exception {
+
+        //Given
+        Path jar = Files.createTempFile("cuppa-scanner", ".jar");
+        try {
+            writeJar(jar, PassingTest.class, AbstractTest.class);
+
+            //When
+            SortedSet<String> classNames = new ClassFileScanner(1).findTestClassNames(Collections.singletonList(jar));
+
+            //Then
+            assertThat(classNames).containsExactly(PassingTest.class.getName());
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void shouldNotFindClassWithoutTestAnnotation() throws Exception {
+
+        //When
+        boolean found = ClassFileScanner.getTestClassName(readClassFile(ClassFileScannerTest.class)).isPresent();
+
+        //Then
+        assertThat(found).isFalse();
+    }
+
+    static Path getTestClassesDirectory() throws URISyntaxException {
+        return Paths.get(PassingTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static void writeJar(Path jar, Class<?>... classes) throws IOException {
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jarOut = new JarOutputStream(out)) {
+            for (Class<?> clazz : classes) {
+                jarOut.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+                jarOut.write(readClassFile(clazz));
+                jarOut.closeEntry();
+            }
+        }
+    }
+
+    static byte[] readClassFile(Class<?> clazz) throws IOException {
+        try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            byte[] buffer = new byte[in.available()];
+            int length = 0;
+            while (length < buffer.length) {
+                length += in.read(buffer, length, buffer.length - length);
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.console.ClassFileScannerTest.readClassFile;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.forgerock.cuppa.console.fixtures.FailingTest;
+import org.forgerock.cuppa.console.fixtures.Greeter;
+import org.forgerock.cuppa.console.fixtures.PassingTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ClassIndexTest {
+
+    private ClassIndex index;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        index = new ClassIndex();
+        for (Class<?> clazz : new Class<?>[] {PassingTest.class, FailingTest.class, Greeter.class}) {
+            index.put(Paths.get(clazz.getSimpleName() + ".class"), ClassFile.read(readClassFile(clazz), false).get());
+        }
+    }
+
+    @Test
+    public void shouldFindTestClassesThatReferToChangedClass() {
+
+        //When
+        Iterable<String> affected = index.getAffectedTestClassNames(Collections.singleton(Greeter.class.getName()));
+
+        //Then
+        assertThat(affected).containsExactly(PassingTest.class.getName());
+    }
+
+    @Test
+    public void shouldFindChangedTestClass() {
+
+        //When
+        Iterable<String> affected = index.getAffectedTestClassNames(
+                Collections.singleton(FailingTest.class.getName()));
+
+        //Then
+        assertThat(affected).containsExactly(FailingTest.class.getName());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.cuppa.console.fixtures.FailingTest;
+import org.forgerock.cuppa.console.fixtures.PassingTest;
+import org.forgerock.cuppa.internal.fork.DaemonServer;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CuppaConsoleTest {
+
+    private static final List<String> TEST_CLASSES = Collections.synchronizedList(new ArrayList<>());
+
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+    private CuppaConsole console;
+
+    @BeforeMethod
+    public void setUp() {
+        TEST_CLASSES.clear();
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+        console = new CuppaConsole(new PrintStream(out), new PrintStream(err));
+    }
+
+    @Test
+    public void shouldExitWithSuccessIfSelectedTestsPass() throws Exception {
+
+        //When
+        int status = console.run(new String[] {"--class-path", getClassPath(), "--tags", "pass"});
+
+        //Then
+        assertThat(status).isEqualTo(CuppaConsole.EXIT_SUCCESS);
+        assertThat(out.toString()).contains("1 passing");
+    }
+
+    @Test
+    public void shouldExitWithFailureIfATestFails() throws Exception {
+
+        //When
+        int status = console.run(new String[] {"--class-path", getClassPath(), "--threads", "2"});
+
+        //Then
+        assertThat(status).isEqualTo(CuppaConsole.EXIT_FAILURE);
+        assertThat(out.toString()).contains("1 passing").contains("1 failing");
+    }
+
+    @Test
+    public void shouldRunEachTestClassInExactlyOneShard() throws Exception {
+
+        //When
+        runShard("0/2");
+        List<String> firstShard = new ArrayList<>(TEST_CLASSES);
+        TEST_CLASSES.clear();
+        runShard("1/2");
+        List<String> secondShard = new ArrayList<>(TEST_CLASSES);
+
+        //Then
+        assertThat(firstShard).containsExactly(FailingTest.class.getName());
+        assertThat(secondShard).containsExactly(PassingTest.class.getName());
+    }
+
+    @Test
+    public void shouldPrintAPlanWithoutRunningTests() throws Exception {
+
+        //When
+        int status = console.run(new String[] {"--class-path", getClassPath(), "--dry-run"});
+
+        //Then
+        assertThat(status).isEqualTo(CuppaConsole.EXIT_SUCCESS);
+        assertThat(out.toString()).contains("\"type\":\"test\"").contains("\"tests\":2}").doesNotContain("1 passing");
+    }
+
+    @Test
+    public void shouldRunTestsInADaemon() throws Exception {
+
+        //Given
+        try (DaemonServer server = new DaemonServer(0)) {
+            Thread daemon = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            daemon.setDaemon(true);
+            daemon.start();
+
+            //When
+            int status = console.run(new String[] {"--class-path", getClassPath(), "--daemon",
+                String.valueOf(server.getPort()), "--threads", "2", });
+
+            //Then
+            assertThat(status).isEqualTo(CuppaConsole.EXIT_FAILURE);
+            assertThat(out.toString()).contains("1 passing").contains("1 failing");
+        }
+    }
+
+    @Test
+    public void shouldExitWithUsageErrorForInvalidOptions() {
+
+        //When
+        int status = console.run(new String[] {"--shard", "2/2"});
+
+        //Then
+        assertThat(status).isEqualTo(CuppaConsole.EXIT_USAGE);
+        assertThat(err.toString()).contains("Shard index must be between 0 and 1").contains("Usage:");
+    }
+
+    @Test
+    public void shouldReportTheCauseOfAReporterThatCannotBeCreated() throws Exception {
+
+        //When
+        int status = console.run(new String[] {"--class-path", getClassPath(), "--reporter",
+            FailingReporter.class.getName(), });
+
+        //Then
+        assertThat(status).isEqualTo(CuppaConsole.EXIT_FAILURE);
+        assertThat(err.toString()).contains("Failed to create reporter " + FailingReporter.class.getName())
+                .contains("Caused by: java.lang.IllegalStateException: reporter failed")
+                .doesNotContain("InvocationTargetException");
+    }
+
+    private void runShard(String shard) throws Exception {
+        String[] args = {"--class-path", getClassPath(), "--shard", shard, "--reporter",
+            RecordingReporter.class.getName(), };
+        console.run(args);
+    }
+
+    private static String getClassPath() throws Exception {
+        return ClassFileScannerTest.getTestClassesDirectory().toString();
+    }
+
+    public static class RecordingReporter implements Reporter {
+        @Override
+        public void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+            if (parents.size() == 1) {
+                TEST_CLASSES.add(testBlock.testClass.getName());
+            }
+        }
+    }
+
+    public static class FailingReporter implements Reporter {
+        public FailingReporter() {
+            throw new IllegalStateException("reporter failed");
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.console;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.console.ClassFileScannerTest.readClassFile;
+
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.forgerock.cuppa.console.fixtures.FailingTest;
+import org.forgerock.cuppa.console.fixtures.Greeter;
+import org.forgerock.cuppa.console.fixtures.PassingTest;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class WatchSessionTest {
+
+    private Path directory;
+    private final List<Class<?>> testClasses = new ArrayList<>();
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("cuppa-watch");
+        for (Class<?> clazz : new Class<?>[] {PassingTest.class, FailingTest.class, Greeter.class}) {
+            writeClassFile(clazz);
+        }
+        testClasses.clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void shouldRerunTestClassesAffectedByChangedClassFileWithFreshClassLoader() throws Exception {
+
+        //Given
+        WatchSession session = new WatchSession(ConsoleOptions.parse(new String[] {"--class-path",
+            directory.toString(), "--watch", }), getClass().getClassLoader(), l -> new RecordingReporter());
+        try (ClassFileWatcher watcher = new ClassFileWatcher(session.getDirectories())) {
+            assertThat(session.runAll()).containsExactly(FailingTest.class.getName(), PassingTest.class.getName());
+            testClasses.clear();
+
+            //When
+            Path changedFile = writeClassFile(Greeter.class);
+            Set<Path> changes = watcher.awaitChanges(10, TimeUnit.SECONDS);
+            Set<String> rerun = session.runAffected(changes);
+
+            //Then
+            assertThat(changes).contains(changedFile);
+            assertThat(rerun).containsExactly(PassingTest.class.getName());
+            assertThat(testClasses).hasSize(1);
+            assertThat(testClasses.get(0).getName()).isEqualTo(PassingTest.class.getName());
+            assertThat(testClasses.get(0)).isNotSameAs(PassingTest.class);
+        }
+    }
+
+    @Test
+    public void shouldForgetTheClassFilesOfADeletedDirectory() throws Exception {
+
+        //Given
+        WatchSession session = new WatchSession(ConsoleOptions.parse(new String[] {"--class-path",
+            directory.toString(), "--watch", }), getClass().getClassLoader(), l -> new RecordingReporter());
+        Path packageRoot = directory.resolve("org");
+        Path movedDirectory = Files.createTempDirectory("cuppa-watch-moved");
+        try (ClassFileWatcher watcher = new ClassFileWatcher(session.getDirectories())) {
+            session.runAll();
+
+            //When
+            Files.move(packageRoot, movedDirectory.resolve("org"));
+            Set<Path> changes = watcher.awaitChanges(10, TimeUnit.SECONDS);
+            Set<String> rerun = session.runAffected(changes);
+
+            //Then
+            assertThat(changes).contains(packageRoot);
+            assertThat(rerun).isEmpty();
+            assertThat(session.runAffected(Collections.singleton(writeClassFile(Greeter.class)))).isEmpty();
+        } finally {
+            try (Stream<Path> paths = Files.walk(movedDirectory)) {
+                paths.sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCloseTheClassLoaderOfThePreviousRun() throws Exception {
+
+        //Given
+        List<ClassLoader> classLoaders = new ArrayList<>();
+        WatchSession session = new WatchSession(ConsoleOptions.parse(new String[] {"--class-path",
+            directory.toString(), "--watch", }), getClass().getClassLoader(), l -> {
+                classLoaders.add(l);
+                return new RecordingReporter();
+            });
+        String classFile = PassingTest.class.getName().replace('.', '/') + ".class";
+        session.runAll();
+
+        //When
+        session.runAffected(Collections.singleton(writeClassFile(Greeter.class)));
+
+        //Then
+        assertThat(classLoaders).hasSize(2);
+        assertThat(((URLClassLoader) classLoaders.get(0)).findResource(classFile)).isNull();
+        assertThat(((URLClassLoader) classLoaders.get(1)).findResource(classFile)).isNotNull();
+    }
+
+    private Path writeClassFile(Class<?> clazz) throws Exception {
+        Path classFile = directory.resolve(clazz.getName().replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParent());
+        return Files.write(classFile, readClassFile(clazz));
+    }
+
+    private final class RecordingReporter implements Reporter {
+        @Override
+        public void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+            if (parents.size() == 1) {
+                testClasses.add(testBlock.testClass);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit.platform;
+
+import java.util.Set;
+
+import org.forgerock.cuppa.model.Test;
+import org.junit.platform.engine.TestTag;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+
+/**
+ * Describes a Cuppa test to the JUnit Platform. Tests are run, and reported, by their {@link TestClassDescriptor}.
+ */
+final class CuppaTestDescriptor extends AbstractTestDescriptor {
+    static final String SEGMENT_TYPE = "test";
+
+    private final Test test;
+    private final Set<String> tags;
+
+    /**
+     * Constructs a descriptor of a test.
+     *
+     * @param parentId The unique ID of the parent descriptor.
+     * @param test The test.
+     * @param inheritedTags The tags of the ancestor test blocks.
+     */
+    CuppaTestDescriptor(UniqueId parentId, Test test, Set<String> inheritedTags) {
+        super(parentId.append(SEGMENT_TYPE, TestBlockDescriptor.toSegmentValue(test.id)), test.description,
+                ClassSource.from(test.testClass));
+        this.test = test;
+        this.tags = TestBlockDescriptor.union(inheritedTags, test.options);
+    }
+
+    /**
+     * Get the test.
+     *
+     * @return The test.
+     */
+    Test getTest() {
+        return test;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.TEST;
+    }
+
+    @Override
+    public Set<TestTag> getTags() {
+        return TestBlockDescriptor.toTestTags(tags);
+    }
+}
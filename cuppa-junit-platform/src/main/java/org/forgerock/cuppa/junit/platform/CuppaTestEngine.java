@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit.platform;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.platform.commons.support.ReflectionSupport;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.EngineDiscoveryRequest;
+import org.junit.platform.engine.EngineExecutionListener;
+import org.junit.platform.engine.ExecutionRequest;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestEngine;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.discovery.ClassSelector;
+import org.junit.platform.engine.discovery.ClasspathRootSelector;
+import org.junit.platform.engine.discovery.PackageSelector;
+import org.junit.platform.engine.discovery.UniqueIdSelector;
+import org.junit.platform.engine.support.config.PrefixedConfigurationParameters;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.engine.support.filter.ClasspathScanningSupport;
+import org.junit.platform.engine.support.hierarchical.ForkJoinPoolHierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.Node.ExecutionMode;
+import org.junit.platform.engine.support.hierarchical.ResourceLock;
+import org.junit.platform.engine.support.hierarchical.SameThreadHierarchicalTestExecutorService;
+
+/**
+ * A JUnit Platform {@code TestEngine} for discovering and running Cuppa tests.
+ *
+ * <p>Test classes are classes annotated with {@link org.forgerock.cuppa.Test}, and are discovered with class, package,
+ * class path root and unique ID selectors. Class name and package name filters are applied to the classes found by
+ * scanning packages and class path roots. The test blocks and tests of each test class are described by the
+ * descriptor tree, so post-discovery filters, such as tag filters, can select individual tests. Cuppa tags are
+ * reported as test tags.</p>
+ *
+ * <p>Each test class is run on its own once discovery has finished, and its test blocks and tests are reported as they
+ * are run. If the {@value #PARALLEL_ENABLED} configuration
+ * parameter is {@code true}, test classes are run concurrently by the JUnit Platform's fork-join executor, which is
+ * configured by the parameters prefixed with {@value #PARALLEL_CONFIG_PREFIX}, in the same way as the JUnit Jupiter
+ * engine.</p>
+ */
+public final class CuppaTestEngine implements TestEngine {
+
+    /**
+     * The ID of the Cuppa test engine.
+     */
+    public static final String ENGINE_ID = "cuppa";
+
+    /**
+     * The configuration parameter that enables running test classes concurrently.
+     */
+    public static final String PARALLEL_ENABLED = "cuppa.execution.parallel.enabled";
+
+    /**
+     * The prefix of the configuration parameters that configure the parallelism of the fork-join executor, for
+     * example {@code cuppa.execution.parallel.config.strategy}.
+     */
+    public static final String PARALLEL_CONFIG_PREFIX = "cuppa.execution.parallel.config.";
+
+    private static final Predicate<Class<?>> IS_TEST_CLASS = c -> c.isAnnotationPresent(org.forgerock.cuppa.Test.class)
+            && !Modifier.isAbstract(c.getModifiers());
+
+    @Override
+    public String getId() {
+        return ENGINE_ID;
+    }
+
+    @Override
+    public Optional<String> getGroupId() {
+        return Optional.of("org.forgerock.cuppa");
+    }
+
+    @Override
+    public Optional<String> getArtifactId() {
+        return Optional.of("cuppa-junit-platform");
+    }
+
+    @Override
+    public TestDescriptor discover(EngineDiscoveryRequest request, UniqueId uniqueId) {
+        EngineDescriptor engineDescriptor = new EngineDescriptor(uniqueId, "Cuppa");
+        Map<Class<?>, Set<UniqueId>> selectedClasses = new LinkedHashMap<>();
+        Predicate<String> classNamePredicate = ClasspathScanningSupport.buildClassNamePredicate(request);
+        request.getSelectorsByType(ClassSelector.class).stream()
+                .map(ClassSelector::getJavaClass)
+                .filter(IS_TEST_CLASS)
+                .forEach(c -> select(selectedClasses, c, getClassId(uniqueId, c)));
+        request.getSelectorsByType(PackageSelector.class).stream()
+                .flatMap(s -> ReflectionSupport.findAllClassesInPackage(s.getPackageName(), IS_TEST_CLASS,
+                        classNamePredicate).stream())
+                .forEach(c -> select(selectedClasses, c, getClassId(uniqueId, c)));
+        request.getSelectorsByType(ClasspathRootSelector.class).stream()
+                .flatMap(s -> ReflectionSupport.findAllClassesInClasspathRoot(s.getClasspathRoot(), IS_TEST_CLASS,
+                        classNamePredicate).stream())
+                .forEach(c -> select(selectedClasses, c, getClassId(uniqueId, c)));
+        for (UniqueIdSelector selector : request.getSelectorsByType(UniqueIdSelector.class)) {
+            getTestClass(uniqueId, selector.getUniqueId())
+                    .ifPresent(c -> select(selectedClasses, c, selector.getUniqueId()));
+        }
+        Runner runner = new Runner();
+        selectedClasses.forEach((testClass, selectedIds) -> {
+            TestClassDescriptor descriptor = describe(runner, engineDescriptor.getUniqueId(), testClass);
+            if (!selectedIds.contains(descriptor.getUniqueId())) {
+                prune(descriptor, selectedIds);
+            }
+            engineDescriptor.addChild(descriptor);
+        });
+        return engineDescriptor;
+    }
+
+    @Override
+    public void execute(ExecutionRequest request) {
+        TestDescriptor engineDescriptor = request.getRootTestDescriptor();
+        EngineExecutionListener listener = request.getEngineExecutionListener();
+        Runner runner = new Runner();
+        List<ExecutionTask> testClassTasks = new ArrayList<>();
+        for (TestDescriptor descriptor : engineDescriptor.getChildren()) {
+            TestClassDescriptor testClass = (TestClassDescriptor) descriptor;
+            testClassTasks.add(new ExecutionTask(ExecutionMode.CONCURRENT, () -> testClass.execute(runner, listener)));
+        }
+        listener.executionStarted(engineDescriptor);
+        try (HierarchicalTestExecutorService executorService = createExecutorService(request)) {
+            executorService.submit(new ExecutionTask(ExecutionMode.SAME_THREAD,
+                    () -> executorService.invokeAll(testClassTasks))).get();
+            listener.executionFinished(engineDescriptor, TestExecutionResult.successful());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            listener.executionFinished(engineDescriptor, TestExecutionResult.aborted(e));
+        } catch (ExecutionException e) {
+            listener.executionFinished(engineDescriptor, TestExecutionResult.failed(e.getCause()));
+        }
+    }
+
+    private static HierarchicalTestExecutorService createExecutorService(ExecutionRequest request) {
+        ConfigurationParameters parameters = request.getConfigurationParameters();
+        if (parameters.getBoolean(PARALLEL_ENABLED).orElse(false)) {
+            return new ForkJoinPoolHierarchicalTestExecutorService(
+                    new PrefixedConfigurationParameters(parameters, PARALLEL_CONFIG_PREFIX));
+        }
+        return new SameThreadHierarchicalTestExecutorService();
+    }
+
+    private static void select(Map<Class<?>, Set<UniqueId>> selectedClasses, Class<?> testClass,
+            UniqueId selectedId) {
+        selectedClasses.computeIfAbsent(testClass, c -> new HashSet<>()).add(selectedId);
+    }
+
+    private static UniqueId getClassId(UniqueId engineId, Class<?> testClass) {
+        return engineId.append(TestClassDescriptor.SEGMENT_TYPE, testClass.getName());
+    }
+
+    private static Optional<Class<?>> getTestClass(UniqueId engineId, UniqueId selectedId) {
+        List<UniqueId.Segment> segments = selectedId.getSegments();
+        if (segments.size() < 2 || !selectedId.hasPrefix(engineId)
+                || !TestClassDescriptor.SEGMENT_TYPE.equals(segments.get(1).getType())) {
+            return Optional.empty();
+        }
+        return ReflectionSupport.loadClass(segments.get(1).getValue()).filter(IS_TEST_CLASS);
+    }
+
+    private static TestClassDescriptor describe(Runner runner, UniqueId engineId, Class<?> testClass) {
+        try {
+            TestBlock rootBlock = runner.defineTests(Collections.singletonList(testClass));
+            return new TestClassDescriptor(engineId, testClass, rootBlock);
+        } catch (RuntimeException e) {
+            return new TestClassDescriptor(engineId, testClass, e);
+        }
+    }
+
+    private static void prune(TestDescriptor descriptor, Set<UniqueId> selectedIds) {
+        for (TestDescriptor child : new HashSet<>(descriptor.getChildren())) {
+            UniqueId childId = child.getUniqueId();
+            if (selectedIds.stream().noneMatch(s -> s.hasPrefix(childId) || childId.hasPrefix(s))) {
+                child.removeFromHierarchy();
+            } else if (!selectedIds.contains(childId)) {
+                prune(child, selectedIds);
+            }
+        }
+    }
+
+    /**
+     * A task for the executor service, which runs test classes concurrently if parallel execution is enabled. Cuppa
+     * test classes share no resources, so tasks take no locks.
+     */
+    private static final class ExecutionTask implements HierarchicalTestExecutorService.TestTask {
+        private static final ResourceLock NO_LOCK = new ResourceLock() {
+            @Override
+            public ResourceLock acquire() {
+                return this;
+            }
+
+            @Override
+            public void release() {
+            }
+        };
+
+        private final ExecutionMode executionMode;
+        private final Runnable action;
+
+        private ExecutionTask(ExecutionMode executionMode, Runnable action) {
+            this.executionMode = executionMode;
+            this.action = action;
+        }
+
+        @Override
+        public ExecutionMode getExecutionMode() {
+            return executionMode;
+        }
+
+        @Override
+        public ResourceLock getResourceLock() {
+            return NO_LOCK;
+        }
+
+        @Override
+        public void execute() {
+            action.run();
+        }
+    }
+}
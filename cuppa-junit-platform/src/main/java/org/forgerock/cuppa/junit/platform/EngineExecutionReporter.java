@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit.platform;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.junit.platform.engine.EngineExecutionListener;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestExecutionResult;
+
+/**
+ * A reporter that reports the results of the tests of a test class to the JUnit Platform as they are run. Test blocks
+ * and tests are mapped to their descriptors by ID. Hook failures fail the descriptor of the test block that defines
+ * the hook, or the test class if the hook belongs to its root block. Test blocks and tests that are not run, for
+ * example because a hook failed, are reported as skipped when their parent finishes.
+ */
+final class EngineExecutionReporter implements Reporter {
+    private final TestClassDescriptor classDescriptor;
+    private final EngineExecutionListener listener;
+    private final Map<Long, TestDescriptor> testBlockDescriptors = new HashMap<>();
+    private final Map<Long, TestDescriptor> testDescriptors = new HashMap<>();
+    private final Map<Long, TestDescriptor> hookOwners = new HashMap<>();
+    private final Map<TestDescriptor, Throwable> hookFailures = new HashMap<>();
+    private final Set<TestDescriptor> reportedDescriptors = new HashSet<>();
+
+    /**
+     * Constructs a reporter for the tests of a test class.
+     *
+     * @param classDescriptor The descriptor of the test class, which must have been reported as started.
+     * @param listener The listener to report to.
+     */
+    EngineExecutionReporter(TestClassDescriptor classDescriptor, EngineExecutionListener listener) {
+        this.classDescriptor = classDescriptor;
+        this.listener = listener;
+        for (TestDescriptor descriptor : classDescriptor.getDescendants()) {
+            if (descriptor instanceof TestBlockDescriptor) {
+                TestBlock testBlock = ((TestBlockDescriptor) descriptor).getTestBlock();
+                testBlockDescriptors.put(testBlock.id, descriptor);
+                testBlock.hooks.forEach(hook -> hookOwners.put(hook.id, descriptor));
+            } else if (descriptor instanceof CuppaTestDescriptor) {
+                testDescriptors.put(((CuppaTestDescriptor) descriptor).getTest().id, descriptor);
+            }
+        }
+    }
+
+    /**
+     * Reports the test class as finished. Any of its test blocks that were not run are reported as skipped.
+     *
+     * @param runFailure The exception that stopped the tests from being run, or {@code null} if they were run.
+     */
+    void testClassEnd(Throwable runFailure) {
+        if (runFailure != null) {
+            recordFailure(classDescriptor, runFailure);
+        }
+        finish(classDescriptor);
+    }
+
+    @Override
+    public void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+        TestDescriptor descriptor = testBlockDescriptors.get(testBlock.id);
+        if (descriptor != null) {
+            reportedDescriptors.add(descriptor);
+            listener.executionStarted(descriptor);
+        }
+    }
+
+    @Override
+    public void testBlockEnd(TestBlock testBlock, List<TestBlock> parents) {
+        TestDescriptor descriptor = testBlockDescriptors.get(testBlock.id);
+        if (descriptor != null) {
+            finish(descriptor);
+        }
+    }
+
+    @Override
+    public void hookFail(Hook hook, List<TestBlock> parents, Throwable cause) {
+        recordFailure(hookOwners.getOrDefault(hook.id, classDescriptor), cause);
+    }
+
+    @Override
+    public void testStart(Test test, List<TestBlock> parents) {
+        TestDescriptor descriptor = testDescriptors.get(test.id);
+        if (descriptor != null) {
+            reportedDescriptors.add(descriptor);
+            listener.executionStarted(descriptor);
+        }
+    }
+
+    @Override
+    public void testPass(Test test, List<TestBlock> parents) {
+        TestDescriptor descriptor = testDescriptors.get(test.id);
+        if (descriptor != null) {
+            listener.executionFinished(descriptor, TestExecutionResult.successful());
+        }
+    }
+
+    @Override
+    public void testFail(Test test, List<TestBlock> parents, Throwable cause) {
+        TestDescriptor descriptor = testDescriptors.get(test.id);
+        if (descriptor != null) {
+            listener.executionFinished(descriptor, TestExecutionResult.failed(cause));
+        }
+    }
+
+    @Override
+    public void testPending(Test test, List<TestBlock> parents) {
+        skip(testDescriptors.get(test.id), "Pending");
+    }
+
+    @Override
+    public void testSkip(Test test, List<TestBlock> parents) {
+        skip(testDescriptors.get(test.id), "Skipped");
+    }
+
+    private void recordFailure(TestDescriptor descriptor, Throwable cause) {
+        Throwable firstCause = hookFailures.putIfAbsent(descriptor, cause);
+        if (firstCause != null && firstCause != cause) {
+            firstCause.addSuppressed(cause);
+        }
+    }
+
+    private void finish(TestDescriptor descriptor) {
+        for (TestDescriptor child : descriptor.getChildren()) {
+            if (!reportedDescriptors.contains(child)) {
+                skip(child, "Not run");
+            }
+        }
+        Throwable failure = hookFailures.get(descriptor);
+        listener.executionFinished(descriptor,
+                failure == null ? TestExecutionResult.successful() : TestExecutionResult.failed(failure));
+    }
+
+    private void skip(TestDescriptor descriptor, String reason) {
+        if (descriptor != null) {
+            reportedDescriptors.add(descriptor);
+            listener.executionSkipped(descriptor, reason);
+        }
+    }
+}
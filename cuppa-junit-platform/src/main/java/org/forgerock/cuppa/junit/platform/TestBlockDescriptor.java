@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit.platform;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.forgerock.cuppa.ReporterSupport;
+import org.forgerock.cuppa.model.Options;
+import org.forgerock.cuppa.model.TagsOption;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.platform.engine.TestTag;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+
+/**
+ * Describes a Cuppa test block to the JUnit Platform. Test blocks are run, and reported, by their
+ * {@link TestClassDescriptor}.
+ */
+final class TestBlockDescriptor extends AbstractTestDescriptor {
+    static final String SEGMENT_TYPE = "block";
+
+    private final TestBlock testBlock;
+    private final Set<String> tags;
+
+    /**
+     * Constructs a descriptor of a test block and descriptors of all of its nested test blocks and tests.
+     *
+     * @param parentId The unique ID of the parent descriptor.
+     * @param testBlock The test block.
+     * @param inheritedTags The tags of the ancestor test blocks.
+     */
+    TestBlockDescriptor(UniqueId parentId, TestBlock testBlock, Set<String> inheritedTags) {
+        super(parentId.append(SEGMENT_TYPE, toSegmentValue(testBlock.id)), ReporterSupport.getDescription(testBlock),
+                ClassSource.from(testBlock.testClass));
+        this.testBlock = testBlock;
+        this.tags = union(inheritedTags, testBlock.options);
+        for (Test test : testBlock.tests) {
+            addChild(new CuppaTestDescriptor(getUniqueId(), test, tags));
+        }
+        for (TestBlock nestedBlock : testBlock.testBlocks) {
+            addChild(new TestBlockDescriptor(getUniqueId(), nestedBlock, tags));
+        }
+    }
+
+    /**
+     * Get the test block.
+     *
+     * @return The test block.
+     */
+    TestBlock getTestBlock() {
+        return testBlock;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.CONTAINER;
+    }
+
+    @Override
+    public Set<TestTag> getTags() {
+        return toTestTags(tags);
+    }
+
+    /**
+     * Get the value of a unique ID segment for a test block or test.
+     *
+     * @param id The ID of the test block or test.
+     * @return The segment value.
+     */
+    static String toSegmentValue(long id) {
+        return Long.toHexString(id);
+    }
+
+    /**
+     * Get the union of a set of tags and the tags in a set of options.
+     *
+     * @param tags The tags.
+     * @param options The options.
+     * @return The union of the tags.
+     */
+    static Set<String> union(Set<String> tags, Options options) {
+        Set<String> optionTags = options.getOrDefault(TagsOption.class, Collections.emptySet());
+        if (optionTags.isEmpty()) {
+            return tags;
+        }
+        Set<String> union = new HashSet<>(tags);
+        union.addAll(optionTags);
+        return union;
+    }
+
+    /**
+     * Converts Cuppa tags to JUnit Platform tags, ignoring tags that are not valid JUnit Platform tags.
+     *
+     * @param tags The Cuppa tags.
+     * @return The JUnit Platform tags.
+     */
+    static Set<TestTag> toTestTags(Set<String> tags) {
+        return tags.stream()
+                .filter(TestTag::isValid)
+                .map(TestTag::create)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit.platform;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.platform.engine.EngineExecutionListener;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+
+/**
+ * Describes a Cuppa test class to the JUnit Platform. Test classes are the unit of execution: executing a test class
+ * runs the tests that are left in its descriptor tree after discovery, and reports their results as they are run.
+ * Test classes may be executed concurrently.
+ */
+final class TestClassDescriptor extends AbstractTestDescriptor {
+    static final String SEGMENT_TYPE = "class";
+
+    private final TestBlock rootBlock;
+    private final Throwable definitionFailure;
+
+    /**
+     * Constructs a descriptor of a test class and descriptors of all of its test blocks and tests.
+     *
+     * @param parentId The unique ID of the engine descriptor.
+     * @param testClass The test class.
+     * @param rootBlock The root test block of the test class.
+     */
+    TestClassDescriptor(UniqueId parentId, Class<?> testClass, TestBlock rootBlock) {
+        super(parentId.append(SEGMENT_TYPE, testClass.getName()), testClass.getName(), ClassSource.from(testClass));
+        this.rootBlock = rootBlock;
+        this.definitionFailure = null;
+        for (TestBlock testBlock : rootBlock.testBlocks) {
+            addChild(new TestBlockDescriptor(getUniqueId(), testBlock, Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Constructs a descriptor of a test class whose tests could not be defined. Executing the test class fails with
+     * the cause of the failure.
+     *
+     * @param parentId The unique ID of the engine descriptor.
+     * @param testClass The test class.
+     * @param definitionFailure The failure to define the tests of the test class.
+     */
+    TestClassDescriptor(UniqueId parentId, Class<?> testClass, Throwable definitionFailure) {
+        super(parentId.append(SEGMENT_TYPE, testClass.getName()), testClass.getName(), ClassSource.from(testClass));
+        this.rootBlock = null;
+        this.definitionFailure = definitionFailure;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.CONTAINER;
+    }
+
+    /**
+     * Runs the tests that are left in the descriptor tree, and reports the test class, its test blocks and its tests
+     * to the listener as they are run.
+     *
+     * @param runner The runner to run the tests with.
+     * @param listener The listener to report to.
+     */
+    void execute(Runner runner, EngineExecutionListener listener) {
+        listener.executionStarted(this);
+        if (definitionFailure != null) {
+            listener.executionFinished(this, TestExecutionResult.failed(definitionFailure));
+            return;
+        }
+        Set<Long> testIds = getDescendants().stream()
+                .filter(d -> d instanceof CuppaTestDescriptor)
+                .map(d -> ((CuppaTestDescriptor) d).getTest().id)
+                .collect(Collectors.toSet());
+        EngineExecutionReporter reporter = new EngineExecutionReporter(this, listener);
+        try {
+            runner.run(select(rootBlock, testIds), reporter);
+        } catch (RuntimeException e) {
+            reporter.testClassEnd(e);
+            return;
+        }
+        reporter.testClassEnd(null);
+    }
+
+    private static TestBlock select(TestBlock testBlock, Set<Long> testIds) {
+        List<TestBlock> testBlocks = testBlock.testBlocks.stream()
+                .map(b -> select(b, testIds))
+                .filter(TestClassDescriptor::hasTests)
+                .collect(Collectors.toList());
+        return testBlock
+                .withTests(testBlock.tests.stream().filter(t -> testIds.contains(t.id)).collect(Collectors.toList()))
+                .withTestBlocks(testBlocks);
+    }
+
+    private static boolean hasTests(TestBlock testBlock) {
+        return !testBlock.tests.isEmpty() || testBlock.testBlocks.stream().anyMatch(TestClassDescriptor::hasTests);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit.platform;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.*;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectUniqueId;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.TagFilter;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import org.testng.annotations.Test;
+
+public class CuppaTestEngineTest {
+
+    private static final List<String> STARTED_TESTS = new CopyOnWriteArrayList<>();
+    private static CountDownLatch bothRunning;
+
+    @Test
+    public void shouldDescribeTestBlocksAndTestsOfSelectedClass() {
+
+        //Given
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(MixedResultsTest.class))
+                .build();
+
+        //When
+        TestPlan testPlan = LauncherFactory.create().discover(request);
+
+        //Then
+        TestIdentifier engine = testPlan.getRoots().iterator().next();
+        TestIdentifier testClass = testPlan.getChildren(engine).iterator().next();
+        assertThat(testClass.getDisplayName()).isEqualTo(MixedResultsTest.class.getName());
+        TestIdentifier testBlock = testPlan.getChildren(testClass).iterator().next();
+        assertThat(testBlock.getDisplayName()).isEqualTo("results");
+        assertThat(getDisplayNames(testPlan, testBlock)).containsExactly("passes", "fails", "is pending");
+    }
+
+    @Test
+    public void shouldReportTestResults() {
+
+        //When
+        TestExecutionSummary summary = execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(MixedResultsTest.class))
+                .build());
+
+        //Then
+        assertThat(summary.getTestsSucceededCount()).isEqualTo(1);
+        assertThat(summary.getTestsFailedCount()).isEqualTo(1);
+        assertThat(summary.getTestsSkippedCount()).isEqualTo(1);
+        assertThat(summary.getFailures().get(0).getTestIdentifier().getDisplayName()).isEqualTo("fails");
+    }
+
+    @Test
+    public void shouldReportTestsAsStartedWhileTheyRun() {
+
+        //Given
+        STARTED_TESTS.clear();
+
+        //When
+        TestExecutionSummary summary = execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(LiveReportingTest.class))
+                .build(), new TestExecutionListener() {
+                    @Override
+                    public void executionStarted(TestIdentifier testIdentifier) {
+                        STARTED_TESTS.add(testIdentifier.getDisplayName());
+                    }
+                });
+
+        //Then
+        assertThat(summary.getTestsSucceededCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldOnlyRunTestSelectedByUniqueId() {
+
+        //Given
+        TestPlan testPlan = LauncherFactory.create().discover(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(MixedResultsTest.class))
+                .build());
+        String failingTestId = testPlan.getChildren("[engine:cuppa]/[class:" + MixedResultsTest.class.getName() + "]")
+                .stream()
+                .flatMap(b -> testPlan.getChildren(b).stream())
+                .filter(t -> t.getDisplayName().equals("fails"))
+                .findFirst().get().getUniqueId();
+
+        //When
+        TestExecutionSummary summary = execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectUniqueId(failingTestId))
+                .build());
+
+        //Then
+        assertThat(summary.getTestsFoundCount()).isEqualTo(1);
+        assertThat(summary.getTestsFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldOnlyRunTestsWithIncludedTags() {
+
+        //When
+        TestExecutionSummary summary = execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(TaggedTest.class))
+                .filters(TagFilter.includeTags("fast"))
+                .build());
+
+        //Then
+        assertThat(summary.getTestsFoundCount()).isEqualTo(1);
+        assertThat(summary.getTestsSucceededCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReportHookFailureAgainstTestBlock() {
+
+        //When
+        TestExecutionSummary summary = execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(FailingHookTest.class))
+                .build());
+
+        //Then
+        assertThat(summary.getContainersFailedCount()).isEqualTo(1);
+        assertThat(summary.getTestsSucceededCount()).isEqualTo(1);
+        assertThat(summary.getFailures().get(0).getException()).hasMessage("after hook failed");
+    }
+
+    @Test
+    public void shouldReportHookFailureAgainstTestBlockThatDefinesTheHook() {
+
+        //When
+        TestExecutionSummary summary = execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(FailingOuterHookTest.class))
+                .build());
+
+        //Then
+        assertThat(summary.getContainersFailedCount()).isEqualTo(1);
+        assertThat(summary.getFailures().get(0).getTestIdentifier().getDisplayName()).isEqualTo("outer");
+        assertThat(summary.getFailures().get(0).getException()).hasMessage("before each hook failed");
+    }
+
+    @Test
+    public void shouldRunTestClassesConcurrentlyWhenParallelExecutionIsEnabled() {
+
+        //Given
+        bothRunning = new CountDownLatch(2);
+
+        //When
+        TestExecutionSummary summary = execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(FirstConcurrentTest.class), selectClass(SecondConcurrentTest.class))
+                .configurationParameter(CuppaTestEngine.PARALLEL_ENABLED, "true")
+                .configurationParameter(CuppaTestEngine.PARALLEL_CONFIG_PREFIX + "strategy", "fixed")
+                .configurationParameter(CuppaTestEngine.PARALLEL_CONFIG_PREFIX + "fixed.parallelism", "2")
+                .build());
+
+        //Then
+        assertThat(summary.getTestsSucceededCount()).isEqualTo(2);
+        assertThat(summary.getTestsFailedCount()).isEqualTo(0);
+    }
+
+    private static TestExecutionSummary execute(LauncherDiscoveryRequest request,
+            TestExecutionListener... listeners) {
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        TestExecutionListener[] allListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        allListeners[listeners.length] = listener;
+        LauncherFactory.create().execute(request, allListeners);
+        return listener.getSummary();
+    }
+
+    private static List<String> getDisplayNames(TestPlan testPlan, TestIdentifier parent) {
+        return testPlan.getChildren(parent).stream().map(TestIdentifier::getDisplayName).collect(Collectors.toList());
+    }
+
+    private static void awaitBothRunning() throws InterruptedException {
+        bothRunning.countDown();
+        Assertions.assertThat(bothRunning.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class MixedResultsTest {
+        {
+            describe("results", () -> {
+                it("passes", TestFunction.identity());
+                it("fails", () -> {
+                    Assertions.assertThat(true).isFalse();
+                });
+                it("is pending");
+            });
+        }
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class LiveReportingTest {
+        {
+            describe("live reporting", () -> {
+                it("is reported as started while it runs", () -> {
+                    Assertions.assertThat(STARTED_TESTS)
+                            .contains("live reporting", "is reported as started while it runs");
+                });
+            });
+        }
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class TaggedTest {
+        {
+            describe("tags", () -> {
+                with(tags("fast")).
+                it("is fast", TestFunction.identity());
+                with(tags("slow")).
+                it("is slow", TestFunction.identity());
+            });
+        }
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class FailingHookTest {
+        {
+            describe("hooks", () -> {
+                after(() -> {
+                    throw new IllegalStateException("after hook failed");
+                });
+                it("passes", TestFunction.identity());
+            });
+        }
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class FailingOuterHookTest {
+        {
+            describe("outer", () -> {
+                beforeEach(() -> {
+                    throw new IllegalStateException("before each hook failed");
+                });
+                describe("inner", () -> {
+                    it("is not run", TestFunction.identity());
+                });
+            });
+        }
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class FirstConcurrentTest {
+        {
+            describe("first", () -> {
+                it("runs alongside second", CuppaTestEngineTest::awaitBothRunning);
+            });
+        }
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class SecondConcurrentTest {
+        {
+            describe("second", () -> {
+                it("runs alongside first", CuppaTestEngineTest::awaitBothRunning);
+            });
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import static org.junit.runner.Description.createSuiteDescription;
+import static org.junit.runner.Description.createTestDescription;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.forgerock.cuppa.ReporterSupport;
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sorter;
+
+/**
+ * Maps between Cuppa test blocks and tests and JUnit {@link Description}s, and filters and sorts test block trees by
+ * their descriptions.
+ */
+final class CuppaDescriptions {
+
+    private CuppaDescriptions() {
+    }
+
+    /**
+     * Get the description of a test class, without any children.
+     *
+     * @param testClass The test class.
+     * @param rootBlock The root test block of the test class.
+     * @return The description of the test class.
+     */
+    static Description getSuiteDescription(Class<?> testClass, TestBlock rootBlock) {
+        return createSuiteDescription(testClass.getName(), rootBlock.description);
+    }
+
+    /**
+     * Get the description of a test block.
+     *
+     * @param testBlock The test block.
+     * @param parents The ancestor test blocks, starting with the root block and ending with the immediate parent.
+     * @return The description of the test block and all of its nested test blocks and tests.
+     */
+    static Description getDescription(TestBlock testBlock, List<TestBlock> parents) {
+        Description description = getShallowDescription(testBlock, parents);
+        List<TestBlock> newParents = append(parents, testBlock);
+        testBlock.tests.forEach(test -> description.addChild(getDescription(test, newParents)));
+        testBlock.testBlocks.forEach(b -> description.addChild(getDescription(b, newParents)));
+        return description;
+    }
+
+    /**
+     * Get the description of a test.
+     *
+     * @param test The test.
+     * @param parents The ancestor test blocks, starting with the root block and ending with the immediate parent.
+     * @return The description of the test.
+     */
+    static Description getDescription(Test test, List<TestBlock> parents) {
+        return createTestDescription(test.testClass.getName(), test.description,
+                ReporterSupport.getFullDescription(test, parents));
+    }
+
+    /**
+     * Removes the tests whose descriptions are not matched by a filter, and the test blocks left without tests.
+     *
+     * @param rootBlock The root test block.
+     * @param descriptionTree The description tree of the root test block.
+     * @param filter The filter.
+     * @return The filtered root test block.
+     * @throws NoTestsRemainException If the filter does not match any tests.
+     */
+    static TestBlock filter(TestBlock rootBlock, DescriptionTree descriptionTree, Filter filter)
+            throws NoTestsRemainException {
+        TestBlock filteredRootBlock = filter(rootBlock, Collections.emptyList(), descriptionTree, filter);
+        if (!hasTests(filteredRootBlock)) {
+            throw new NoTestsRemainException();
+        }
+        return filteredRootBlock;
+    }
+
+    private static TestBlock filter(TestBlock testBlock, List<TestBlock> parents, DescriptionTree descriptionTree,
+            Filter filter) {
+        List<TestBlock> newParents = append(parents, testBlock);
+        List<Test> tests = testBlock.tests.stream()
+                .filter(t -> filter.shouldRun(descriptionTree.getDescription(t, newParents)))
+                .collect(Collectors.toList());
+        List<TestBlock> testBlocks = testBlock.testBlocks.stream()
+                .map(b -> filter(b, newParents, descriptionTree, filter))
+                .filter(CuppaDescriptions::hasTests)
+                .collect(Collectors.toList());
+        return testBlock.withTests(tests).withTestBlocks(testBlocks);
+    }
+
+    /**
+     * Removes the tests that are not selected by the {@link TestSelection} given by system properties, if any.
+     *
+     * @param rootBlock The root test block.
+     * @return The selected root test block.
+     */
+    static TestBlock select(TestBlock rootBlock) {
+        return TestSelection.fromSystemProperties().map(s -> s.apply(rootBlock)).orElse(rootBlock);
+    }
+
+    /**
+     * Sorts the tests and test blocks within each test block by their descriptions.
+     *
+     * @param rootBlock The root test block.
+     * @param descriptionTree The description tree of the root test block.
+     * @param sorter The sorter.
+     * @return The sorted root test block.
+     */
+    static TestBlock sort(TestBlock rootBlock, DescriptionTree descriptionTree, Sorter sorter) {
+        return sort(rootBlock, Collections.emptyList(), descriptionTree, sorter);
+    }
+
+    private static TestBlock sort(TestBlock testBlock, List<TestBlock> parents, DescriptionTree descriptionTree,
+            Sorter sorter) {
+        List<TestBlock> newParents = append(parents, testBlock);
+        List<Test> tests = testBlock.tests.stream()
+                .sorted(Comparator.comparing(t -> descriptionTree.getDescription(t, newParents), sorter))
+                .collect(Collectors.toList());
+        List<TestBlock> testBlocks = testBlock.testBlocks.stream()
+                .sorted(Comparator.comparing(b -> descriptionTree.getDescription(b, newParents), sorter))
+                .map(b -> sort(b, newParents, descriptionTree, sorter))
+                .collect(Collectors.toList());
+        return testBlock.withTests(tests).withTestBlocks(testBlocks);
+    }
+
+    /**
+     * Get the description of a test block, without any children.
+     *
+     * @param testBlock The test block.
+     * @param parents The ancestor test blocks, starting with the root block and ending with the immediate parent.
+     * @return The description of the test block.
+     */
+    static Description getShallowDescription(TestBlock testBlock, List<TestBlock> parents) {
+        return createSuiteDescription(ReporterSupport.getDescription(testBlock),
+                ReporterSupport.getFullDescription(testBlock, parents));
+    }
+
+    private static boolean hasTests(TestBlock testBlock) {
+        return !testBlock.tests.isEmpty() || testBlock.testBlocks.stream().anyMatch(CuppaDescriptions::hasTests);
+    }
+
+    /**
+     * Get a new list of test blocks that has the given test block appended to the given parents.
+     *
+     * @param parents The ancestor test blocks.
+     * @param testBlock The test block to append.
+     * @return The new list.
+     */
+    static List<TestBlock> append(List<TestBlock> parents, TestBlock testBlock) {
+        return Stream.concat(parents.stream(), Stream.of(testBlock)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+import org.junit.runners.model.Statement;
+
+/**
+ * Base class for the {@code Runner}s whose children are the top-level test blocks of a Cuppa test tree. The blocks are
+ * dispatched through the {@link RunnerScheduler} set on the runner, for example by JUnit's {@code ParallelComputer},
+ * and run one after another if no scheduler is set. The runner can be filtered and sorted.
+ */
+abstract class CuppaParentRunner extends ParentRunner<TestBlock> {
+    private static final RunnerScheduler SEQUENTIAL_SCHEDULER = new RunnerScheduler() {
+        @Override
+        public void schedule(Runnable childStatement) {
+            childStatement.run();
+        }
+
+        @Override
+        public void finished() {
+        }
+    };
+
+    private final org.forgerock.cuppa.Runner runner = new org.forgerock.cuppa.Runner();
+    private volatile RunnerScheduler scheduler = SEQUENTIAL_SCHEDULER;
+    private TestBlock rootBlock;
+    private DescriptionTree descriptionTree;
+
+    /**
+     * Constructs a new {@code Runner} that will run the tests of the given test classes.
+     *
+     * @param annotatedClass The class that is run with this runner.
+     * @param testClasses The classes containing the test definitions.
+     * @throws InitializationError If the annotated class is not a valid JUnit test class.
+     */
+    CuppaParentRunner(Class<?> annotatedClass, List<Class<?>> testClasses) throws InitializationError {
+        super(annotatedClass);
+        rootBlock = CuppaDescriptions.select(runner.defineTests(testClasses));
+    }
+
+    /**
+     * Creates the description tree of the runner.
+     *
+     * @param annotatedClass The class that is run with this runner.
+     * @param rootBlock The root test block, as filtered and sorted.
+     * @return The description tree.
+     */
+    abstract DescriptionTree createDescriptionTree(Class<?> annotatedClass, TestBlock rootBlock);
+
+    @Override
+    protected final List<TestBlock> getChildren() {
+        return rootBlock.testBlocks;
+    }
+
+    @Override
+    protected final Description describeChild(TestBlock child) {
+        return getDescriptionTree().getDescription(child, Collections.singletonList(rootBlock));
+    }
+
+    /**
+     * Not supported. The top-level test blocks are run together by {@link #childrenInvoker(RunNotifier)}, so that
+     * {@code only()} applies across the whole test tree.
+     *
+     * @param child The top-level test block.
+     * @param notifier The JUnit notifier to report test results to.
+     */
+    @Override
+    protected final void runChild(TestBlock child, RunNotifier notifier) {
+        throw new UnsupportedOperationException("Top-level test blocks are not run individually");
+    }
+
+    @Override
+    protected final Statement childrenInvoker(RunNotifier notifier) {
+        return new Statement() {
+            @Override
+            public void evaluate() {
+                RunnerScheduler currentScheduler = scheduler;
+                ReportJUnitAdapter reporter = new ReportJUnitAdapter(notifier, getDescriptionTree());
+                try {
+                    if (currentScheduler == SEQUENTIAL_SCHEDULER) {
+                        runner.run(rootBlock, reporter);
+                    } else {
+                        runner.runParallel(rootBlock, reporter, currentScheduler::schedule);
+                    }
+                } finally {
+                    currentScheduler.finished();
+                }
+            }
+        };
+    }
+
+    @Override
+    public final Description getDescription() {
+        return getDescriptionTree().getDescription();
+    }
+
+    @Override
+    public final void filter(Filter filter) throws NoTestsRemainException {
+        rootBlock = CuppaDescriptions.filter(rootBlock, getDescriptionTree(), filter);
+        descriptionTree = null;
+    }
+
+    @Override
+    public final void sort(Sorter sorter) {
+        rootBlock = CuppaDescriptions.sort(rootBlock, getDescriptionTree(), sorter);
+        descriptionTree = null;
+    }
+
+    private DescriptionTree getDescriptionTree() {
+        if (descriptionTree == null) {
+            descriptionTree = createDescriptionTree(getTestClass().getJavaClass(), rootBlock);
+        }
+        return descriptionTree;
+    }
+
+    @Override
+    public final void setScheduler(RunnerScheduler scheduler) {
+        super.setScheduler(scheduler);
+        this.scheduler = scheduler;
+    }
+}
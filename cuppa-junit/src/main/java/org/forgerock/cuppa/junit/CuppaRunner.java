@@ -16,28 +16,32 @@
 
 package org.forgerock.cuppa.junit;
 
-import static org.junit.runner.Description.createSuiteDescription;
-import static org.junit.runner.Description.createTestDescription;
-
 import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import org.forgerock.cuppa.ReporterSupport;
 import org.forgerock.cuppa.model.TestBlock;
 import org.junit.runner.Description;
 import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.Filterable;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sortable;
+import org.junit.runner.manipulation.Sorter;
 import org.junit.runner.notification.RunNotifier;
 
 /**
  * A {@code Runner} for running Cuppa tests and notifying the JUnit framework of test results.
+ *
+ * <p>The runner can be filtered and sorted, for example by an IDE running a single test. Filters and sorters are
+ * applied to the descriptions of individual tests, and test blocks that are left without tests are removed. Tests can
+ * also be selected by ID or description with the system properties read by
+ * {@link org.forgerock.cuppa.TestSelection#fromSystemProperties()}.</p>
  */
-public final class CuppaRunner extends Runner {
+public final class CuppaRunner extends Runner implements Filterable, Sortable {
 
     private final Class<?> testClass;
     private final org.forgerock.cuppa.Runner runner = new org.forgerock.cuppa.Runner();
-    private final TestBlock rootBlock;
+    private TestBlock rootBlock;
+    private DescriptionTree descriptionTree;
 
     /**
      * Constructs a new {@code Runner} that will run tests in the {@code annotatedClass}.
@@ -46,29 +50,35 @@ public final class CuppaRunner extends Runner {
      */
     public CuppaRunner(Class<?> annotatedClass) {
         this.testClass = annotatedClass;
-        rootBlock = runner.defineTests(Collections.singletonList(annotatedClass));
+        rootBlock = CuppaDescriptions.select(runner.defineTests(Collections.singletonList(annotatedClass)));
     }
 
     @Override
     public Description getDescription() {
-        Description description = createSuiteDescription(testClass.getName(), rootBlock.description);
-        rootBlock.testBlocks.forEach(b ->
-                description.addChild(getDescriptionOfDescribeBlock(b, Collections.singletonList(rootBlock))));
-        return description;
+        return getDescriptionTree().getDescription();
     }
 
-    private Description getDescriptionOfDescribeBlock(TestBlock testBlock, List<TestBlock> parents) {
-        Description description = createSuiteDescription(ReporterSupport.getDescription(testBlock),
-                ReporterSupport.getFullDescription(testBlock, parents));
-        List<TestBlock> newParents = Stream.concat(parents.stream(), Stream.of(testBlock)).collect(Collectors.toList());
-        testBlock.tests.forEach(test -> description.addChild(createTestDescription(test.testClass.getName(),
-                test.description, ReporterSupport.getFullDescription(test, newParents))));
-        testBlock.testBlocks.forEach(b -> description.addChild(getDescriptionOfDescribeBlock(b, newParents)));
-        return description;
+    @Override
+    public void run(RunNotifier notifier) {
+        runner.run(rootBlock, new ReportJUnitAdapter(notifier, getDescriptionTree()));
     }
 
     @Override
-    public void run(RunNotifier notifier) {
-        runner.run(rootBlock, new ReportJUnitAdapter(notifier));
+    public void filter(Filter filter) throws NoTestsRemainException {
+        rootBlock = CuppaDescriptions.filter(rootBlock, getDescriptionTree(), filter);
+        descriptionTree = null;
+    }
+
+    @Override
+    public void sort(Sorter sorter) {
+        rootBlock = CuppaDescriptions.sort(rootBlock, getDescriptionTree(), sorter);
+        descriptionTree = null;
+    }
+
+    private DescriptionTree getDescriptionTree() {
+        if (descriptionTree == null) {
+            descriptionTree = new DescriptionTree(testClass, rootBlock);
+        }
+        return descriptionTree;
     }
 }
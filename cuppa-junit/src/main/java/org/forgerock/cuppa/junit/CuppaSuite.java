@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.runner.Description;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * A {@code Runner} for running the Cuppa tests of many test classes as a single suite. The test classes are listed
+ * with {@link SuiteClasses}, or found in the packages listed with {@link SuitePackages}, and are defined by a single
+ * Cuppa runner, so they are run as one test tree and described by a single {@link Description} tree that groups the
+ * tests of each test class together.
+ *
+ * <p>For example:</p>
+ *
+ * <pre>
+ * &#64;RunWith(CuppaSuite.class)
+ * &#64;CuppaSuite.SuitePackages("com.example.tests")
+ * public class AllTests {
+ * }
+ * </pre>
+ *
+ * <p>Like {@link ParallelCuppaRunner}, the top-level test blocks of the suite are dispatched through the
+ * {@link RunnerScheduler} set on the runner, if there is one, and the suite can be filtered and sorted.</p>
+ */
+public final class CuppaSuite extends CuppaParentRunner {
+
+    /**
+     * Lists the test classes to run when a class annotated with {@code @RunWith(CuppaSuite.class)} is run.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @Inherited
+    public @interface SuiteClasses {
+        /**
+         * The test classes to run.
+         *
+         * @return The test classes.
+         */
+        Class<?>[] value();
+    }
+
+    /**
+     * Lists the packages to run the test classes of when a class annotated with {@code @RunWith(CuppaSuite.class)} is
+     * run. A test class is a class in a package, or one of its sub-packages, that is annotated with
+     * {@link org.forgerock.cuppa.Test}, or run with {@link CuppaRunner} or {@link ParallelCuppaRunner}.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @Inherited
+    public @interface SuitePackages {
+        /**
+         * The fully qualified names of the packages to run.
+         *
+         * @return The package names.
+         */
+        String[] value();
+    }
+
+    /**
+     * Constructs a new {@code Runner} that will run the tests of the test classes listed by the {@code suiteClass}.
+     *
+     * @param suiteClass The class annotated with {@link SuiteClasses} or {@link SuitePackages}.
+     * @throws InitializationError If the suite class lists no test classes, or its packages could not be scanned.
+     */
+    public CuppaSuite(Class<?> suiteClass) throws InitializationError {
+        super(suiteClass, getTestClasses(suiteClass));
+    }
+
+    private static List<Class<?>> getTestClasses(Class<?> suiteClass) throws InitializationError {
+        SuiteClasses suiteClasses = suiteClass.getAnnotation(SuiteClasses.class);
+        SuitePackages suitePackages = suiteClass.getAnnotation(SuitePackages.class);
+        if (suiteClasses == null && suitePackages == null) {
+            throw new InitializationError("Class '" + suiteClass.getName() + "' must have a "
+                    + SuiteClasses.class.getSimpleName() + " or " + SuitePackages.class.getSimpleName()
+                    + " annotation");
+        }
+        Set<Class<?>> testClasses = new LinkedHashSet<>();
+        if (suiteClasses != null) {
+            testClasses.addAll(Arrays.asList(suiteClasses.value()));
+        }
+        if (suitePackages != null) {
+            for (String packageName : suitePackages.value()) {
+                try {
+                    testClasses.addAll(TestClassScanner.findTestClasses(packageName, suiteClass.getClassLoader()));
+                } catch (IOException | IllegalStateException e) {
+                    throw new InitializationError(e);
+                }
+            }
+        }
+        testClasses.remove(suiteClass);
+        return new ArrayList<>(testClasses);
+    }
+
+    @Override
+    DescriptionTree createDescriptionTree(Class<?> annotatedClass, TestBlock rootBlock) {
+        return DescriptionTree.forSuite(annotatedClass, rootBlock);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import static org.junit.runner.Description.createSuiteDescription;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.runner.Description;
+
+/**
+ * The JUnit {@link Description} tree of a test class, or of a suite of test classes, built once and indexed by the
+ * identity of its test blocks and tests, so that the same description instances are reported to JUnit throughout a
+ * run. Tests that were replaced by a test tree transform are not in the index and are given new, equal descriptions.
+ */
+final class DescriptionTree {
+    private final Description description;
+    private final Map<TestBlock, Description> testBlockDescriptions = new IdentityHashMap<>();
+    private final Map<Test, Description> testDescriptions = new IdentityHashMap<>();
+
+    /**
+     * Builds the description tree of a test class.
+     *
+     * @param testClass The test class.
+     * @param rootBlock The root test block of the test class.
+     */
+    DescriptionTree(Class<?> testClass, TestBlock rootBlock) {
+        description = CuppaDescriptions.getSuiteDescription(testClass, rootBlock);
+        List<TestBlock> parents = Collections.singletonList(rootBlock);
+        rootBlock.testBlocks.forEach(b -> description.addChild(build(b, parents)));
+    }
+
+    private DescriptionTree(Description description) {
+        this.description = description;
+    }
+
+    /**
+     * Builds the description tree of a suite of test classes. The top-level test blocks are grouped under a
+     * description of the test class that defined them, in the order that each test class first appears.
+     *
+     * @param suiteClass The suite class.
+     * @param rootBlock The root test block of all the test classes in the suite.
+     * @return The description tree.
+     */
+    static DescriptionTree forSuite(Class<?> suiteClass, TestBlock rootBlock) {
+        DescriptionTree tree = new DescriptionTree(createSuiteDescription(suiteClass.getName(),
+                suiteClass.getAnnotations()));
+        List<TestBlock> parents = Collections.singletonList(rootBlock);
+        Map<Class<?>, Description> testClassDescriptions = new LinkedHashMap<>();
+        for (TestBlock testBlock : rootBlock.testBlocks) {
+            testClassDescriptions.computeIfAbsent(testBlock.testClass, c -> createSuiteDescription(c.getName()))
+                    .addChild(tree.build(testBlock, parents));
+        }
+        testClassDescriptions.values().forEach(tree.description::addChild);
+        return tree;
+    }
+
+    private Description build(TestBlock testBlock, List<TestBlock> parents) {
+        Description testBlockDescription = CuppaDescriptions.getShallowDescription(testBlock, parents);
+        testBlockDescriptions.put(testBlock, testBlockDescription);
+        List<TestBlock> newParents = CuppaDescriptions.append(parents, testBlock);
+        for (Test test : testBlock.tests) {
+            Description testDescription = CuppaDescriptions.getDescription(test, newParents);
+            testDescriptions.put(test, testDescription);
+            testBlockDescription.addChild(testDescription);
+        }
+        testBlock.testBlocks.forEach(b -> testBlockDescription.addChild(build(b, newParents)));
+        return testBlockDescription;
+    }
+
+    /**
+     * Get the description of the test class or suite.
+     *
+     * @return The description of the test class or suite and all of its test blocks and tests.
+     */
+    Description getDescription() {
+        return description;
+    }
+
+    /**
+     * Get the description of a test block, reusing the description in the tree if there is one.
+     *
+     * @param testBlock The test block.
+     * @param parents The ancestor test blocks, starting with the root block and ending with the immediate parent.
+     * @return The description of the test block.
+     */
+    Description getDescription(TestBlock testBlock, List<TestBlock> parents) {
+        Description testBlockDescription = testBlockDescriptions.get(testBlock);
+        return testBlockDescription != null
+                ? testBlockDescription
+                : CuppaDescriptions.getDescription(testBlock, parents);
+    }
+
+    /**
+     * Get the description of a test, reusing the description in the tree if there is one.
+     *
+     * @param test The test.
+     * @param parents The ancestor test blocks, starting with the root block and ending with the immediate parent.
+     * @return The description of the test.
+     */
+    Description getDescription(Test test, List<TestBlock> parents) {
+        Description testDescription = testDescriptions.get(test);
+        return testDescription != null ? testDescription : CuppaDescriptions.getDescription(test, parents);
+    }
+}
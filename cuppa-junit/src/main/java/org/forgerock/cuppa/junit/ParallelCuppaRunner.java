@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import java.util.Collections;
+
+import org.forgerock.cuppa.model.TestBlock;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * A {@code Runner} for running Cuppa tests that can run the top-level test blocks of a test class in parallel. The
+ * blocks are dispatched through the {@link RunnerScheduler} set on the runner, for example by JUnit's
+ * {@code ParallelComputer}, and run one after another if no scheduler is set.
+ *
+ * <p>Top-level test blocks that are run in parallel must not share state, such as fields of the test class that their
+ * hooks assign. Like {@link CuppaRunner}, this runner can be filtered and sorted.</p>
+ */
+public final class ParallelCuppaRunner extends CuppaParentRunner {
+
+    /**
+     * Constructs a new {@code Runner} that will run tests in the {@code annotatedClass}.
+     *
+     * @param annotatedClass The class containing the test definitions.
+     * @throws InitializationError If the class is not a valid JUnit test class.
+     */
+    public ParallelCuppaRunner(Class<?> annotatedClass) throws InitializationError {
+        super(annotatedClass, Collections.singletonList(annotatedClass));
+    }
+
+    @Override
+    DescriptionTree createDescriptionTree(Class<?> annotatedClass, TestBlock rootBlock) {
+        return new DescriptionTree(annotatedClass, rootBlock);
+    }
+}
@@ -34,14 +34,17 @@ import org.junit.runner.notification.RunNotifier;
 final class ReportJUnitAdapter implements Reporter {
 
     private final RunNotifier notifier;
+    private final DescriptionTree descriptionTree;
 
     /**
      * Constructs a reporter that adapts events to JUnit.
      *
      * @param notifier The JUnit {@link RunNotifier} instance.
+     * @param descriptionTree The descriptions of the tests being run, which are reused when reporting them.
      */
-    ReportJUnitAdapter(RunNotifier notifier) {
+    ReportJUnitAdapter(RunNotifier notifier, DescriptionTree descriptionTree) {
         this.notifier = notifier;
+        this.descriptionTree = descriptionTree;
     }
 
     @Override
@@ -78,7 +81,6 @@ final class ReportJUnitAdapter implements Reporter {
     }
 
     private Description getDescription(Test test, List<TestBlock> parents) {
-        return Description.createTestDescription(test.testClass.getName(), test.description,
-                ReporterSupport.getFullDescription(test, parents));
+        return descriptionTree.getDescription(test, parents);
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import org.junit.runner.RunWith;
+
+/**
+ * Finds the Cuppa test classes in a package, and its sub-packages, on the class path. Test classes are those annotated
+ * with {@link org.forgerock.cuppa.Test}, or run with {@link CuppaRunner} or {@link ParallelCuppaRunner}.
+ */
+final class TestClassScanner {
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private TestClassScanner() {
+    }
+
+    /**
+     * Finds the test classes in a package, ordered by class name. The classes are loaded without being initialised.
+     *
+     * @param packageName The fully qualified name of the package.
+     * @param classLoader The class loader to search and to load classes with.
+     * @return The test classes in the package and its sub-packages.
+     * @throws IOException If the class path could not be read.
+     */
+    static List<Class<?>> findTestClasses(String packageName, ClassLoader classLoader) throws IOException {
+        String packagePath = packageName.replace('.', '/');
+        Set<String> classNames = new TreeSet<>();
+        Enumeration<URL> resources = classLoader.getResources(packagePath);
+        while (resources.hasMoreElements()) {
+            classNames.addAll(findClassNames(resources.nextElement(), packagePath));
+        }
+        return classNames.stream()
+                .map(name -> loadClass(name, classLoader))
+                .filter(TestClassScanner::isTestClass)
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> findClassNames(URL resource, String packagePath) throws IOException {
+        if ("jar".equals(resource.getProtocol())) {
+            JarURLConnection connection = (JarURLConnection) resource.openConnection();
+            connection.setUseCaches(false);
+            try (JarFile jarFile = connection.getJarFile()) {
+                return toClassNames(jarFile.stream()
+                        .map(ZipEntry::getName)
+                        .filter(name -> name.startsWith(packagePath + "/")));
+            }
+        }
+        Path directory;
+        try {
+            directory = Paths.get(resource.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid class path entry: " + resource, e);
+        }
+        Path root = directory;
+        for (int i = packagePath.split("/").length; i > 0; i--) {
+            root = root.getParent();
+        }
+        Path classPathRoot = root;
+        try (Stream<Path> files = Files.walk(directory)) {
+            return toClassNames(files.map(f -> classPathRoot.relativize(f).toString().replace('\\', '/')));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Set<String> toClassNames(Stream<String> paths) {
+        return paths
+                .filter(path -> path.endsWith(CLASS_FILE_SUFFIX) && !path.endsWith("package-info.class"))
+                .map(path -> path.substring(0, path.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.'))
+                .collect(Collectors.toSet());
+    }
+
+    private static Class<?> loadClass(String className, ClassLoader classLoader) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException("Failed to load class " + className, e);
+        }
+    }
+
+    private static boolean isTestClass(Class<?> clazz) {
+        RunWith runWith = clazz.getAnnotation(RunWith.class);
+        return clazz.isAnnotationPresent(org.forgerock.cuppa.Test.class) || runWith != null
+                && (runWith.value() == CuppaRunner.class || runWith.value() == ParallelCuppaRunner.class);
+    }
+}
@@ -23,11 +23,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.assertj.core.api.Assertions;
+import org.forgerock.cuppa.TestSelection;
 import org.forgerock.cuppa.functions.TestFunction;
 import org.junit.runner.Description;
 import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
 import org.junit.runner.Result;
 import org.junit.runner.RunWith;
+import org.junit.runner.manipulation.Filter;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 import org.testng.annotations.Test;
@@ -336,6 +339,135 @@ public class CuppaRunnerTest {
         assertThat(rootDescriptionChildren.get(2).getChildren().get(0).getDisplayName()).startsWith("d");
     }
 
+    @Test
+    public void shouldReportSameTestDescriptionInstancesAsGivenBeforeStart() {
+
+        //Given
+        List<Description> testDescriptions = new ArrayList<>();
+        JUnitCore jUnit = new JUnitCore();
+        jUnit.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) throws Exception {
+                testDescriptions.add(description);
+            }
+
+            @Override
+            public void testFinished(Description description) throws Exception {
+                testDescriptions.add(description);
+            }
+        });
+        CuppaRunner runner = new CuppaRunner(CuppaRunnerTest.PassingTest.class);
+        Description testDescription = runner.getDescription().getChildren().get(0)
+                .getChildren().get(0)
+                .getChildren().get(0);
+
+        //When
+        jUnit.run(Request.runner(runner));
+
+        //Then
+        assertThat(runner.getDescription()).isSameAs(runner.getDescription());
+        assertThat(testDescriptions).hasSize(2);
+        Assertions.assertThat(testDescriptions.get(0)).isSameAs(testDescription);
+        Assertions.assertThat(testDescriptions.get(1)).isSameAs(testDescription);
+    }
+
+    @Test
+    public void shouldOnlyRunTestsSelectedByFilter() {
+
+        //Given
+        List<String> startedTests = new ArrayList<>();
+        JUnitCore jUnit = new JUnitCore();
+        jUnit.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) throws Exception {
+                startedTests.add(description.getMethodName());
+            }
+        });
+        Request request = Request.aClass(CuppaRunnerTest.TestsAndTestBlocks.class)
+                .filterWith(new Filter() {
+                    @Override
+                    public boolean shouldRun(Description description) {
+                        return !description.isTest() || description.getMethodName().equals("d");
+                    }
+
+                    @Override
+                    public String describe() {
+                        return "only d";
+                    }
+                });
+
+        //When
+        Result result = jUnit.run(request);
+
+        //Then
+        assertThat(result.getRunCount()).isEqualTo(1);
+        assertThat(startedTests).containsExactly("d");
+    }
+
+    @Test
+    public void shouldReportFailureWhenFilterRemovesAllTests() {
+
+        //Given
+        Request request = Request.aClass(CuppaRunnerTest.TestsAndTestBlocks.class)
+                .filterWith(Description.createTestDescription(TestsAndTestBlocks.class, "does not exist"));
+
+        //When
+        Result result = new JUnitCore().run(request);
+
+        //Then
+        assertThat(result.getFailureCount()).isEqualTo(1);
+        assertThat(result.getFailures().get(0).getMessage()).startsWith("No tests found matching");
+    }
+
+    @Test
+    public void shouldRunOnlyTestsSelectedBySystemProperties() {
+
+        //Given
+        List<String> startedTests = new ArrayList<>();
+        JUnitCore jUnit = new JUnitCore();
+        jUnit.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) throws Exception {
+                startedTests.add(description.getMethodName());
+            }
+        });
+        System.setProperty(TestSelection.GREP_PROPERTY, "when c d");
+
+        //When
+        Result result;
+        try {
+            result = jUnit.run(CuppaRunnerTest.TestsAndTestBlocks.class);
+        } finally {
+            System.clearProperty(TestSelection.GREP_PROPERTY);
+        }
+
+        //Then
+        assertThat(result.getRunCount()).isEqualTo(1);
+        assertThat(startedTests).containsExactly("d");
+    }
+
+    @Test
+    public void shouldRunTestsInOrderGivenBySorter() {
+
+        //Given
+        List<String> startedTests = new ArrayList<>();
+        JUnitCore jUnit = new JUnitCore();
+        jUnit.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) throws Exception {
+                startedTests.add(description.getMethodName());
+            }
+        });
+        Request request = Request.aClass(CuppaRunnerTest.TestsAndTestBlocks.class)
+                .sortWith((d1, d2) -> d2.getDisplayName().compareTo(d1.getDisplayName()));
+
+        //When
+        jUnit.run(request);
+
+        //Then
+        assertThat(startedTests).containsExactly("b", "a", "d");
+    }
+
     @RunWith(CuppaRunner.class)
     public static class PassingTest {
         {
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.junit.suite.FirstPackagedTest;
+import org.forgerock.cuppa.junit.suite.SecondPackagedTest;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.testng.annotations.Test;
+
+public class CuppaSuiteTest {
+
+    @Test
+    public void shouldRunTestsOfAllSuiteClasses() {
+
+        //When
+        Result result = JUnitCore.runClasses(CuppaSuiteTest.ClassesSuite.class);
+
+        //Then
+        assertThat(result.getRunCount()).isEqualTo(3);
+        assertThat(result.getFailureCount()).isEqualTo(1);
+        assertThat(result.getFailures().get(0).getDescription().getClassName())
+                .isEqualTo(SecondTest.class.getName());
+    }
+
+    @Test
+    public void shouldGroupDescriptionsByTestClass() {
+
+        //When
+        Description description = Request.aClass(CuppaSuiteTest.ClassesSuite.class).getRunner().getDescription();
+
+        //Then
+        assertThat(description.getClassName()).isEqualTo(ClassesSuite.class.getName());
+        assertThat(getDisplayNames(description.getChildren()))
+                .containsExactly(FirstTest.class.getName(), SecondTest.class.getName());
+        assertThat(description.testCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldRunTestClassesFoundInSuitePackages() {
+
+        //When
+        Description description = Request.aClass(CuppaSuiteTest.PackagesSuite.class).getRunner().getDescription();
+        Result result = JUnitCore.runClasses(CuppaSuiteTest.PackagesSuite.class);
+
+        //Then
+        assertThat(getDisplayNames(description.getChildren()))
+                .containsExactly(FirstPackagedTest.class.getName(), SecondPackagedTest.class.getName());
+        assertThat(result.getRunCount()).isEqualTo(2);
+        assertThat(result.getFailureCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldOnlyRunTestsSelectedByFilter() {
+
+        //Given
+        Request request = Request.aClass(CuppaSuiteTest.ClassesSuite.class)
+                .filterWith(Description.createTestDescription(SecondTest.class.getName(), "passes",
+                        "second passes"));
+
+        //When
+        Result result = new JUnitCore().run(request);
+
+        //Then
+        assertThat(result.getRunCount()).isEqualTo(1);
+        assertThat(result.getFailureCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldFailIfSuiteClassListsNoTestClasses() {
+
+        //When
+        Result result = JUnitCore.runClasses(CuppaSuiteTest.EmptySuite.class);
+
+        //Then
+        assertThat(result.getFailureCount()).isEqualTo(1);
+        assertThat(result.getFailures().get(0).getMessage()).contains("SuiteClasses");
+    }
+
+    private static List<String> getDisplayNames(List<Description> descriptions) {
+        return descriptions.stream().map(Description::getDisplayName).collect(Collectors.toList());
+    }
+
+    public static class FirstTest {
+        {
+            describe("first", () -> {
+                it("passes", TestFunction.identity());
+            });
+        }
+    }
+
+    public static class SecondTest {
+        {
+            describe("second", () -> {
+                it("passes", TestFunction.identity());
+                it("fails", () -> {
+                    Assertions.assertThat(true).isFalse();
+                });
+            });
+        }
+    }
+
+    @RunWith(CuppaSuite.class)
+    @CuppaSuite.SuiteClasses({FirstTest.class, SecondTest.class})
+    public static class ClassesSuite {
+    }
+
+    @RunWith(CuppaSuite.class)
+    @CuppaSuite.SuitePackages("org.forgerock.cuppa.junit.suite")
+    public static class PackagesSuite {
+    }
+
+    @RunWith(CuppaSuite.class)
+    public static class EmptySuite {
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.forgerock.cuppa.Cuppa.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.junit.experimental.ParallelComputer;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.testng.annotations.Test;
+
+public class ParallelCuppaRunnerTest {
+
+    private static CountDownLatch bothRunning;
+
+    @Test
+    public void shouldRunTopLevelBlocksSequentiallyWithoutScheduler() {
+
+        //When
+        Result result = JUnitCore.runClasses(ParallelCuppaRunnerTest.PassingAndFailingTest.class);
+
+        //Then
+        assertThat(result.getRunCount()).isEqualTo(2);
+        assertThat(result.getFailureCount()).isEqualTo(1);
+        assertThat(result.getFailures().get(0).getDescription().getMethodName()).isEqualTo("fails");
+    }
+
+    @Test
+    public void shouldRunTopLevelBlocksConcurrentlyWithParallelComputer() {
+
+        //Given
+        bothRunning = new CountDownLatch(2);
+
+        //When
+        Result result = JUnitCore.runClasses(ParallelComputer.methods(),
+                ParallelCuppaRunnerTest.ConcurrentTest.class);
+
+        //Then
+        assertThat(result.getRunCount()).isEqualTo(2);
+        assertThat(result.getFailureCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldOnlyRunTestsSelectedByFilter() {
+
+        //Given
+        Request request = Request.aClass(ParallelCuppaRunnerTest.PassingAndFailingTest.class)
+                .filterWith(Description.createTestDescription(PassingAndFailingTest.class.getName(), "passes",
+                        "first passes"));
+
+        //When
+        Result result = new JUnitCore().run(request);
+
+        //Then
+        assertThat(result.getRunCount()).isEqualTo(1);
+        assertThat(result.getFailureCount()).isEqualTo(0);
+    }
+
+    private static void awaitBothRunning() throws InterruptedException {
+        bothRunning.countDown();
+        Assertions.assertThat(bothRunning.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @RunWith(ParallelCuppaRunner.class)
+    public static class PassingAndFailingTest {
+        {
+            describe("first", () -> {
+                it("passes", TestFunction.identity());
+            });
+            describe("second", () -> {
+                it("fails", () -> {
+                    Assertions.assertThat(true).isFalse();
+                });
+            });
+        }
+    }
+
+    @RunWith(ParallelCuppaRunner.class)
+    public static class ConcurrentTest {
+        {
+            describe("first", () -> {
+                it("runs alongside second", ParallelCuppaRunnerTest::awaitBothRunning);
+            });
+            describe("second", () -> {
+                it("runs alongside first", ParallelCuppaRunnerTest::awaitBothRunning);
+            });
+        }
+    }
+}
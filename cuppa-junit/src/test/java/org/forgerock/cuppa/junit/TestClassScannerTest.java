@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.junit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.forgerock.cuppa.junit.suite.FirstPackagedTest;
+import org.testng.annotations.Test;
+
+public class TestClassScannerTest {
+
+    @Test
+    public void shouldFindTestClassesInAJarWithoutClosingItForOtherUsers() throws Exception {
+
+        //Given
+        String classFile = FirstPackagedTest.class.getName().replace('.', '/') + ".class";
+        Path jar = Files.createTempFile("cuppa", ".jar");
+        jar.toFile().deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             InputStream in = getClass().getClassLoader().getResourceAsStream(classFile)) {
+            out.putNextEntry(new JarEntry(classFile.substring(0, classFile.lastIndexOf('/') + 1)));
+            out.putNextEntry(new JarEntry(classFile));
+            copy(in, out);
+        }
+        URL classUrl = new URL("jar:" + jar.toUri() + "!/" + classFile);
+        JarFile sharedJarFile = ((JarURLConnection) classUrl.openConnection()).getJarFile();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()})) {
+
+            //When
+            List<Class<?>> testClasses = TestClassScanner.findTestClasses(
+                    FirstPackagedTest.class.getPackage().getName(), classLoader);
+
+            //Then
+            assertThat(testClasses).contains(FirstPackagedTest.class);
+            assertThat(sharedJarFile.getEntry(classFile)).isNotNull();
+        } finally {
+            sharedJarFile.close();
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws Exception {
+        byte[] buffer = new byte[1024];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+    }
+}
@@ -19,16 +19,23 @@ package org.forgerock.cuppa.maven.surefire;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
+import org.apache.maven.surefire.booter.ProviderParameterNames;
 import org.apache.maven.surefire.providerapi.AbstractProvider;
 import org.apache.maven.surefire.providerapi.ProviderParameters;
 import org.apache.maven.surefire.report.ReporterFactory;
-import org.apache.maven.surefire.report.RunListener;
 import org.apache.maven.surefire.suite.RunResult;
+import org.apache.maven.surefire.testset.TestListResolver;
+import org.apache.maven.surefire.testset.TestRequest;
+import org.apache.maven.surefire.util.TestsToRun;
 import org.forgerock.cuppa.Runner;
 import org.forgerock.cuppa.Test;
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.internal.filters.TagQuery;
 import org.forgerock.cuppa.model.Tags;
 import org.forgerock.cuppa.model.TestBlock;
 
@@ -36,9 +43,11 @@ import org.forgerock.cuppa.model.TestBlock;
  * Maven Surefire and Failsafe provider for locating and running Cuppa tests.
  */
 public final class CuppaSurefireProvider extends AbstractProvider {
-
     private final ProviderParameters providerParameters;
     private final Tags tags;
+    private final int threadCount;
+    private final TestListResolver testListResolver;
+    private final Optional<TestSelection> selection;
 
     /**
      * Constructs a new Cuppa Surefire Provider.
@@ -48,17 +57,65 @@ public final class CuppaSurefireProvider extends AbstractProvider {
     public CuppaSurefireProvider(ProviderParameters parameters) {
         this.providerParameters = parameters;
         Map<String, String> properties = parameters.getProviderProperties();
-        tags = new Tags(getTags(properties), getExcludedTags(properties));
+        tags = getRunTags(properties);
+        threadCount = getThreadCount(properties);
+        testListResolver = getTestListResolver(parameters);
+        selection = getSelection(properties);
+    }
+
+    /**
+     * Get the tests selected by ID or description, from the {@code selectionFile} and {@code grep} settings, which the
+     * {@value TestSelection#FILE_PROPERTY} and {@value TestSelection#GREP_PROPERTY} system properties override.
+     */
+    private static Optional<TestSelection> getSelection(Map<String, String> properties) {
+        return TestSelection.of(System.getProperty(TestSelection.FILE_PROPERTY, properties.get("selectionFile")),
+                System.getProperty(TestSelection.GREP_PROPERTY, properties.get("grep")));
+    }
+
+    private static TestListResolver getTestListResolver(ProviderParameters parameters) {
+        TestRequest testRequest = parameters.getTestRequest();
+        if (testRequest == null || testRequest.getTestListResolver() == null) {
+            return TestListResolver.getEmptyTestListResolver();
+        }
+        return testRequest.getTestListResolver();
+    }
+
+    /**
+     * Get the number of threads to run test classes on, from Surefire's {@code parallel}, {@code threadCount},
+     * {@code perCoreThreadCount} and {@code useUnlimitedThreads} settings. Cuppa always runs the tests of a single test
+     * class on one thread, so any {@code parallel} setting other than {@code none} runs test classes in parallel.
+     */
+    static int getThreadCount(Map<String, String> properties) {
+        String parallel = properties.get(ProviderParameterNames.PARALLEL_PROP);
+        if (parallel == null || parallel.trim().isEmpty() || "none".equalsIgnoreCase(parallel.trim())) {
+            return 1;
+        }
+        if (Boolean.parseBoolean(properties.get("useUnlimitedThreads"))) {
+            return Integer.MAX_VALUE;
+        }
+        String threadCountProperty = properties.get(ProviderParameterNames.THREADCOUNT_PROP);
+        int count = threadCountProperty == null ? 1 : Integer.parseInt(threadCountProperty.trim());
+        if (!"false".equalsIgnoreCase(properties.get("perCoreThreadCount"))) {
+            count *= Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(count, 1);
     }
 
-    private Set<String> getTags(Map<String, String> properties) {
+    private Tags getRunTags(Map<String, String> properties) {
         String groups = properties.get("groups");
         if (groups == null) {
             groups = System.getProperty("groups");
         }
         String tags = properties.get("tags");
         String overrideTags = System.getProperty("tags");
-        return getTags(groups, overrideTags == null ? tags : overrideTags);
+        if (overrideTags != null) {
+            tags = overrideTags;
+        }
+        Set<String> excludedTags = getExcludedTags(properties);
+        if (groups == null && tags != null && TagQuery.isExpression(tags)) {
+            return new Tags(Collections.emptySet(), excludedTags, Optional.of(tags));
+        }
+        return new Tags(getTags(groups, tags), excludedTags);
     }
 
     private Set<String> getTags(String groups, String tags) {
@@ -91,18 +148,52 @@ public final class CuppaSurefireProvider extends AbstractProvider {
     @Override
     public RunResult invoke(Object forkTestSet) {
         ReporterFactory reporterFactory = providerParameters.getReporterFactory();
-        RunListener listener = reporterFactory.createReporter();
         Runner runner = new Runner(tags);
-        TestBlock rootBlock = runner.defineTests(getSuites());
-        runner.run(rootBlock, new CuppaSurefireReporter(listener));
+        TestBlock rootBlock = runner.defineTests(getTestClasses(forkTestSet));
+        if (testListResolver.hasMethodPatterns()) {
+            rootBlock = new TestListFilter(testListResolver).apply(rootBlock);
+        }
+        if (selection.isPresent()) {
+            rootBlock = selection.get().apply(rootBlock);
+        }
+        CuppaSurefireReporter reporter = new CuppaSurefireReporter(reporterFactory::createReporter);
+        if (threadCount > 1) {
+            runner.runParallel(rootBlock, reporter, threadCount);
+        } else {
+            runner.run(rootBlock, reporter);
+        }
         return reporterFactory.close();
     }
 
+    /**
+     * Get the test classes to run in this JVM. When Surefire forks a JVM per test class, or feeds classes to reused
+     * forks one at a time, it passes those classes to {@link #invoke(Object)}. Otherwise, all the test classes found by
+     * Surefire are run. Classes that are not selected by the {@code test} parameter are never instantiated.
+     */
+    private Iterable<Class<?>> getTestClasses(Object forkTestSet) {
+        if (forkTestSet instanceof Class) {
+            return isSelectedTestClass((Class<?>) forkTestSet)
+                    ? Collections.singletonList((Class<?>) forkTestSet)
+                    : Collections.emptyList();
+        } else if (forkTestSet instanceof TestsToRun) {
+            return StreamSupport.stream(((TestsToRun) forkTestSet).spliterator(), false)
+                    .filter(this::isSelectedTestClass)
+                    .collect(Collectors.toList());
+        }
+        return getSuites();
+    }
+
     @Override
     public Iterable<Class<?>> getSuites() {
         return Arrays.asList(providerParameters.getScanResult()
-                .applyFilter(clazz -> Arrays.stream(clazz.getAnnotations())
-                                .anyMatch(annotation -> Test.class.equals(annotation.annotationType())),
-                        providerParameters.getTestClassLoader()).getLocatedClasses());
+                .applyFilter(this::isSelectedTestClass, providerParameters.getTestClassLoader())
+                .getLocatedClasses());
+    }
+
+    private boolean isSelectedTestClass(Class<?> clazz) {
+        return Arrays.stream(clazz.getAnnotations())
+                .anyMatch(annotation -> Test.class.equals(annotation.annotationType()))
+                && (testListResolver.isEmpty()
+                || testListResolver.shouldRun(TestListResolver.toClassFileName(clazz), null));
     }
 }
@@ -16,7 +16,12 @@
 
 package org.forgerock.cuppa.maven.surefire;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.maven.surefire.report.PojoStackTraceWriter;
 import org.apache.maven.surefire.report.RunListener;
@@ -29,28 +34,47 @@ import org.forgerock.cuppa.reporters.Reporter;
 
 /**
  * Reporter for Maven Surefire and Failsafe plugins.
+ *
+ * <p>Each test class is reported as its own test set, with its own {@link RunListener}, which is started when the
+ * first of its top-level test blocks starts and completed as soon as a different test class starts on the same thread,
+ * or the run ends. Surefire can therefore write the results of each class as it goes rather than holding the whole
+ * run as one test set. When test classes are run in parallel, each class is run on a single thread and the runner
+ * serializes calls to the reporter, so every event is attributed to the test set of its own class.</p>
  */
 final class CuppaSurefireReporter implements Reporter {
 
-    private final RunListener listener;
+    private final Supplier<RunListener> listenerFactory;
+    private final ThreadLocal<TestSet> currentTestSet = new ThreadLocal<>();
+    private final Set<TestSet> openTestSets = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     /**
-     * Constructs a reporter that adapts events to Surefire's {@link RunListener}.
+     * Constructs a reporter that adapts events to Surefire's {@link RunListener}s.
      *
-     * @param listener The {@link RunListener} instance.
+     * @param listenerFactory Creates a new {@link RunListener} for each test set.
      */
-    CuppaSurefireReporter(RunListener listener) {
-        this.listener = listener;
+    CuppaSurefireReporter(Supplier<RunListener> listenerFactory) {
+        this.listenerFactory = listenerFactory;
     }
 
     @Override
-    public void start(TestBlock rootBlock) {
-        listener.testSetStarting(new SimpleReportEntry(CuppaSurefireProvider.class.getName(), "Cuppa"));
+    public void end() {
+        openTestSets.forEach(TestSet::complete);
+        openTestSets.clear();
+        currentTestSet.remove();
     }
 
     @Override
-    public void end() {
-        listener.testSetCompleted(new SimpleReportEntry(CuppaSurefireProvider.class.getName(), "Cuppa"));
+    public void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+        if (parents.size() == 1) {
+            getTestSet(testBlock.testClass);
+        }
+    }
+
+    @Override
+    public void testBlockEnd(TestBlock testBlock, List<TestBlock> parents) {
+        if (parents.size() == 1) {
+            getTestSet(testBlock.testClass).lastBlockEnd = System.nanoTime();
+        }
     }
 
     @Override
@@ -58,28 +82,33 @@ final class CuppaSurefireReporter implements Reporter {
         ReporterSupport.filterStackTrace(cause);
         String fullDescription = ReporterSupport.getFullDescription(hook, parents);
         String className = hook.testClass.getCanonicalName();
-        listener.testError(new SimpleReportEntry(className, fullDescription,
+        getTestSet(hook.testClass).listener.testError(new SimpleReportEntry(className, fullDescription,
                 new PojoStackTraceWriter(className, fullDescription, cause), 0));
     }
 
     @Override
     public void testStart(Test test, List<TestBlock> parents) {
-        listener.testStarting(new SimpleReportEntry(test.testClass.getCanonicalName(),
+        TestSet testSet = getTestSet(test.testClass);
+        testSet.testStart = System.nanoTime();
+        testSet.listener.testStarting(new SimpleReportEntry(test.testClass.getCanonicalName(),
                 ReporterSupport.getFullDescription(test, parents)));
     }
 
     @Override
     public void testPass(Test test, List<TestBlock> parents) {
-        listener.testSucceeded(new SimpleReportEntry(test.testClass.getCanonicalName(),
-                ReporterSupport.getFullDescription(test, parents)));
+        TestSet testSet = getTestSet(test.testClass);
+        testSet.listener.testSucceeded(new SimpleReportEntry(test.testClass.getCanonicalName(),
+                ReporterSupport.getFullDescription(test, parents), TestSet.millisSince(testSet.testStart)));
     }
 
     @Override
     public void testFail(Test test, List<TestBlock> parents, Throwable cause) {
         ReporterSupport.filterStackTrace(cause);
+        TestSet testSet = getTestSet(test.testClass);
         String description = ReporterSupport.getFullDescription(test, parents);
-        listener.testFailed(new SimpleReportEntry(test.testClass.getCanonicalName(), description,
-                new PojoStackTraceWriter(test.testClass.getCanonicalName(), description, cause), 0));
+        testSet.listener.testFailed(new SimpleReportEntry(test.testClass.getCanonicalName(), description,
+                new PojoStackTraceWriter(test.testClass.getCanonicalName(), description, cause),
+                TestSet.millisSince(testSet.testStart)));
     }
 
     @Override
@@ -89,7 +118,58 @@ final class CuppaSurefireReporter implements Reporter {
 
     @Override
     public void testSkip(Test test, List<TestBlock> parents) {
-        listener.testSkipped(new SimpleReportEntry(test.testClass.getCanonicalName(),
+        getTestSet(test.testClass).listener.testSkipped(new SimpleReportEntry(test.testClass.getCanonicalName(),
                 ReporterSupport.getFullDescription(test, parents)));
     }
+
+    /**
+     * Get the test set of the given class on the current thread, completing the previous test set if it was for a
+     * different class.
+     */
+    private TestSet getTestSet(Class<?> testClass) {
+        TestSet testSet = currentTestSet.get();
+        if (testSet != null && testSet.testClass == testClass && !testSet.completed) {
+            return testSet;
+        }
+        if (testSet != null && openTestSets.remove(testSet)) {
+            testSet.complete();
+        }
+        testSet = new TestSet(testClass, listenerFactory.get());
+        currentTestSet.set(testSet);
+        openTestSets.add(testSet);
+        return testSet;
+    }
+
+    private static final class TestSet {
+        private final Class<?> testClass;
+        private final RunListener listener;
+        private final long start;
+        private long lastBlockEnd;
+        private long testStart;
+        private boolean completed;
+
+        private TestSet(Class<?> testClass, RunListener listener) {
+            this.testClass = testClass;
+            this.listener = listener;
+            this.start = System.nanoTime();
+            this.lastBlockEnd = start;
+            this.testStart = start;
+            listener.testSetStarting(new SimpleReportEntry(CuppaSurefireProvider.class.getName(),
+                    testClass.getCanonicalName()));
+        }
+
+        private void complete() {
+            completed = true;
+            listener.testSetCompleted(new SimpleReportEntry(CuppaSurefireProvider.class.getName(),
+                    testClass.getCanonicalName(), millisBetween(start, lastBlockEnd)));
+        }
+
+        private static int millisSince(long startTime) {
+            return millisBetween(startTime, System.nanoTime());
+        }
+
+        private static int millisBetween(long startTime, long endTime) {
+            return (int) TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+        }
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.maven.surefire;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.surefire.testset.TestListResolver;
+import org.forgerock.cuppa.ReporterSupport;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+
+/**
+ * Removes the tests that are not selected by Surefire's {@code test} parameter. The method part of a
+ * {@code Class#method} pattern is matched against the full description of each test, for example
+ * {@code -Dtest=CalculatorTest#*adds*}. Test blocks that are left empty are removed by the runner.
+ */
+final class TestListFilter implements Function<TestBlock, TestBlock> {
+    private final TestListResolver testListResolver;
+
+    /**
+     * Constructs a new filter.
+     *
+     * @param testListResolver The resolved {@code test} parameter.
+     */
+    TestListFilter(TestListResolver testListResolver) {
+        this.testListResolver = testListResolver;
+    }
+
+    @Override
+    public TestBlock apply(TestBlock rootBlock) {
+        return filter(rootBlock, Stream.of(rootBlock).collect(Collectors.toList()));
+    }
+
+    private TestBlock filter(TestBlock testBlock, List<TestBlock> path) {
+        List<Test> tests = testBlock.tests.stream()
+                .filter(t -> shouldRun(t, path))
+                .collect(Collectors.toList());
+        List<TestBlock> testBlocks = testBlock.testBlocks.stream()
+                .map(b -> filter(b, Stream.concat(path.stream(), Stream.of(b)).collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        return testBlock.withTests(tests).withTestBlocks(testBlocks);
+    }
+
+    private boolean shouldRun(Test test, List<TestBlock> parents) {
+        return testListResolver.shouldRun(TestListResolver.toClassFileName(test.testClass),
+                ReporterSupport.getFullDescription(test, parents));
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.maven.surefire;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.maven.surefire.providerapi.ProviderParameters;
+import org.apache.maven.surefire.report.ReportEntry;
+import org.apache.maven.surefire.report.ReporterFactory;
+import org.apache.maven.surefire.report.RunListener;
+import org.apache.maven.surefire.testset.TestListResolver;
+import org.apache.maven.surefire.testset.TestRequest;
+import org.apache.maven.surefire.util.TestsToRun;
+import org.assertj.core.api.Assertions;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class CuppaSurefireProviderTest {
+
+    private static final List<Class<?>> INSTANTIATED_CLASSES = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setUp() {
+        INSTANTIATED_CLASSES.clear();
+    }
+
+    @DataProvider
+    private Object[][] threadCounts() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return new Object[][]{
+            {properties(), 1},
+            {properties("parallel", "none", "threadcount", "4"), 1},
+            {properties("parallel", "classes", "threadcount", "4", "perCoreThreadCount", "false"), 4},
+            {properties("parallel", "classes", "threadcount", "2"), 2 * processors},
+            {properties("parallel", "classes", "perCoreThreadCount", "false"), 1},
+            {properties("parallel", "classes", "threadcount", "0", "perCoreThreadCount", "false"), 1},
+            {properties("parallel", "classes", "useUnlimitedThreads", "true"), Integer.MAX_VALUE},
+        };
+    }
+
+    @Test(dataProvider = "threadCounts")
+    public void shouldGetThreadCountFromParallelSettings(Map<String, String> properties, int expectedThreadCount) {
+
+        //When
+        int threadCount = CuppaSurefireProvider.getThreadCount(properties);
+
+        //Then
+        assertThat(threadCount).isEqualTo(expectedThreadCount);
+    }
+
+    @Test
+    public void shouldOnlyRunTheTestClassPassedByAForkedJvm() {
+
+        //Given
+        RunListener listener = mock(RunListener.class);
+        CuppaSurefireProvider provider = new CuppaSurefireProvider(parameters(properties(),
+                TestListResolver.getEmptyTestListResolver(), listener));
+
+        //When
+        provider.invoke(PassingTest.class);
+
+        //Then
+        assertThat(INSTANTIATED_CLASSES).containsExactly(PassingTest.class);
+        verify(listener, times(2)).testSucceeded(any(ReportEntry.class));
+        verify(listener).testSetCompleted(any(ReportEntry.class));
+    }
+
+    @DataProvider
+    private Object[][] runProperties() {
+        return new Object[][]{
+            {properties()},
+            {properties("parallel", "classes", "threadcount", "2", "perCoreThreadCount", "false")},
+        };
+    }
+
+    @Test(dataProvider = "runProperties")
+    public void shouldReportEachTestClassAsItsOwnTestSet(Map<String, String> properties) {
+
+        //Given
+        RunListener passingListener = mock(RunListener.class);
+        RunListener failingListener = mock(RunListener.class);
+        CuppaSurefireProvider provider = new CuppaSurefireProvider(parameters(properties,
+                TestListResolver.getEmptyTestListResolver(), passingListener, failingListener));
+
+        //When
+        provider.invoke(testsToRun(PassingTest.class, FailingTest.class));
+
+        //Then
+        RunListener first = getTestSetName(passingListener).equals(PassingTest.class.getCanonicalName())
+                ? passingListener : failingListener;
+        RunListener second = first == passingListener ? failingListener : passingListener;
+        assertThat(getTestSetName(second)).isEqualTo(FailingTest.class.getCanonicalName());
+        verify(first, times(2)).testSucceeded(any(ReportEntry.class));
+        verify(first, never()).testFailed(any(ReportEntry.class));
+        verify(first).testSetCompleted(any(ReportEntry.class));
+        verify(second).testSucceeded(any(ReportEntry.class));
+        verify(second).testFailed(any(ReportEntry.class));
+        verify(second).testSetCompleted(any(ReportEntry.class));
+    }
+
+    @Test
+    public void shouldOnlyRunTestsMatchedByTheTestParameter() {
+
+        //Given
+        RunListener listener = mock(RunListener.class);
+        CuppaSurefireProvider provider = new CuppaSurefireProvider(parameters(properties(),
+                new TestListResolver("*$PassingTest#*adds*"), listener));
+
+        //When
+        provider.invoke(testsToRun(PassingTest.class, FailingTest.class));
+
+        //Then
+        assertThat(INSTANTIATED_CLASSES).containsExactly(PassingTest.class);
+        ArgumentCaptor<ReportEntry> captor = ArgumentCaptor.forClass(ReportEntry.class);
+        verify(listener).testSucceeded(captor.capture());
+        assertThat(captor.getValue().getName()).isEqualTo("calculator adds numbers");
+        verify(listener, never()).testFailed(any(ReportEntry.class));
+    }
+
+    @Test
+    public void shouldNotInstantiateTestClassesThatTheTestParameterDoesNotMatch() {
+
+        //Given
+        RunListener listener = mock(RunListener.class);
+        CuppaSurefireProvider provider = new CuppaSurefireProvider(parameters(properties(),
+                new TestListResolver("*$PassingTest"), listener));
+
+        //When
+        provider.invoke(FailingTest.class);
+
+        //Then
+        assertThat(INSTANTIATED_CLASSES).isEmpty();
+        verifyZeroInteractions(listener);
+    }
+
+    private static String getTestSetName(RunListener listener) {
+        ArgumentCaptor<ReportEntry> captor = ArgumentCaptor.forClass(ReportEntry.class);
+        verify(listener).testSetStarting(captor.capture());
+        return captor.getValue().getName();
+    }
+
+    private static Map<String, String> properties(String... keysAndValues) {
+        Map<String, String> properties = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            properties.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return properties;
+    }
+
+    private static TestsToRun testsToRun(Class<?>... classes) {
+        return new TestsToRun(new LinkedHashSet<>(Arrays.asList(classes)));
+    }
+
+    private static ProviderParameters parameters(Map<String, String> properties, TestListResolver testListResolver,
+            RunListener listener, RunListener... listeners) {
+        ReporterFactory reporterFactory = mock(ReporterFactory.class);
+        when(reporterFactory.createReporter()).thenReturn(listener, listeners);
+        ProviderParameters parameters = mock(ProviderParameters.class);
+        when(parameters.getProviderProperties()).thenReturn(properties);
+        when(parameters.getReporterFactory()).thenReturn(reporterFactory);
+        when(parameters.getTestRequest()).thenReturn(new TestRequest(Collections.emptyList(), null,
+                testListResolver));
+        return parameters;
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class PassingTest {
+        {
+            INSTANTIATED_CLASSES.add(PassingTest.class);
+            describe("calculator", () -> {
+                it("adds numbers", TestFunction.identity());
+                it("subtracts numbers", TestFunction.identity());
+            });
+        }
+    }
+
+    @org.forgerock.cuppa.Test
+    public static class FailingTest {
+        {
+            INSTANTIATED_CLASSES.add(FailingTest.class);
+            describe("broken calculator", () -> {
+                it("adds numbers", TestFunction.identity());
+                it("divides numbers", () -> {
+                    Assertions.assertThat(true).isFalse();
+                });
+            });
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import org.forgerock.cuppa.model.TestBlock;
+
+/**
+ * The outcome of defining a single test class, as passed from the definer thread to the running thread of a
+ * pipelined test run.
+ */
+final class DefinedTestClass {
+    static final DefinedTestClass END = new DefinedTestClass(null, null);
+
+    private final TestBlock rootBlock;
+    private final Throwable failure;
+
+    DefinedTestClass(TestBlock rootBlock, Throwable failure) {
+        this.rootBlock = rootBlock;
+        this.failure = failure;
+    }
+
+    TestBlock getRootBlock() {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw (Error) failure;
+        }
+        return rootBlock;
+    }
+}
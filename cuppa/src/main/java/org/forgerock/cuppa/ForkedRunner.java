@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.forgerock.cuppa.model.Behaviour.NORMAL;
+import static org.forgerock.cuppa.model.TestBlockType.ROOT;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import org.forgerock.cuppa.internal.fork.DaemonConnection;
+import org.forgerock.cuppa.internal.fork.Worker;
+import org.forgerock.cuppa.internal.fork.WorkerProcess;
+import org.forgerock.cuppa.model.Ids;
+import org.forgerock.cuppa.model.Options;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Runs Cuppa tests in a pool of forked worker JVMs, so that test classes with static state do not share a JVM and
+ * test runs can use more resources than a single JVM.
+ *
+ * <p>Test classes are handed out to workers one at a time, so that a worker that finishes early takes on more of the
+ * remaining work. Each worker defines and runs a test class with a {@link Runner}, configured from its own classpath,
+ * and streams the reporter events back to this JVM. The events of each test class are passed to the reporter
+ * together, once the class has finished, so the output of different classes does not interleave. Test tree
+ * transforms and {@link Cuppa#only()} apply to each test class in isolation.</p>
+ *
+ * <p>Instead of forking workers, a runner can run the tests in sessions of a long-lived daemon JVM, started with
+ * {@code org.forgerock.cuppa.internal.fork.DaemonServer}, which keeps Cuppa and the libraries on its own classpath
+ * loaded between runs and loads the test classes afresh for each session. Sessions are authenticated with the token
+ * that the daemon writes to its token file.</p>
+ *
+ * <p>The selection of tests given by the {@value TestSelection#FILE_PROPERTY} and
+ * {@value TestSelection#GREP_PROPERTY} system properties of this JVM, if any, is sent to every worker and applied to
+ * each test class.</p>
+ *
+ * <p>The test blocks and tests passed to the reporter are copies that carry the ids, descriptions, behaviours and tags
+ * of the originals, but not their hooks, nested blocks or functions.</p>
+ */
+public final class ForkedRunner {
+    private static final TestBlock ROOT_TEST_BLOCK = new TestBlock(Ids.root(Cuppa.class), ROOT, NORMAL, Cuppa.class,
+            "", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Options.EMPTY_OPTIONS);
+
+    private final int workerCount;
+    private final WorkerFactory workerFactory;
+
+    /**
+     * Creates a new runner that forks workers with the same Java installation and classpath as this JVM.
+     *
+     * @param runTags Tags to filter the tests on.
+     * @param forkCount The maximum number of workers to run at once. Must be at least one.
+     */
+    public ForkedRunner(Tags runTags, int forkCount) {
+        this(runTags, forkCount, Arrays.asList(System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java", "-cp", System.getProperty("java.class.path")));
+    }
+
+    /**
+     * Creates a new runner that forks workers with the given command.
+     *
+     * @param runTags Tags to filter the tests on.
+     * @param forkCount The maximum number of workers to run at once. Must be at least one.
+     * @param javaCommand The command, and its arguments, that starts a JVM with Cuppa and the test classes on its
+     *     classpath.
+     */
+    public ForkedRunner(Tags runTags, int forkCount, List<String> javaCommand) {
+        Objects.requireNonNull(runTags, "Run tags must not be null");
+        Objects.requireNonNull(javaCommand, "Java command must not be null");
+        if (forkCount < 1) {
+            throw new IllegalArgumentException("Fork count must be at least one");
+        }
+        List<String> command = new ArrayList<>(javaCommand);
+        Optional<TestSelection> selection = TestSelection.fromSystemProperties();
+        this.workerCount = forkCount;
+        this.workerFactory = () -> new WorkerProcess(command, runTags, selection);
+    }
+
+    /**
+     * Creates a new runner that runs tests in sessions of a daemon on this machine, rather than in forked workers.
+     *
+     * @param runTags Tags to filter the tests on.
+     * @param connectionCount The maximum number of sessions to run at once. Must be at least one.
+     * @param daemonAddress The address that the daemon listens on.
+     * @param daemonToken The token that the daemon wrote to its token file.
+     * @param classPath The directories and jars that hold the test classes, and any libraries that are not on the
+     *     daemon's classpath.
+     */
+    public ForkedRunner(Tags runTags, int connectionCount, InetSocketAddress daemonAddress, String daemonToken,
+            List<String> classPath) {
+        Objects.requireNonNull(runTags, "Run tags must not be null");
+        Objects.requireNonNull(daemonAddress, "Daemon address must not be null");
+        Objects.requireNonNull(daemonToken, "Daemon token must not be null");
+        Objects.requireNonNull(classPath, "Class path must not be null");
+        if (connectionCount < 1) {
+            throw new IllegalArgumentException("Connection count must be at least one");
+        }
+        List<String> sessionClassPath = new ArrayList<>(classPath);
+        Optional<TestSelection> selection = TestSelection.fromSystemProperties();
+        this.workerCount = connectionCount;
+        this.workerFactory = () -> new DaemonConnection(daemonAddress, daemonToken, sessionClassPath, runTags,
+                selection);
+    }
+
+    /**
+     * Runs the tests in the given test classes in forked workers, using the provided reporter. The reporter is started
+     * with an empty root block and is called from the threads that communicate with the workers, though never from
+     * more than one at a time.
+     *
+     * <p>If a test class cannot be defined or run, or a worker fails, the remaining test classes are still run and a
+     * {@link CuppaException} is then thrown.</p>
+     *
+     * @param testClasses The test classes that contain the tests to be executed.
+     * @param reporter The reporter to use to report test results.
+     */
+    public void run(Iterable<Class<?>> testClasses, Reporter reporter) {
+        Queue<Class<?>> remainingClasses = new ConcurrentLinkedQueue<>();
+        testClasses.forEach(remainingClasses::add);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        reporter.start(ROOT_TEST_BLOCK);
+        reporter.testBlockStart(ROOT_TEST_BLOCK, Collections.emptyList());
+        try {
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < Math.min(workerCount, remainingClasses.size()); i++) {
+                Thread worker = new Thread(() -> runWorker(remainingClasses, reporter, failures), "cuppa-fork-" + i);
+                worker.start();
+                workers.add(worker);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CuppaException("Interrupted while waiting for forked workers", e);
+        } finally {
+            reporter.testBlockEnd(ROOT_TEST_BLOCK, Collections.emptyList());
+            reporter.end();
+        }
+        if (!remainingClasses.isEmpty()) {
+            failures.add(new CuppaException(remainingClasses.size() + " test classes were not run as all forked "
+                    + "workers failed"));
+        }
+        if (!failures.isEmpty()) {
+            CuppaException exception = new CuppaException("Failed to run tests in forked workers", failures.get(0));
+            failures.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    private void runWorker(Queue<Class<?>> remainingClasses, Reporter reporter, List<Throwable> failures) {
+        try (Worker worker = workerFactory.start()) {
+            for (Class<?> testClass = remainingClasses.poll(); testClass != null;
+                    testClass = remainingClasses.poll()) {
+                try {
+                    List<Consumer<Reporter>> events = worker.run(testClass, ROOT_TEST_BLOCK);
+                    synchronized (reporter) {
+                        events.forEach(e -> e.accept(reporter));
+                    }
+                } catch (CuppaException e) {
+                    failures.add(e);
+                } catch (IOException e) {
+                    failures.add(new CuppaException("Forked worker failed while running " + testClass.getName(), e));
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            failures.add(new CuppaException("Failed to start forked worker", e));
+        }
+    }
+
+    private interface WorkerFactory {
+        Worker start() throws IOException;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.forgerock.cuppa;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds out, without instantiating them, whether test classes call {@link Cuppa#only()} or {@link TestBuilder#only()}.
+ * The constant pools of the class file of a test class, of its member classes and of its anonymous classes are searched
+ * for a reference to a method named {@code only} that returns a {@link TestBuilder}. Lambdas are compiled into the
+ * class that declares them, so calls inside {@code describe} and {@code when} blocks are found.
+ *
+ * <p>Calls that are made from other classes, such as shared helpers or local classes, are not found.</p>
+ */
+final class OnlyUsageScanner {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    /** The size in bytes of each kind of constant pool entry, indexed by tag, other than UTF-8 entries. */
+    private static final int[] CONSTANT_SIZES = {-1, -1, -1, 4, 4, 8, 8, 2, 2, 4, 4, 4, 4, -1, -1, 3, 2, 4, 4, 2, 2};
+    private static final String ONLY_NAME = "only";
+    private static final String ONLY_DESCRIPTOR = "()L" + TestBuilder.class.getName().replace('.', '/') + ";";
+
+    private OnlyUsageScanner() {
+    }
+
+    /**
+     * Finds the first of the given test classes that calls {@code only()}.
+     *
+     * @param testClasses The test classes to scan.
+     * @return The first test class that calls {@code only()}, or {@code null} if none of them do, as far as can be
+     *     told from their class files.
+     */
+    static Class<?> findFirstUsingOnly(Iterable<Class<?>> testClasses) {
+        for (Class<?> testClass : testClasses) {
+            if (usesOnly(testClass)) {
+                return testClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the exception that is thrown when a test class that calls {@code only()} is run as a pipeline.
+     *
+     * @param testClass The test class that calls {@code only()}.
+     * @return The exception.
+     */
+    static CuppaException notSupported(Class<?> testClass) {
+        return new CuppaException("Test class " + testClass.getName()
+                + " uses only(), which cannot be applied to pipelined test runs");
+    }
+
+    private static boolean usesOnly(Class<?> testClass) {
+        ClassLoader classLoader = testClass.getClassLoader();
+        if (classLoader == null) {
+            return false;
+        }
+        String name = testClass.getName();
+        boolean usesOnly = classFileUsesOnly(classLoader, name);
+        for (int i = 1; !usesOnly && classLoader.getResource(getResourceName(name + "$" + i)) != null; i++) {
+            usesOnly = classFileUsesOnly(classLoader, name + "$" + i);
+        }
+        for (Class<?> memberClass : testClass.getDeclaredClasses()) {
+            usesOnly = usesOnly || usesOnly(memberClass);
+        }
+        return usesOnly;
+    }
+
+    private static boolean classFileUsesOnly(ClassLoader classLoader, String className) {
+        try (InputStream classFile = classLoader.getResourceAsStream(getResourceName(className))) {
+            return classFile != null && referencesOnly(new DataInputStream(classFile));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean referencesOnly(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            return false;
+        }
+        in.readInt();
+        int count = in.readUnsignedShort();
+        Set<String> constants = new HashSet<>();
+        int i = 1;
+        while (i < count) {
+            int tag = in.readUnsignedByte();
+            if (tag == CONSTANT_UTF8) {
+                constants.add(in.readUTF());
+            } else if (tag < CONSTANT_SIZES.length && CONSTANT_SIZES[tag] > 0) {
+                in.readFully(new byte[CONSTANT_SIZES[tag]]);
+                if (tag == CONSTANT_LONG || tag == CONSTANT_DOUBLE) {
+                    i++;
+                }
+            } else {
+                throw new IOException("Unknown constant pool tag " + tag);
+            }
+            i++;
+        }
+        return constants.contains(ONLY_NAME) && constants.contains(ONLY_DESCRIPTOR);
+    }
+
+    private static String getResourceName(String className) {
+        return className.replace('.', '/') + ".class";
+    }
+}
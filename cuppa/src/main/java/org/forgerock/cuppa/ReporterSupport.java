@@ -21,8 +21,6 @@ import static org.forgerock.cuppa.model.TestBlockType.WHEN;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.forgerock.cuppa.model.Hook;
 import org.forgerock.cuppa.model.Test;
@@ -67,7 +65,15 @@ public final class ReporterSupport {
     }
 
     private static String getDescription(List<TestBlock> testBlocks) {
-        return testBlocks.stream().map(ReporterSupport::getDescription).collect(Collectors.joining(" ")).trim();
+        return getUntrimmedDescription(testBlocks).trim();
+    }
+
+    private static String getUntrimmedDescription(List<TestBlock> testBlocks) {
+        String description = "";
+        for (TestBlock testBlock : testBlocks) {
+            description = testBlock.getFullDescription(description);
+        }
+        return description;
     }
 
     /**
@@ -81,7 +87,7 @@ public final class ReporterSupport {
      * @return A description of the test block.
      */
     public static String getFullDescription(TestBlock testBlock, List<TestBlock> parents) {
-        return getDescription(Stream.concat(parents.stream(), Stream.of(testBlock)).collect(Collectors.toList()));
+        return testBlock.getFullDescription(getUntrimmedDescription(parents)).trim();
     }
 
     /**
@@ -95,7 +101,7 @@ public final class ReporterSupport {
      * @return A description of the test.
      */
     public static String getFullDescription(Test test, List<TestBlock> parents) {
-        return getDescription(parents) + " " + test.description;
+        return test.getFullDescription(getDescription(parents));
     }
 
     /**
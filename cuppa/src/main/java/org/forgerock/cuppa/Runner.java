@@ -20,11 +20,24 @@ import static org.forgerock.cuppa.model.Behaviour.NORMAL;
 import static org.forgerock.cuppa.model.HookType.*;
 import static org.forgerock.cuppa.model.TestBlockType.ROOT;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -32,12 +45,14 @@ import java.util.stream.StreamSupport;
 
 import org.forgerock.cuppa.functions.TestFunction;
 import org.forgerock.cuppa.internal.HookException;
+import org.forgerock.cuppa.internal.PlanWriter;
+import org.forgerock.cuppa.internal.SynchronizedReporter;
 import org.forgerock.cuppa.internal.TestContainer;
-import org.forgerock.cuppa.internal.filters.EmptyTestBlockFilter;
-import org.forgerock.cuppa.internal.filters.OnlyTestBlockFilter;
-import org.forgerock.cuppa.internal.filters.TagTestBlockFilter;
+import org.forgerock.cuppa.internal.filters.CoreTestBlockFilter;
 import org.forgerock.cuppa.model.Behaviour;
+import org.forgerock.cuppa.model.CompactTestTree;
 import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.Ids;
 import org.forgerock.cuppa.model.Options;
 import org.forgerock.cuppa.model.Tags;
 import org.forgerock.cuppa.model.Test;
@@ -50,10 +65,11 @@ import org.forgerock.cuppa.reporters.Reporter;
 public final class Runner {
     private static final ServiceLoader<ConfigurationProvider> CONFIGURATION_PROVIDER_LOADER
             = ServiceLoader.load(ConfigurationProvider.class);
-    private static final TestBlock EMPTY_TEST_BLOCK = new TestBlock(ROOT, NORMAL, Cuppa.class, "",
-            Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), new Options());
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final TestBlock EMPTY_TEST_BLOCK = new TestBlock(Ids.root(Cuppa.class), ROOT, NORMAL, Cuppa.class,
+            "", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Options.EMPTY_OPTIONS);
 
-    private final List<Function<TestBlock, TestBlock>> coreTestTransforms;
+    private final CoreTestBlockFilter coreTestTransform;
     private final Configuration configuration;
 
     /**
@@ -69,7 +85,18 @@ public final class Runner {
      * @param runTags Tags to filter the tests on.
      */
     public Runner(Tags runTags) {
-        this(runTags, getConfiguration());
+        this(runTags, getConfiguration(CONFIGURATION_PROVIDER_LOADER));
+    }
+
+    /**
+     * Creates a new runner with the given run tags and a configuration loaded by the given class loader, for running
+     * tests whose classes, and configuration provider, are not on the classpath of Cuppa itself.
+     *
+     * @param runTags Tags to filter the tests on.
+     * @param classLoader The class loader to find the configuration provider with.
+     */
+    public Runner(Tags runTags, ClassLoader classLoader) {
+        this(runTags, getConfiguration(ServiceLoader.load(ConfigurationProvider.class, classLoader)));
     }
 
     /**
@@ -79,8 +106,7 @@ public final class Runner {
      * @param configuration Cuppa configuration to control the behaviour of the runner.
      */
     public Runner(Tags runTags, Configuration configuration) {
-        coreTestTransforms = Arrays.asList(new OnlyTestBlockFilter(), new TagTestBlockFilter(runTags),
-                new EmptyTestBlockFilter());
+        coreTestTransform = new CoreTestBlockFilter(runTags);
         this.configuration = configuration;
     }
 
@@ -103,36 +129,218 @@ public final class Runner {
     public void run(TestBlock rootBlock, Reporter reporter) {
         TestContainer.INSTANCE.runTests(() -> {
             reporter.start(rootBlock);
+            runTransformedTests(transformTests(rootBlock, configuration.testTransforms), reporter);
+        });
+    }
+
+    /**
+     * Runs the tests contained in a compact test tree, using the provided reporter. The run tags and
+     * {@link Cuppa#only()} are applied to the compact tree first, so the test blocks and tests that they remove are
+     * never created, and the reporter is started with the filtered root block. If any test tree transforms are
+     * registered, then the whole tree is run by {@link #run(TestBlock, Reporter)}, as transforms work on test blocks.
+     *
+     * @param tree The compact test tree that contains all tests to be run.
+     * @param reporter The reporter to use to report test results.
+     */
+    public void run(CompactTestTree tree, Reporter reporter) {
+        if (!configuration.testTransforms.isEmpty()) {
+            run(tree.toTestBlock(), reporter);
+            return;
+        }
+        TestBlock filteredRootBlock = coreTestTransform.apply(tree).toTestBlock();
+        TestContainer.INSTANCE.runTests(() -> {
+            reporter.start(filteredRootBlock);
+            runTransformedTests(filteredRootBlock, reporter);
+        });
+    }
+
+    private void runTransformedTests(TestBlock transformedRootBlock, Reporter reporter) {
+        runTests(transformedRootBlock, Collections.emptyList(), transformedRootBlock.behaviour, reporter,
+                TestFunction::apply);
+        reporter.end();
+    }
+
+    /**
+     * Writes a plan of the tests contained in the provided test block, without running any hooks or tests. The test
+     * tree transforms and run tags are applied exactly as they would be by {@link #run(TestBlock, Reporter)}, so the
+     * plan lists the tests that a run would report. The plan is written as JSON Lines, one test block or test per
+     * line, with their IDs, full descriptions, effective behaviours and tags, and the number of hooks of each block.
+     *
+     * @param rootBlock The root test block that contains all tests to be planned.
+     * @param out Where to write the plan. Writes are not buffered, so this should be buffered if it is a stream.
+     * @throws IOException If the plan could not be written.
+     */
+    public void dryRun(TestBlock rootBlock, Appendable out) throws IOException {
+        new PlanWriter(out).write(transformTests(rootBlock, configuration.testTransforms));
+    }
+
+    /**
+     * Defines and runs the tests in the given test classes as a pipeline. Test classes are instantiated on a separate
+     * thread and the tests of each class are run as soon as that class has been defined, rather than waiting for all
+     * classes to be defined first.
+     *
+     * <p>As the tests of later classes are not known when the first tests are run, test tree transforms are applied
+     * to each test class in isolation. {@link Cuppa#only()}, which would skip the tests of every other class, is not
+     * supported. The class files of the test classes are scanned for calls to it before anything is run, and a
+     * {@link CuppaException} is thrown without running or reporting any tests if one is found. Calls made from other
+     * classes, such as shared helpers, are only found when the class is defined, after the tests of earlier classes
+     * have been run. The reporter is started with an empty root block.</p>
+     *
+     * <p>If a test class cannot be instantiated then the exception is rethrown once the tests of all previously
+     * defined classes have been run.</p>
+     *
+     * @param testClasses The test classes that contain the tests to be executed.
+     * @param reporter The reporter to use to report test results.
+     */
+    public void runPipelined(Iterable<Class<?>> testClasses, Reporter reporter) {
+        Class<?> onlyTestClass = OnlyUsageScanner.findFirstUsingOnly(testClasses);
+        if (onlyTestClass != null) {
+            throw OnlyUsageScanner.notSupported(onlyTestClass);
+        }
+        BlockingQueue<DefinedTestClass> definitions = new LinkedBlockingQueue<>();
+        Thread definer = new Thread(() -> {
+            try {
+                for (Class<?> testClass : testClasses) {
+                    if (Thread.interrupted()) {
+                        return;
+                    }
+                    TestBlock rootBlock = defineTestClass(testClass, configuration.testInstantiator);
+                    definitions.add(new DefinedTestClass(rootBlock, null));
+                }
+                definitions.add(DefinedTestClass.END);
+            } catch (RuntimeException | Error e) {
+                definitions.add(new DefinedTestClass(null, e));
+            }
+        }, "cuppa-test-definer");
+        definer.setDaemon(true);
+        definer.start();
+        TestContainer.INSTANCE.runTests(() -> {
+            reporter.start(EMPTY_TEST_BLOCK);
+            reporter.testBlockStart(EMPTY_TEST_BLOCK, Collections.emptyList());
+            List<TestBlock> parents = Collections.singletonList(EMPTY_TEST_BLOCK);
+            try {
+                DefinedTestClass definition = takeDefinition(definitions);
+                while (definition != DefinedTestClass.END) {
+                    TestBlock transformedBlock = transformTests(definition.getRootBlock(),
+                            configuration.testTransforms);
+                    if (CoreTestBlockFilter.hasOnlyTests(transformedBlock)) {
+                        throw OnlyUsageScanner.notSupported(transformedBlock.testClass);
+                    }
+                    for (TestBlock testBlock : transformedBlock.testBlocks) {
+                        runTests(testBlock, parents, transformedBlock.behaviour, reporter, TestFunction::apply);
+                    }
+                    definition = takeDefinition(definitions);
+                }
+            } finally {
+                definer.interrupt();
+                reporter.testBlockEnd(EMPTY_TEST_BLOCK, Collections.emptyList());
+                reporter.end();
+            }
+        });
+    }
+
+    /**
+     * Runs the tests contained in the provided test block using a pool of threads. The top-level test blocks of each
+     * test class are run in order on a single thread, while different test classes are run concurrently. Hooks of the
+     * root test block are run as usual around the whole run.
+     *
+     * <p>Calls to the reporter are serialized, so reporters need not be thread-safe, but the events of different test
+     * classes are interleaved. Every event carries its test block's parents, so it can be attributed to the right test
+     * class.</p>
+     *
+     * @param rootBlock The root test block that contains all tests to be run.
+     * @param reporter The reporter to use to report test results.
+     * @param threadCount The maximum number of test classes to run at once. Must be at least one.
+     */
+    public void runParallel(TestBlock rootBlock, Reporter reporter, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least one");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "cuppa-runner-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            runConcurrently(rootBlock, reporter, testBlocks -> testBlocks.stream()
+                    .collect(Collectors.groupingBy(b -> b.testClass, LinkedHashMap::new, Collectors.toList()))
+                    .values(), executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the tests contained in the provided test block, submitting each top-level test block to the given executor
+     * as a separate task and waiting for them all to finish. Unlike {@link #runParallel(TestBlock, Reporter, int)},
+     * the top-level test blocks of a single test class may run concurrently, so they must not share state. Hooks of
+     * the root test block are run as usual around the whole run.
+     *
+     * <p>Calls to the reporter are serialized, so reporters need not be thread-safe, but the events of different
+     * top-level test blocks are interleaved.</p>
+     *
+     * @param rootBlock The root test block that contains all tests to be run.
+     * @param reporter The reporter to use to report test results.
+     * @param executor The executor to run top-level test blocks on. An executor that runs tasks on the calling thread
+     *     runs the tests sequentially.
+     */
+    public void runParallel(TestBlock rootBlock, Reporter reporter, Executor executor) {
+        runConcurrently(rootBlock, reporter, testBlocks -> testBlocks.stream()
+                .map(Collections::singletonList)
+                .collect(Collectors.toList()), executor);
+    }
+
+    private void runConcurrently(TestBlock rootBlock, Reporter reporter,
+            Function<List<TestBlock>, Collection<List<TestBlock>>> tasks, Executor executor) {
+        Reporter synchronizedReporter = new SynchronizedReporter(reporter);
+        TestContainer.INSTANCE.runTests(() -> {
+            synchronizedReporter.start(rootBlock);
             TestBlock transformedRootBlock = transformTests(rootBlock, configuration.testTransforms);
-            runTests(transformedRootBlock, Collections.emptyList(), transformedRootBlock.behaviour, reporter,
-                    TestFunction::apply);
-            reporter.end();
+            TestBlockScheduler scheduler = (testBlocks, runner) -> runTasks(tasks.apply(testBlocks), runner,
+                    executor);
+            runTests(transformedRootBlock, Collections.emptyList(), transformedRootBlock.behaviour,
+                    synchronizedReporter, TestFunction::apply, scheduler);
+            synchronizedReporter.end();
         });
     }
 
     private TestBlock defineTestsWithConfiguration(Iterable<Class<?>> testClasses, TestInstantiator testInstantiator) {
         return StreamSupport.stream(testClasses.spliterator(), false)
-                .map(c -> TestContainer.INSTANCE.defineTests(c, () -> {
-                    try {
-                        testInstantiator.instantiate(c);
-                    } catch (CuppaException e) {
-                        throw e;
-                    } catch (Exception e) {
-                        throw new IllegalStateException("Failed to instantiate test class", e);
-                    }
-                }))
+                .map(c -> defineTestClass(c, testInstantiator))
                 .reduce(EMPTY_TEST_BLOCK, this::mergeRootTestBlocks);
     }
 
+    private static TestBlock defineTestClass(Class<?> testClass, TestInstantiator testInstantiator) {
+        return TestContainer.INSTANCE.defineTests(testClass, () -> {
+            try {
+                testInstantiator.instantiate(testClass);
+            } catch (CuppaException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to instantiate test class", e);
+            }
+        });
+    }
+
+    private static DefinedTestClass takeDefinition(BlockingQueue<DefinedTestClass> definitions) {
+        try {
+            return definitions.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CuppaException("Interrupted while waiting for test classes to be defined", e);
+        }
+    }
+
     private TestBlock mergeRootTestBlocks(TestBlock testBlock1, TestBlock testBlock2) {
-        return new TestBlock(ROOT, NORMAL, Cuppa.class, "", Stream.concat(testBlock1.testBlocks.stream(),
-                testBlock2.testBlocks.stream()).collect(Collectors.toList()), Collections.emptyList(),
-                Collections.emptyList(), new Options());
+        return new TestBlock(Ids.root(Cuppa.class), ROOT, NORMAL, Cuppa.class, "",
+                Stream.concat(testBlock1.testBlocks.stream(), testBlock2.testBlocks.stream())
+                        .collect(Collectors.toList()),
+                Collections.emptyList(), Collections.emptyList(), Options.EMPTY_OPTIONS);
     }
 
-    private static Configuration getConfiguration() {
+    private static Configuration getConfiguration(ServiceLoader<ConfigurationProvider> configurationProviderLoader) {
         Configuration configuration = new Configuration();
-        Iterator<ConfigurationProvider> iterator = CONFIGURATION_PROVIDER_LOADER.iterator();
+        Iterator<ConfigurationProvider> iterator = configurationProviderLoader.iterator();
         if (iterator.hasNext()) {
             ConfigurationProvider configurationProvider = iterator.next();
             if (iterator.hasNext()) {
@@ -145,13 +353,20 @@ public final class Runner {
     }
 
     private TestBlock transformTests(TestBlock rootBlock, List<Function<TestBlock, TestBlock>> transforms) {
-        return Stream.concat(transforms.stream(), coreTestTransforms.stream())
+        return transforms.stream()
                 .reduce(Function.identity(), Function::andThen)
+                .andThen(coreTestTransform)
                 .apply(rootBlock);
     }
 
     private void runTests(TestBlock testBlock, List<TestBlock> parents, Behaviour behaviour, Reporter reporter,
             TestWrapper outerTestWrapper) {
+        runTests(testBlock, parents, behaviour, reporter, outerTestWrapper, (testBlocks, runner) -> testBlocks
+                .forEach(runner));
+    }
+
+    private void runTests(TestBlock testBlock, List<TestBlock> parents, Behaviour behaviour, Reporter reporter,
+            TestWrapper outerTestWrapper, TestBlockScheduler scheduler) {
         Behaviour combinedBehaviour = behaviour.combine(testBlock.behaviour);
         List<TestBlock> newParents = Stream.concat(parents.stream(), Stream.of(testBlock)).collect(Collectors.toList());
         TestWrapper testWrapper = createWrapper(testBlock, newParents, outerTestWrapper, reporter);
@@ -168,8 +383,8 @@ public final class Runner {
             for (Test t : testBlock.tests) {
                 runTest(t, newParents, testWrapper, combinedBehaviour, reporter);
             }
-            testBlock.testBlocks.stream()
-                    .forEach((d) -> runTests(d, newParents, combinedBehaviour, reporter, testWrapper));
+            scheduler.run(testBlock.testBlocks,
+                    (d) -> runTests(d, newParents, combinedBehaviour, reporter, testWrapper));
         } catch (HookException e) {
             if (e.getTestBlock() != testBlock) {
                 throw e;
@@ -184,6 +399,33 @@ public final class Runner {
         }
     }
 
+    private static void runTasks(Collection<List<TestBlock>> tasks, Consumer<TestBlock> runner, Executor executor) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<TestBlock> taskBlocks : tasks) {
+            FutureTask<?> future = new FutureTask<>(() -> TestContainer.INSTANCE.runTests(() ->
+                    taskBlocks.forEach(runner)), null);
+            executor.execute(future);
+            futures.add(future);
+        }
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                failure = failure == null ? (RuntimeException) e.getCause() : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CuppaException("Interrupted while waiting for tests to run", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     private void runTest(Test test, List<TestBlock> parents, TestWrapper testWrapper, Behaviour behaviour,
             Reporter reporter) throws Exception {
         if (!test.function.isPresent()) {
@@ -242,6 +484,11 @@ public final class Runner {
         }
     }
 
+    @FunctionalInterface
+    private interface TestBlockScheduler {
+        void run(List<TestBlock> testBlocks, Consumer<TestBlock> runner);
+    }
+
     @FunctionalInterface
     private interface TestWrapper {
         void apply(TestFunction testRunner) throws Exception;
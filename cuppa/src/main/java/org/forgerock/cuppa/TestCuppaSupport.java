@@ -16,17 +16,14 @@
 
 package org.forgerock.cuppa;
 
-import static java.util.stream.Stream.concat;
-
 import java.util.NoSuchElementException;
-import java.util.Optional;
-import java.util.stream.Stream;
 
 import org.forgerock.cuppa.internal.TestContainer;
 import org.forgerock.cuppa.model.Hook;
 import org.forgerock.cuppa.model.Tags;
 import org.forgerock.cuppa.model.Test;
 import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.model.TestTreeVisitor;
 import org.forgerock.cuppa.reporters.Reporter;
 
 /**
@@ -69,7 +66,8 @@ public final class TestCuppaSupport {
     }
 
     /**
-     * Finds the first test with the given description.
+     * Finds the first test with the given description. To make many lookups in the same test tree, build a
+     * {@link TestTreeIndex} instead.
      *
      * @param testBlock the root test block to search under.
      * @param description The description.
@@ -77,18 +75,19 @@ public final class TestCuppaSupport {
      * @throws NoSuchElementException If no test was found with the given description.
      */
     public static Test findTest(TestBlock testBlock, String description) {
-        return getTests(testBlock)
-                .filter(t -> t.description.equals(description))
-                .findFirst()
-                .get();
-    }
-
-    private static Stream<Test> getTests(TestBlock block) {
-        return concat(block.tests.stream(), block.testBlocks.stream().flatMap(TestCuppaSupport::getTests));
+        Finder<Test> finder = new Finder<Test>() {
+            @Override
+            public void visitTest(Test test, TestBlock parent, int depth) {
+                offer(test, test.description.equals(description));
+            }
+        };
+        testBlock.accept(finder);
+        return finder.get();
     }
 
     /**
-     * Finds the first test block with the given description.
+     * Finds the first test block with the given description. To make many lookups in the same test tree, build a
+     * {@link TestTreeIndex} instead.
      *
      * @param testBlock the root test block to search under.
      * @param description The description.
@@ -96,18 +95,20 @@ public final class TestCuppaSupport {
      * @throws NoSuchElementException If no test block was found with the given description.
      */
     public static TestBlock findTestBlock(TestBlock testBlock, String description) {
-        return getTestBlocks(testBlock)
-                .filter(b -> b.description.equals(description))
-                .findFirst()
-                .get();
-    }
-
-    private static Stream<TestBlock> getTestBlocks(TestBlock block) {
-        return concat(Stream.of(block), block.testBlocks.stream().flatMap(TestCuppaSupport::getTestBlocks));
+        Finder<TestBlock> finder = new Finder<TestBlock>() {
+            @Override
+            public boolean visitTestBlock(TestBlock block, int depth) {
+                offer(block, block.description.equals(description));
+                return super.visitTestBlock(block, depth);
+            }
+        };
+        testBlock.accept(finder);
+        return finder.get();
     }
 
     /**
-     * Finds the first hook with the given description.
+     * Finds the first hook with the given description. To make many lookups in the same test tree, build a
+     * {@link TestTreeIndex} instead.
      *
      * <p>Hooks are searched breadth-first, i.e. going through a test block's before, after,
      * beforeEach and afterEach hooks before searching in nested test blocks.</p>
@@ -118,13 +119,38 @@ public final class TestCuppaSupport {
      * @throws NoSuchElementException If no hook was found with the given description.
      */
     public static Hook findHook(TestBlock testBlock, String description) {
-        return getHooks(testBlock)
-                .filter(h -> h.description.equals(Optional.of(description)))
-                .findFirst()
-                .get();
+        Finder<Hook> finder = new Finder<Hook>() {
+            @Override
+            public void visitHook(Hook hook, TestBlock parent, int depth) {
+                offer(hook, hook.description.isPresent() && hook.description.get().equals(description));
+            }
+        };
+        testBlock.accept(finder);
+        return finder.get();
     }
 
-    private static Stream<Hook> getHooks(TestBlock block) {
-        return concat(block.hooks.stream(), block.testBlocks.stream().flatMap(TestCuppaSupport::getHooks));
+    /**
+     * A visitor that keeps the first matching object that it is offered, and stops descending once it has one.
+     */
+    private abstract static class Finder<T> implements TestTreeVisitor {
+        private T found;
+
+        @Override
+        public boolean visitTestBlock(TestBlock testBlock, int depth) {
+            return found == null;
+        }
+
+        void offer(T candidate, boolean matches) {
+            if (found == null && matches) {
+                found = candidate;
+            }
+        }
+
+        T get() {
+            if (found == null) {
+                throw new NoSuchElementException("No value present");
+            }
+            return found;
+        }
     }
 }
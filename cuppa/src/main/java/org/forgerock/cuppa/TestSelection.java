@@ -0,0 +1,264 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.forgerock.cuppa.internal.filters.DescriptionAutomaton.MATCHED;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.forgerock.cuppa.internal.filters.DescriptionAutomaton;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+
+/**
+ * Selects tests by their IDs, or by patterns that their full descriptions contain, and removes all other tests from the
+ * test tree, along with the test blocks that are left without tests.
+ *
+ * <p>A selection is made from a list of selectors. A selector of the form {@code id:<hex>} selects the test, or the
+ * whole test block, with that {@linkplain org.forgerock.cuppa.model.Ids ID}. Any other selector selects the tests
+ * whose full descriptions, as given by {@link ReporterSupport#getFullDescription(Test, List)}, contain it, in the same
+ * way as mocha's {@code --grep}. The selection is a test tree transform, so it can be registered with
+ * {@link Configuration#registerTestTreeTransform(Function)}. The Surefire provider, the JUnit runners and the
+ * {@link ForkedRunner} also apply the selection given by the {@value #FILE_PROPERTY} and {@value #GREP_PROPERTY}
+ * system properties.</p>
+ *
+ * <p>The tree is pruned in a single pass. IDs are looked up by binary search, and all of the patterns are matched at
+ * once by an automaton, which is fed the description of each test block once and carries its state down to the
+ * blocks and tests beneath it, so a selection of thousands of tests costs little more than a selection of one.</p>
+ */
+public final class TestSelection implements Function<TestBlock, TestBlock> {
+    /**
+     * The system property that names a file of selectors, one per line. Blank lines, and lines starting with
+     * {@code #}, are ignored.
+     */
+    public static final String FILE_PROPERTY = "cuppa.selection.file";
+
+    /**
+     * The system property that gives a single description pattern to select tests with.
+     */
+    public static final String GREP_PROPERTY = "cuppa.grep";
+
+    private static final String ID_PREFIX = "id:";
+    private static final int HEX_RADIX = 16;
+
+    private final List<String> selectors;
+    private final long[] ids;
+    private final DescriptionAutomaton patterns;
+
+    private TestSelection(List<String> selectors, long[] ids, List<String> patterns) {
+        this.selectors = selectors;
+        this.ids = ids;
+        this.patterns = new DescriptionAutomaton(patterns);
+    }
+
+    /**
+     * Creates a selection from a list of selectors.
+     *
+     * @param selectors The selectors. Must not be null.
+     * @return The selection.
+     * @throws IllegalArgumentException If an ID selector does not hold a hexadecimal ID.
+     */
+    public static TestSelection of(Iterable<String> selectors) {
+        List<String> allSelectors = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        List<String> patterns = new ArrayList<>();
+        for (String selector : selectors) {
+            allSelectors.add(selector);
+            if (selector.startsWith(ID_PREFIX)) {
+                ids.add(parseId(selector.substring(ID_PREFIX.length()).trim()));
+            } else {
+                patterns.add(selector);
+            }
+        }
+        long[] sortedIds = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new TestSelection(Collections.unmodifiableList(allSelectors), sortedIds, patterns);
+    }
+
+    /**
+     * Creates the selection given by a file of selectors and a single description pattern, either of which may be
+     * absent. Used to apply the selection given by the {@value #FILE_PROPERTY} and {@value #GREP_PROPERTY}
+     * properties.
+     *
+     * @param file The name of a file of selectors, or null.
+     * @param grep A description pattern, or null.
+     * @return The selection, or empty if neither a file nor a pattern was given. A {@link CuppaException} is thrown if
+     *     the file could not be read.
+     */
+    public static Optional<TestSelection> of(String file, String grep) {
+        if (file == null && grep == null) {
+            return Optional.empty();
+        }
+        List<String> selectors = new ArrayList<>();
+        if (file != null) {
+            try {
+                selectors.addAll(readSelectors(Paths.get(file)));
+            } catch (IOException e) {
+                throw new CuppaException("Failed to read test selection file " + file, e);
+            }
+        }
+        if (grep != null) {
+            selectors.add(grep);
+        }
+        return Optional.of(of(selectors));
+    }
+
+    /**
+     * Creates a selection from a file of selectors, one per line. Blank lines, and lines starting with {@code #}, are
+     * ignored.
+     *
+     * @param file The file. Must not be null.
+     * @return The selection.
+     * @throws IOException If the file could not be read.
+     */
+    public static TestSelection read(Path file) throws IOException {
+        return of(readSelectors(file));
+    }
+
+    /**
+     * Creates the selection given by the {@value #FILE_PROPERTY} and {@value #GREP_PROPERTY} system properties.
+     *
+     * @return The selection, or empty if neither property is set.
+     */
+    public static Optional<TestSelection> fromSystemProperties() {
+        return of(System.getProperty(FILE_PROPERTY), System.getProperty(GREP_PROPERTY));
+    }
+
+    /**
+     * Get the selectors that the selection was made from, so that the same selection can be made elsewhere, such as
+     * in a forked worker.
+     *
+     * @return The selectors, in the order they were given.
+     */
+    public List<String> getSelectors() {
+        return selectors;
+    }
+
+    private static List<String> readSelectors(Path file) throws IOException {
+        List<String> selectors = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                selectors.add(line);
+            }
+        }
+        return selectors;
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseUnsignedLong(id, HEX_RADIX);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Test ID must be hexadecimal: " + id, e);
+        }
+    }
+
+    @Override
+    public TestBlock apply(TestBlock rootBlock) {
+        TestBlock selected = select(rootBlock, patterns.start(), true);
+        return selected != null
+                ? selected
+                : rootBlock.withTests(Collections.emptyList()).withTestBlocks(Collections.emptyList());
+    }
+
+    /**
+     * Selects the tests within a test block.
+     *
+     * @param testBlock The test block.
+     * @param parentState The state of the automaton after the full description of the parent block.
+     * @param parentEmpty Whether the full description of the parent block is empty, so that the description of this
+     *     block is not preceded by a space.
+     * @return The test block with only the selected tests, the test block itself if all of its tests are selected, or
+     *     null if none are.
+     */
+    private TestBlock select(TestBlock testBlock, int parentState, boolean parentEmpty) {
+        String description = ReporterSupport.getDescription(testBlock);
+        if (parentEmpty) {
+            description = stripLeadingWhitespace(description);
+        }
+        int state = isSelected(testBlock.id)
+                ? MATCHED
+                : patterns.feed(parentEmpty ? parentState : patterns.feed(parentState, " "), description);
+        if (state == MATCHED) {
+            return testBlock;
+        }
+        List<TestBlock> testBlocks = selectTestBlocks(testBlock.testBlocks, state,
+                parentEmpty && description.isEmpty());
+        List<Test> tests = selectTests(testBlock.tests, patterns.feed(state, " "));
+        if (testBlocks.isEmpty() && tests.isEmpty()) {
+            return null;
+        }
+        if (testBlocks == testBlock.testBlocks && tests == testBlock.tests) {
+            return testBlock;
+        }
+        return testBlock.withTestBlocks(testBlocks).withTests(tests);
+    }
+
+    private List<TestBlock> selectTestBlocks(List<TestBlock> testBlocks, int state, boolean empty) {
+        List<TestBlock> selected = null;
+        for (int i = 0; i < testBlocks.size(); i++) {
+            TestBlock child = testBlocks.get(i);
+            TestBlock selectedChild = select(child, state, empty);
+            if (selected == null && selectedChild != child) {
+                selected = new ArrayList<>(testBlocks.subList(0, i));
+            }
+            if (selected != null && selectedChild != null) {
+                selected.add(selectedChild);
+            }
+        }
+        return selected == null ? testBlocks : selected;
+    }
+
+    private List<Test> selectTests(List<Test> tests, int state) {
+        List<Test> selected = null;
+        for (int i = 0; i < tests.size(); i++) {
+            Test test = tests.get(i);
+            boolean keep = isSelected(test.id) || patterns.feed(state, test.description) == MATCHED;
+            if (selected == null && !keep) {
+                selected = new ArrayList<>(tests.subList(0, i));
+            }
+            if (selected != null && keep) {
+                selected.add(test);
+            }
+        }
+        return selected == null ? tests : selected;
+    }
+
+    private boolean isSelected(long id) {
+        return ids.length > 0 && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     * Strips leading whitespace in the same way as {@link String#trim()}, which
+     * {@link ReporterSupport#getFullDescription(Test, List)} applies to the descriptions of the parent blocks.
+     */
+    private static String stripLeadingWhitespace(String description) {
+        int start = 0;
+        while (start < description.length() && description.charAt(start) <= ' ') {
+            start++;
+        }
+        return description.substring(start);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.TagsOption;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.model.TestTreeVisitor;
+
+/**
+ * An index of a test tree, built once, for answering many queries about it without searching the tree each time.
+ *
+ * <p>Test blocks, tests and hooks can be looked up by ID, by description, and by full description, as given by
+ * {@link ReporterSupport}, in constant time. Tests can be listed by test class and by tag, where a test has the tags
+ * of its own and of all its ancestors, and test blocks by depth. The parents of any indexed object are found by
+ * walking up from its parent, in time proportional to its depth. Where several objects share a key, lookups that
+ * return one object return the first in depth-first order, which is the order that {@link TestCuppaSupport} searches
+ * in, and lookups that return a list return them all in that order.</p>
+ *
+ * <p>The index is immutable once built, and so may be shared between threads.</p>
+ */
+public final class TestTreeIndex {
+    private final Map<Long, TestBlock> testBlocksById = new HashMap<>();
+    private final Map<Long, Test> testsById = new HashMap<>();
+    private final Map<Long, Hook> hooksById = new HashMap<>();
+    private final Map<Long, TestBlock> testBlockParents = new HashMap<>();
+    private final Map<Long, TestBlock> testParents = new HashMap<>();
+    private final Map<Long, TestBlock> hookParents = new HashMap<>();
+    private final Map<String, TestBlock> testBlocksByDescription = new HashMap<>();
+    private final Map<String, Test> testsByDescription = new HashMap<>();
+    private final Map<String, Hook> hooksByDescription = new HashMap<>();
+    private final Map<String, TestBlock> testBlocksByFullDescription = new HashMap<>();
+    private final Map<String, Test> testsByFullDescription = new HashMap<>();
+    private final Map<Class<?>, List<Test>> testsByClass = new HashMap<>();
+    private final Map<String, List<Test>> testsByTag = new HashMap<>();
+    private final List<List<TestBlock>> testBlocksByDepth = new ArrayList<>();
+
+    /**
+     * Builds an index of a test tree.
+     *
+     * @param rootBlock The root test block. Must not be null.
+     */
+    public TestTreeIndex(TestBlock rootBlock) {
+        rootBlock.accept(new Indexer());
+        testsByClass.replaceAll((testClass, tests) -> Collections.unmodifiableList(tests));
+        testsByTag.replaceAll((tag, tests) -> Collections.unmodifiableList(tests));
+        testBlocksByDepth.replaceAll(Collections::unmodifiableList);
+    }
+
+    /**
+     * Get the test block with the given ID.
+     *
+     * @param id The ID.
+     * @return The test block, or empty if there is none.
+     */
+    public Optional<TestBlock> getTestBlock(long id) {
+        return Optional.ofNullable(testBlocksById.get(id));
+    }
+
+    /**
+     * Get the test with the given ID.
+     *
+     * @param id The ID.
+     * @return The test, or empty if there is none.
+     */
+    public Optional<Test> getTest(long id) {
+        return Optional.ofNullable(testsById.get(id));
+    }
+
+    /**
+     * Get the hook with the given ID.
+     *
+     * @param id The ID.
+     * @return The hook, or empty if there is none.
+     */
+    public Optional<Hook> getHook(long id) {
+        return Optional.ofNullable(hooksById.get(id));
+    }
+
+    /**
+     * Finds the first test block with the given description.
+     *
+     * @param description The description.
+     * @return The test block, or empty if there is none.
+     */
+    public Optional<TestBlock> findTestBlock(String description) {
+        return Optional.ofNullable(testBlocksByDescription.get(description));
+    }
+
+    /**
+     * Finds the first test with the given description.
+     *
+     * @param description The description.
+     * @return The test, or empty if there is none.
+     */
+    public Optional<Test> findTest(String description) {
+        return Optional.ofNullable(testsByDescription.get(description));
+    }
+
+    /**
+     * Finds the first hook with the given description.
+     *
+     * @param description The description.
+     * @return The hook, or empty if there is none.
+     */
+    public Optional<Hook> findHook(String description) {
+        return Optional.ofNullable(hooksByDescription.get(description));
+    }
+
+    /**
+     * Finds the first test block with the given full description.
+     *
+     * @param fullDescription The full description, as given by
+     *     {@link ReporterSupport#getFullDescription(TestBlock, List)}.
+     * @return The test block, or empty if there is none.
+     */
+    public Optional<TestBlock> findTestBlockByFullDescription(String fullDescription) {
+        return Optional.ofNullable(testBlocksByFullDescription.get(fullDescription));
+    }
+
+    /**
+     * Finds the first test with the given full description.
+     *
+     * @param fullDescription The full description, as given by {@link ReporterSupport#getFullDescription(Test, List)}.
+     * @return The test, or empty if there is none.
+     */
+    public Optional<Test> findTestByFullDescription(String fullDescription) {
+        return Optional.ofNullable(testsByFullDescription.get(fullDescription));
+    }
+
+    /**
+     * Get the tests defined by a test class.
+     *
+     * @param testClass The test class.
+     * @return An immutable list of the tests, which is empty if there are none.
+     */
+    public List<Test> getTests(Class<?> testClass) {
+        return testsByClass.getOrDefault(testClass, Collections.emptyList());
+    }
+
+    /**
+     * Get the tests that have a tag, either themselves or through one of their ancestors.
+     *
+     * @param tag The tag.
+     * @return An immutable list of the tests, which is empty if there are none.
+     */
+    public List<Test> getTestsWithTag(String tag) {
+        return testsByTag.getOrDefault(tag, Collections.emptyList());
+    }
+
+    /**
+     * Get the test blocks at a depth of the tree.
+     *
+     * @param depth The depth. The root block has depth zero.
+     * @return An immutable list of the test blocks, which is empty if there are none.
+     */
+    public List<TestBlock> getTestBlocksAtDepth(int depth) {
+        return depth < testBlocksByDepth.size() ? testBlocksByDepth.get(depth) : Collections.emptyList();
+    }
+
+    /**
+     * Get the ancestors of a test block, in the form that reporters are given them.
+     *
+     * @param testBlock An indexed test block.
+     * @return The ancestor test blocks, starting with the root block and ending with the immediate parent.
+     * @throws IllegalArgumentException If the test block is not in the index.
+     */
+    public List<TestBlock> getParents(TestBlock testBlock) {
+        checkIndexed(testBlocksById, testBlock.id, testBlock);
+        return getPath(testBlockParents.get(testBlock.id));
+    }
+
+    /**
+     * Get the ancestors of a test, in the form that reporters are given them.
+     *
+     * @param test An indexed test.
+     * @return The ancestor test blocks, starting with the root block and ending with the immediate parent.
+     * @throws IllegalArgumentException If the test is not in the index.
+     */
+    public List<TestBlock> getParents(Test test) {
+        checkIndexed(testsById, test.id, test);
+        return getPath(testParents.get(test.id));
+    }
+
+    /**
+     * Get the ancestors of a hook, in the form that reporters are given them.
+     *
+     * @param hook An indexed hook.
+     * @return The ancestor test blocks, starting with the root block and ending with the block of the hook.
+     * @throws IllegalArgumentException If the hook is not in the index.
+     */
+    public List<TestBlock> getParents(Hook hook) {
+        checkIndexed(hooksById, hook.id, hook);
+        return getPath(hookParents.get(hook.id));
+    }
+
+    private static void checkIndexed(Map<Long, ?> objectsById, long id, Object object) {
+        if (!objectsById.containsKey(id)) {
+            throw new IllegalArgumentException("Not in the index: " + object);
+        }
+    }
+
+    /**
+     * Get the path from the root block to the given test block, inclusive.
+     */
+    private List<TestBlock> getPath(TestBlock testBlock) {
+        List<TestBlock> path = new ArrayList<>();
+        for (TestBlock b = testBlock; b != null; b = testBlockParents.get(b.id)) {
+            path.add(b);
+        }
+        Collections.reverse(path);
+        return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Fills in the index in a single traversal, keeping the joined descriptions and effective tags of the current
+     * path on stacks.
+     */
+    private final class Indexer implements TestTreeVisitor {
+        private final List<TestBlock> path = new ArrayList<>();
+        private final List<String> descriptions = new ArrayList<>();
+        private final List<String> fullDescriptions = new ArrayList<>();
+        private final List<Set<String>> tags = new ArrayList<>();
+
+        @Override
+        public boolean visitTestBlock(TestBlock testBlock, int depth) {
+            TestBlock parent = depth == 0 ? null : path.get(depth - 1);
+            String description = depth == 0
+                    ? ReporterSupport.getDescription(testBlock)
+                    : descriptions.get(depth - 1) + " " + ReporterSupport.getDescription(testBlock);
+            path.add(testBlock);
+            descriptions.add(description);
+            fullDescriptions.add(description.trim());
+            tags.add(inheritTags(depth == 0 ? Collections.emptySet() : tags.get(depth - 1),
+                    testBlock.options.getOrDefault(TagsOption.class, Collections.emptySet())));
+            testBlocksById.putIfAbsent(testBlock.id, testBlock);
+            testBlockParents.putIfAbsent(testBlock.id, parent);
+            testBlocksByDescription.putIfAbsent(testBlock.description, testBlock);
+            testBlocksByFullDescription.putIfAbsent(fullDescriptions.get(depth), testBlock);
+            while (testBlocksByDepth.size() <= depth) {
+                testBlocksByDepth.add(new ArrayList<>());
+            }
+            testBlocksByDepth.get(depth).add(testBlock);
+            return true;
+        }
+
+        @Override
+        public void visitHook(Hook hook, TestBlock parent, int depth) {
+            hooksById.putIfAbsent(hook.id, hook);
+            hookParents.putIfAbsent(hook.id, parent);
+            hook.description.ifPresent(d -> hooksByDescription.putIfAbsent(d, hook));
+        }
+
+        @Override
+        public void visitTest(Test test, TestBlock parent, int depth) {
+            testsById.putIfAbsent(test.id, test);
+            testParents.putIfAbsent(test.id, parent);
+            testsByDescription.putIfAbsent(test.description, test);
+            testsByFullDescription.putIfAbsent(fullDescriptions.get(depth) + " " + test.description, test);
+            testsByClass.computeIfAbsent(test.testClass, c -> new ArrayList<>()).add(test);
+            for (String tag : inheritTags(tags.get(depth),
+                    test.options.getOrDefault(TagsOption.class, Collections.emptySet()))) {
+                testsByTag.computeIfAbsent(tag, t -> new ArrayList<>()).add(test);
+            }
+        }
+
+        @Override
+        public void leaveTestBlock(TestBlock testBlock, int depth) {
+            path.remove(depth);
+            descriptions.remove(depth);
+            fullDescriptions.remove(depth);
+            tags.remove(depth);
+        }
+
+        private Set<String> inheritTags(Set<String> parentTags, Set<String> ownTags) {
+            if (parentTags.containsAll(ownTags)) {
+                return parentTags;
+            }
+            Set<String> inherited = new HashSet<>(parentTags);
+            inherited.addAll(ownTags);
+            return inherited;
+        }
+    }
+}
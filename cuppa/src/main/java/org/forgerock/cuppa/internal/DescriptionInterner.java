@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Deduplicates the descriptions of tests, test blocks and hooks while a test class is being defined. Parameterised
+ * and generated tests often repeat the same description many times, each as a separately built string; interning
+ * them means that the model holds one instance of each distinct description.
+ *
+ * <p>An interner lives only as long as the definition of a single test class, rather than interning JVM-wide with
+ * {@link String#intern()}, so that descriptions are not retained once the test class is no longer referenced.</p>
+ */
+final class DescriptionInterner {
+
+    /**
+     * The number of bytes taken by a string object and the header of its backing {@code char[]}, on a 64-bit Java 8
+     * JVM with compressed references.
+     */
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+    /**
+     * The number of bytes taken by each character of a string on Java 8, which stores strings as UTF-16.
+     */
+    private static final int BYTES_PER_CHAR = 2;
+
+    private final Map<String, String> descriptions = new HashMap<>();
+    private long savedBytes;
+
+    /**
+     * Returns the canonical instance of the given description.
+     *
+     * @param description The description.
+     * @return An equal description, which is the same instance for all equal descriptions given to this interner.
+     */
+    String intern(String description) {
+        String interned = descriptions.putIfAbsent(description, description);
+        if (interned == null) {
+            return description;
+        }
+        if (interned != description) {
+            savedBytes += STRING_OVERHEAD_BYTES + BYTES_PER_CHAR * description.length();
+        }
+        return interned;
+    }
+
+    /**
+     * Returns the canonical instance of the given optional description.
+     *
+     * @param description The optional description.
+     * @return An equal optional description, containing the canonical instance if the description is present.
+     */
+    Optional<String> intern(Optional<String> description) {
+        return description.map(this::intern);
+    }
+
+    /**
+     * Returns an estimate of the memory saved by interning, assuming two bytes per character, as on Java 8. On later
+     * JVMs with compact strings, descriptions in Latin-1 take half as much. Descriptions that were already the same
+     * instance, such as repeated uses of the same string literal, do not count.
+     *
+     * @return The number of bytes saved.
+     */
+    long getSavedBytes() {
+        return savedBytes;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.forgerock.cuppa.ReporterSupport;
+import org.forgerock.cuppa.model.Behaviour;
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.HookType;
+import org.forgerock.cuppa.model.Options;
+import org.forgerock.cuppa.model.TagsOption;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+
+/**
+ * Writes a plan of a test tree as JSON Lines: one JSON object per line, for each test block and test in depth-first
+ * order, followed by a summary. For example:
+ *
+ * <pre>
+ * {"type":"block","id":"1f0c...","parent":"8a3e...","class":"com.example.CalculatorTest","blockType":"DESCRIBE",
+ *     "description":"add","fullDescription":"Calculator add","behaviour":"NORMAL","tags":["fast"],
+ *     "hooks":{"before":0,"beforeEach":1,"afterEach":0,"after":0}}
+ * {"type":"test","id":"77d2...","parent":"1f0c...","class":"com.example.CalculatorTest","description":"adds",
+ *     "fullDescription":"Calculator add adds","behaviour":"NORMAL","pending":false,"tags":["fast"]}
+ * {"type":"summary","blocks":2,"tests":1}
+ * </pre>
+ *
+ * <p>IDs are hexadecimal, as accepted by {@code TestSelection}. The parent of the root block is {@code null}. The
+ * behaviour and tags of a block or test are its effective ones: a block or test is skipped if it or any of its
+ * ancestors is skipped, and it has the tags of all of its ancestors. Full descriptions are those given by
+ * {@link ReporterSupport}. The tree is walked once, and the description and tags of each block are computed once and
+ * shared with everything beneath it.</p>
+ */
+public final class PlanWriter {
+    private static final int HEX_RADIX = 16;
+    private static final int HEX_ESCAPE_DIGITS = 4;
+
+    private final Appendable out;
+    private int blockCount;
+    private int testCount;
+
+    /**
+     * Creates a new plan writer.
+     *
+     * @param out Where to write the plan. Writes are not buffered, so this should be buffered if it is a stream.
+     */
+    public PlanWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the plan of a test tree. No hooks or tests are run.
+     *
+     * @param rootBlock The root test block.
+     * @throws IOException If the plan could not be written.
+     */
+    public void write(TestBlock rootBlock) throws IOException {
+        writeTestBlock(rootBlock, null, "", rootBlock.behaviour, Collections.emptySortedSet());
+        out.append("{\"type\":\"summary\",\"blocks\":").append(Integer.toString(blockCount))
+                .append(",\"tests\":").append(Integer.toString(testCount)).append("}\n");
+    }
+
+    /**
+     * Writes a test block and everything beneath it.
+     *
+     * @param testBlock The test block.
+     * @param parent The parent test block, or null for the root block.
+     * @param parentDescription The descriptions of the ancestors joined with spaces, before trimming.
+     * @param parentBehaviour The effective behaviour of the parent test block.
+     * @param parentTags The effective tags of the parent test block.
+     */
+    private void writeTestBlock(TestBlock testBlock, TestBlock parent, String parentDescription,
+            Behaviour parentBehaviour, SortedSet<String> parentTags) throws IOException {
+        String description = parent == null
+                ? ReporterSupport.getDescription(testBlock)
+                : parentDescription + " " + ReporterSupport.getDescription(testBlock);
+        String fullDescription = description.trim();
+        Behaviour behaviour = parentBehaviour.combine(testBlock.behaviour);
+        SortedSet<String> tags = inheritTags(parentTags, testBlock.options);
+        blockCount++;
+        writeCommonFields("block", testBlock.id, parent, testBlock.testClass);
+        out.append(",\"blockType\":\"").append(testBlock.type.name()).append('"');
+        writeDescriptions(ReporterSupport.getDescription(testBlock), fullDescription);
+        writeBehaviourAndTags(behaviour, tags);
+        writeHookCounts(testBlock);
+        out.append("}\n");
+        for (Test test : testBlock.tests) {
+            writeTest(test, testBlock, fullDescription, behaviour, tags);
+        }
+        for (TestBlock child : testBlock.testBlocks) {
+            writeTestBlock(child, testBlock, description, behaviour, tags);
+        }
+    }
+
+    private void writeTest(Test test, TestBlock parent, String parentFullDescription, Behaviour parentBehaviour,
+            SortedSet<String> parentTags) throws IOException {
+        testCount++;
+        writeCommonFields("test", test.id, parent, test.testClass);
+        writeDescriptions(test.description, parentFullDescription + " " + test.description);
+        out.append(",\"behaviour\":\"").append(parentBehaviour.combine(test.behaviour).name())
+                .append("\",\"pending\":").append(Boolean.toString(!test.function.isPresent()));
+        writeTags(inheritTags(parentTags, test.options));
+        out.append("}\n");
+    }
+
+    private void writeCommonFields(String type, long id, TestBlock parent, Class<?> testClass) throws IOException {
+        out.append("{\"type\":\"").append(type).append("\",\"id\":\"").append(Long.toHexString(id))
+                .append("\",\"parent\":");
+        if (parent == null) {
+            out.append("null");
+        } else {
+            out.append('"').append(Long.toHexString(parent.id)).append('"');
+        }
+        out.append(",\"class\":");
+        writeString(testClass.getName());
+    }
+
+    private void writeDescriptions(String description, String fullDescription) throws IOException {
+        out.append(",\"description\":");
+        writeString(description);
+        out.append(",\"fullDescription\":");
+        writeString(fullDescription);
+    }
+
+    private void writeBehaviourAndTags(Behaviour behaviour, Set<String> tags) throws IOException {
+        out.append(",\"behaviour\":\"").append(behaviour.name()).append('"');
+        writeTags(tags);
+    }
+
+    private void writeTags(Set<String> tags) throws IOException {
+        out.append(",\"tags\":[");
+        boolean first = true;
+        for (String tag : tags) {
+            if (!first) {
+                out.append(',');
+            }
+            writeString(tag);
+            first = false;
+        }
+        out.append(']');
+    }
+
+    private void writeHookCounts(TestBlock testBlock) throws IOException {
+        int[] counts = new int[HookType.values().length];
+        for (Hook hook : testBlock.hooks) {
+            counts[hook.type.ordinal()]++;
+        }
+        out.append(",\"hooks\":{");
+        for (HookType type : HookType.values()) {
+            if (type.ordinal() > 0) {
+                out.append(',');
+            }
+            out.append('"').append(type.description).append("\":").append(Integer.toString(counts[type.ordinal()]));
+        }
+        out.append('}');
+    }
+
+    private void writeString(String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < ' ') {
+                String hex = Integer.toString(c, HEX_RADIX);
+                out.append("\\u");
+                for (int j = hex.length(); j < HEX_ESCAPE_DIGITS; j++) {
+                    out.append('0');
+                }
+                out.append(hex);
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static SortedSet<String> inheritTags(SortedSet<String> parentTags, Options options) {
+        Set<String> tags = options.getOrDefault(TagsOption.class, Collections.emptySet());
+        if (parentTags.containsAll(tags)) {
+            return parentTags;
+        }
+        SortedSet<String> inherited = new TreeSet<>(parentTags);
+        inherited.addAll(tags);
+        return inherited;
+    }
+}
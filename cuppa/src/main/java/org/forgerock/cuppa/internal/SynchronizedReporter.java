@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal;
+
+import java.util.List;
+
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Decorates a reporter so that it is never called by more than one thread at a time.
+ */
+public final class SynchronizedReporter implements Reporter {
+    private final Reporter reporter;
+
+    /**
+     * Constructs a new synchronized reporter.
+     *
+     * @param reporter The reporter to pass events to.
+     */
+    public SynchronizedReporter(Reporter reporter) {
+        this.reporter = reporter;
+    }
+
+    @Override
+    public synchronized void start(TestBlock rootBlock) {
+        reporter.start(rootBlock);
+    }
+
+    @Override
+    public synchronized void end() {
+        reporter.end();
+    }
+
+    @Override
+    public synchronized void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+        reporter.testBlockStart(testBlock, parents);
+    }
+
+    @Override
+    public synchronized void testBlockEnd(TestBlock testBlock, List<TestBlock> parents) {
+        reporter.testBlockEnd(testBlock, parents);
+    }
+
+    @Override
+    public synchronized void hookFail(Hook hook, List<TestBlock> parents, Throwable cause) {
+        reporter.hookFail(hook, parents, cause);
+    }
+
+    @Override
+    public synchronized void testStart(Test test, List<TestBlock> parents) {
+        reporter.testStart(test, parents);
+    }
+
+    @Override
+    public synchronized void testEnd(Test test, List<TestBlock> parents) {
+        reporter.testEnd(test, parents);
+    }
+
+    @Override
+    public synchronized void testPass(Test test, List<TestBlock> parents) {
+        reporter.testPass(test, parents);
+    }
+
+    @Override
+    public synchronized void testFail(Test test, List<TestBlock> parents, Throwable cause) {
+        reporter.testFail(test, parents, cause);
+    }
+
+    @Override
+    public synchronized void testPending(Test test, List<TestBlock> parents) {
+        reporter.testPending(test, parents);
+    }
+
+    @Override
+    public synchronized void testSkip(Test test, List<TestBlock> parents) {
+        reporter.testSkip(test, parents);
+    }
+}
@@ -19,12 +19,16 @@ package org.forgerock.cuppa.internal;
 import static org.forgerock.cuppa.model.HookType.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.forgerock.cuppa.functions.HookFunction;
 import org.forgerock.cuppa.model.Behaviour;
 import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.HookType;
+import org.forgerock.cuppa.model.Ids;
 import org.forgerock.cuppa.model.Options;
 import org.forgerock.cuppa.model.Test;
 import org.forgerock.cuppa.model.TestBlock;
@@ -32,21 +36,27 @@ import org.forgerock.cuppa.model.TestBlockType;
 
 final class TestBlockBuilder {
 
+    private final long id;
     private final TestBlockType type;
     private final Behaviour behaviour;
     private final Class<?> testClass;
     private final String description;
     private final Options options;
+    private final DescriptionInterner interner;
     private final List<TestBlock> testBlocks = new ArrayList<>();
     private final List<Hook> hooks = new ArrayList<>();
     private final List<Test> tests = new ArrayList<>();
+    private final Map<Long, Integer> occurrences = new HashMap<>();
 
-    TestBlockBuilder(TestBlockType type, Behaviour behaviour, Class<?> testClass, String description, Options options) {
+    TestBlockBuilder(long id, TestBlockType type, Behaviour behaviour, Class<?> testClass, String description,
+            Options options, DescriptionInterner interner) {
+        this.id = id;
         this.type = type;
         this.behaviour = behaviour;
         this.testClass = testClass;
-        this.description = description;
+        this.description = interner.intern(description);
         this.options = options;
+        this.interner = interner;
     }
 
     TestBlockBuilder addTestBlock(TestBlock testBlock) {
@@ -55,31 +65,63 @@ final class TestBlockBuilder {
     }
 
     TestBlockBuilder addBefore(Optional<String> description, HookFunction function) {
-        hooks.add(new Hook(BEFORE, testClass, description, function));
+        addHook(BEFORE, description, function);
         return this;
     }
 
     TestBlockBuilder addAfter(Optional<String> description, HookFunction function) {
-        hooks.add(new Hook(AFTER, testClass, description, function));
+        addHook(AFTER, description, function);
         return this;
     }
 
     TestBlockBuilder addBeforeEach(Optional<String> description, HookFunction function) {
-        hooks.add(new Hook(BEFORE_EACH, testClass, description, function));
+        addHook(BEFORE_EACH, description, function);
         return this;
     }
 
     TestBlockBuilder addAfterEach(Optional<String> description, HookFunction function) {
-        hooks.add(new Hook(AFTER_EACH, testClass, description, function));
+        addHook(AFTER_EACH, description, function);
         return this;
     }
 
+    private void addHook(HookType type, Optional<String> hookDescription, HookFunction function) {
+        Optional<String> description = interner.intern(hookDescription);
+        hooks.add(new Hook(nextChildId(Ids.hook(id, type, description)), type, testClass, description, function));
+    }
+
     TestBlockBuilder addTest(Test test) {
         tests.add(test);
         return this;
     }
 
     TestBlock build() {
-        return new TestBlock(type, behaviour, testClass, description, testBlocks, hooks, tests, options);
+        return new TestBlock(id, type, behaviour, testClass, description, testBlocks, hooks, tests, options);
+    }
+
+    /**
+     * Assigns the ID of a child of this block, disambiguating it from any earlier siblings of the same kind and
+     * description.
+     *
+     * @param firstId The ID that the child would have if it were the first such sibling.
+     * @return The ID of the child.
+     */
+    long nextChildId(long firstId) {
+        int occurrence = occurrences.merge(firstId, 1, Integer::sum) - 1;
+        return Ids.occurrence(firstId, occurrence);
+    }
+
+    /**
+     * Returns the canonical instance of a description, shared by every block, test and hook in the test class being
+     * defined.
+     *
+     * @param description The description.
+     * @return An equal description, which is the same instance for all equal descriptions in the test class.
+     */
+    String intern(String description) {
+        return interner.intern(description);
+    }
+
+    long getId() {
+        return id;
     }
 }
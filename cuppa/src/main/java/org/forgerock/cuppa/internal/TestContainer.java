@@ -25,6 +25,7 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.cuppa.Cuppa;
 import org.forgerock.cuppa.CuppaException;
@@ -33,6 +34,7 @@ import org.forgerock.cuppa.functions.HookFunction;
 import org.forgerock.cuppa.functions.TestBlockFunction;
 import org.forgerock.cuppa.functions.TestFunction;
 import org.forgerock.cuppa.model.Behaviour;
+import org.forgerock.cuppa.model.Ids;
 import org.forgerock.cuppa.model.Option;
 import org.forgerock.cuppa.model.Options;
 import org.forgerock.cuppa.model.TagsOption;
@@ -49,7 +51,15 @@ public enum TestContainer {
      */
     INSTANCE;
 
-    private final Deque<Context> contexts = new ArrayDeque<>();
+    /**
+     * Contexts are tracked per thread so that tests may be defined on one thread while others are being run.
+     */
+    private final ThreadLocal<Deque<Context>> contexts = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * The estimated memory saved by interning descriptions, summed over every test class defined so far.
+     */
+    private final AtomicLong internedDescriptionBytes = new AtomicLong();
 
     /**
      * Registers a described suite of tests to be run.
@@ -72,8 +82,10 @@ public enum TestContainer {
     void testBlock(TestBlockType type, Behaviour behaviour, String description, TestBlockFunction function,
             Options options) {
         TestDefinitionContext context = assertIsInTestDefinitionContext("describe");
-        TestBlockBuilder testBlockBuilder = new TestBlockBuilder(type, behaviour, context.testClass, description,
-                options);
+        TestBlockBuilder parent = context.getCurrentDescribeBlock();
+        long id = parent.nextChildId(Ids.testBlock(parent.getId(), type, description));
+        TestBlockBuilder testBlockBuilder = new TestBlockBuilder(id, type, behaviour, context.testClass, description,
+                options, context.interner);
         context.stack.addLast(testBlockBuilder);
         try {
             function.apply();
@@ -185,7 +197,7 @@ public enum TestContainer {
      * @param function The test function.
      */
     public void it(String description, TestFunction function) {
-        it(NORMAL, description, Optional.of(function), new Options());
+        it(NORMAL, description, Optional.of(function), Options.EMPTY_OPTIONS);
     }
 
     /**
@@ -197,7 +209,7 @@ public enum TestContainer {
      * @param description The description of the test.
      */
     public void it(String description) {
-        it(NORMAL, description, Optional.empty(), new Options());
+        it(NORMAL, description, Optional.empty(), Options.EMPTY_OPTIONS);
     }
 
     /**
@@ -211,8 +223,9 @@ public enum TestContainer {
     public void it(Behaviour behaviour, String description, Optional<TestFunction> function, Options options) {
         TestDefinitionContext context = assertIsInTestDefinitionContext("it");
         assertNotRootDescribeBlock("it");
-        context.getCurrentDescribeBlock()
-                .addTest(new Test(behaviour, context.testClass, description, function, options));
+        TestBlockBuilder parent = context.getCurrentDescribeBlock();
+        long id = parent.nextChildId(Ids.test(parent.getId(), description));
+        parent.addTest(new Test(id, behaviour, context.testClass, parent.intern(description), function, options));
     }
 
 
@@ -268,11 +281,11 @@ public enum TestContainer {
      * @param testRunner A function that will run tests.
      */
     public void runTests(Runnable testRunner) {
-        contexts.addLast(new TestRunContext());
+        contexts.get().addLast(new TestRunContext());
         try {
             testRunner.run();
         } finally {
-            contexts.removeLast();
+            contexts.get().removeLast();
         }
     }
 
@@ -286,16 +299,28 @@ public enum TestContainer {
      */
     public TestBlock defineTests(Class<?> testClass, Runnable testDefiner) {
         TestDefinitionContext context = new TestDefinitionContext(testClass);
-        contexts.addLast(context);
+        contexts.get().addLast(context);
         try {
             testDefiner.run();
             return context.rootBuilder.build();
         } finally {
-            contexts.removeLast();
+            contexts.get().removeLast();
+            internedDescriptionBytes.addAndGet(context.interner.getSavedBytes());
         }
     }
 
+    /**
+     * Get an estimate of the memory saved by deduplicating the descriptions of tests, test blocks and hooks as they
+     * are defined. Equal descriptions within a test class share a single string instance.
+     *
+     * @return The number of bytes saved, summed over every call to {@link #defineTests(Class, Runnable)}.
+     */
+    public long getInternedDescriptionBytes() {
+        return internedDescriptionBytes.get();
+    }
+
     private TestDefinitionContext assertIsInTestDefinitionContext(String blockType) {
+        Deque<Context> contexts = this.contexts.get();
         if (contexts.isEmpty()) {
             throw new CuppaException("Attempted to defined Cuppa tests from outside of Cuppa's control. Is something"
                     + " else instantiating your test class?");
@@ -320,10 +345,12 @@ public enum TestContainer {
         private final Deque<TestBlockBuilder> stack = new ArrayDeque<>();
         private final TestBlockBuilder rootBuilder;
         private final Class<?> testClass;
+        private final DescriptionInterner interner = new DescriptionInterner();
 
         private TestDefinitionContext(Class<?> testClass) {
             this.testClass = testClass;
-            rootBuilder = new TestBlockBuilder(ROOT, NORMAL, testClass, "", new Options());
+            rootBuilder = new TestBlockBuilder(Ids.root(testClass), ROOT, NORMAL, testClass, "",
+                    Options.EMPTY_OPTIONS, interner);
             stack.addLast(rootBuilder);
         }
 
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.filters;
+
+import static org.forgerock.cuppa.model.Behaviour.ONLY;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+import org.forgerock.cuppa.model.CompactTestTree;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+
+/**
+ * Applies all of Cuppa's built-in filters to the test tree in a single traversal:
+ *
+ * <ul>
+ *     <li>If any test or block is marked as "only", then all tests that are not marked as "only" are removed.</li>
+ *     <li>Tests that do not match the run tags are removed.</li>
+ *     <li>Blocks that are left with no tests or nested blocks are removed.</li>
+ * </ul>
+ *
+ * <p>Blocks are only rebuilt if something beneath them was removed. Subtrees that are unaffected are returned as the
+ * same instances.</p>
+ *
+ * <p>The filter can also be applied to a {@link CompactTestTree}, with {@link #apply(CompactTestTree)}. The blocks
+ * and tests are then visited in a single pass over the tree's arrays, without recursion and without creating any
+ * test blocks or tests.</p>
+ */
+public final class CoreTestBlockFilter implements Function<TestBlock, TestBlock> {
+    private final TagQuery tagQuery;
+
+    /**
+     * Creates a new filter. Throws a {@link org.forgerock.cuppa.CuppaException} if the run tag expression is not
+     * valid.
+     *
+     * @param runTags The tags to include/exclude.
+     */
+    public CoreTestBlockFilter(Tags runTags) {
+        this.tagQuery = TagQuery.compile(runTags);
+    }
+
+    @Override
+    public TestBlock apply(TestBlock rootBlock) {
+        return filter(rootBlock, tagQuery.newTagSet(), tagQuery.newTagSet(), hasOnlyTests(rootBlock));
+    }
+
+    /**
+     * Applies the filters to a compact tree.
+     *
+     * @param tree The compact tree.
+     * @return The filtered tree, or the given tree if no tests were removed.
+     */
+    public CompactTestTree apply(CompactTestTree tree) {
+        int blockCount = tree.getTestBlockCount();
+        long[][] optionTags = tagQuery.matchesEverything() ? null : tagQuery.getTagSets(tree);
+        long[][] blockTags = new long[blockCount][];
+        boolean[] pruneNotOnly = new boolean[blockCount];
+        boolean hasOnlyTests = hasOnlyTests(tree);
+        long[] scratch = tagQuery.newTagSet();
+        BitSet tests = new BitSet(tree.getTestCount());
+        for (int b = 0; b < blockCount; b++) {
+            int parent = tree.getTestBlockParent(b);
+            long[] parentTags = parent < 0 ? tagQuery.newTagSet() : blockTags[parent];
+            blockTags[b] = optionTags == null ? parentTags
+                    : union(parentTags, optionTags[tree.getTestBlockOptions(b)]);
+            pruneNotOnly[b] = (parent < 0 ? hasOnlyTests : pruneNotOnly[parent])
+                    && tree.getTestBlockBehaviour(b) != ONLY;
+            for (int t = tree.getTestsStart(b); t < tree.getTestsEnd(b); t++) {
+                boolean keep = (!pruneNotOnly[b] || tree.getTestBehaviour(t) == ONLY)
+                        && (optionTags == null
+                        || matches(blockTags[b], optionTags[tree.getTestOptions(t)], scratch));
+                tests.set(t, keep);
+            }
+        }
+        return tree.select(tests);
+    }
+
+    private boolean matches(long[] blockTags, long[] testTags, long[] scratch) {
+        if (testTags == null) {
+            return tagQuery.matches(blockTags);
+        }
+        for (int i = 0; i < scratch.length; i++) {
+            scratch[i] = blockTags[i] | testTags[i];
+        }
+        return tagQuery.matches(scratch);
+    }
+
+    private static long[] union(long[] parentTags, long[] ownTags) {
+        if (ownTags == null) {
+            return parentTags;
+        }
+        long[] tags = parentTags.clone();
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] |= ownTags[i];
+        }
+        return tags;
+    }
+
+    private TestBlock filter(TestBlock testBlock, long[] parentBlockTags, long[] scratch, boolean pruneNotOnly) {
+        long[] blockTags = tagQuery.matchesEverything()
+                ? parentBlockTags
+                : tagQuery.inherit(parentBlockTags, testBlock.options);
+        boolean pruneNotOnlyTests = pruneNotOnly && testBlock.behaviour != ONLY;
+        List<TestBlock> testBlocks = filterTestBlocks(testBlock.testBlocks, blockTags, scratch, pruneNotOnlyTests);
+        List<Test> tests = filterTests(testBlock.tests, blockTags, scratch, pruneNotOnlyTests);
+        if (testBlocks == testBlock.testBlocks && tests == testBlock.tests) {
+            return testBlock;
+        }
+        return testBlock.toBuilder()
+                .setTestBlocks(testBlocks)
+                .setTests(tests)
+                .build();
+    }
+
+    private List<TestBlock> filterTestBlocks(List<TestBlock> testBlocks, long[] blockTags, long[] scratch,
+            boolean pruneNotOnly) {
+        List<TestBlock> filtered = null;
+        for (int i = 0; i < testBlocks.size(); i++) {
+            TestBlock child = testBlocks.get(i);
+            TestBlock filteredChild = filter(child, blockTags, scratch, pruneNotOnly);
+            boolean keep = !isEmpty(filteredChild);
+            if (filtered == null && (!keep || filteredChild != child)) {
+                filtered = new ArrayList<>(testBlocks.subList(0, i));
+            }
+            if (filtered != null && keep) {
+                filtered.add(filteredChild);
+            }
+        }
+        return filtered == null ? testBlocks : filtered;
+    }
+
+    private List<Test> filterTests(List<Test> tests, long[] blockTags, long[] scratch, boolean pruneNotOnly) {
+        List<Test> filtered = null;
+        for (int i = 0; i < tests.size(); i++) {
+            Test test = tests.get(i);
+            boolean keep = (!pruneNotOnly || test.behaviour == ONLY)
+                    && (tagQuery.matchesEverything() || tagQuery.matches(blockTags, test.options, scratch));
+            if (filtered == null && !keep) {
+                filtered = new ArrayList<>(tests.subList(0, i));
+            }
+            if (filtered != null && keep) {
+                filtered.add(test);
+            }
+        }
+        return filtered == null ? tests : filtered;
+    }
+
+    private static boolean isEmpty(TestBlock testBlock) {
+        return testBlock.testBlocks.isEmpty() && testBlock.tests.isEmpty();
+    }
+
+    /**
+     * Returns whether the given test block, or any of its descendants, is marked with
+     * {@link org.forgerock.cuppa.Cuppa#only()}.
+     *
+     * @param testBlock The test block.
+     * @return {@code true} if the tests that are not marked as 'only' would be skipped.
+     */
+    public static boolean hasOnlyTests(TestBlock testBlock) {
+        if (testBlock.behaviour == ONLY) {
+            return true;
+        }
+        for (Test test : testBlock.tests) {
+            if (test.behaviour == ONLY) {
+                return true;
+            }
+        }
+        for (TestBlock child : testBlock.testBlocks) {
+            if (hasOnlyTests(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasOnlyTests(CompactTestTree tree) {
+        for (int b = 0; b < tree.getTestBlockCount(); b++) {
+            if (tree.getTestBlockBehaviour(b) == ONLY) {
+                return true;
+            }
+        }
+        for (int t = 0; t < tree.getTestCount(); t++) {
+            if (tree.getTestBehaviour(t) == ONLY) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
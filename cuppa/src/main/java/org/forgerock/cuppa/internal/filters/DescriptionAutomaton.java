@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.filters;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * An Aho-Corasick automaton that finds whether a description contains any of a set of patterns, in a single pass over
+ * the description however many patterns there are.
+ *
+ * <p>Descriptions can be fed to the automaton in pieces, so that the state reached at the end of the description of a
+ * test block can be reused for all of the tests and test blocks beneath it. Once a pattern has been found, the state
+ * is {@link #MATCHED}, and stays so whatever is fed afterwards.</p>
+ */
+public final class DescriptionAutomaton {
+    /**
+     * The state of the automaton once a pattern has been found.
+     */
+    public static final int MATCHED = -1;
+
+    private static final int START = 0;
+
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] failures;
+    private final boolean[] outputs;
+
+    /**
+     * Builds an automaton. An empty pattern matches every description.
+     *
+     * @param patterns The patterns to search for. Must not be null.
+     */
+    public DescriptionAutomaton(Collection<String> patterns) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(false);
+        for (String pattern : patterns) {
+            int state = START;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = trie.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(pattern.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    ends.add(false);
+                }
+                state = next;
+            }
+            ends.set(state, true);
+        }
+        keys = new char[trie.size()][];
+        targets = new int[trie.size()][];
+        failures = new int[trie.size()];
+        outputs = new boolean[trie.size()];
+        for (int state = 0; state < trie.size(); state++) {
+            keys[state] = new char[trie.get(state).size()];
+            targets[state] = new int[trie.get(state).size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : trie.get(state).entrySet()) {
+                keys[state][i] = transition.getKey();
+                targets[state][i] = transition.getValue();
+                i++;
+            }
+            outputs[state] = ends.get(state);
+        }
+        linkFailures();
+    }
+
+    /**
+     * Computes the failure link of each state, breadth first, so that the link of a state's parent is always known:
+     * the failure link of a state is the longest proper suffix of its path that is also a path from the start state.
+     */
+    private void linkFailures() {
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[START]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int i = 0; i < keys[state].length; i++) {
+                int child = targets[state][i];
+                failures[child] = step(failures[state], keys[state][i]);
+                outputs[child] |= outputs[failures[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Get the state to start feeding a description from.
+     *
+     * @return {@link #MATCHED} if there is an empty pattern, otherwise the start state.
+     */
+    public int start() {
+        return outputs[START] ? MATCHED : START;
+    }
+
+    /**
+     * Feeds a piece of a description to the automaton.
+     *
+     * @param state The state reached by feeding the previous pieces of the description.
+     * @param text The next piece of the description.
+     * @return The new state, which is {@link #MATCHED} if any pattern has been found.
+     */
+    public int feed(int state, CharSequence text) {
+        int current = state;
+        for (int i = 0; i < text.length() && current != MATCHED; i++) {
+            current = step(current, text.charAt(i));
+            if (outputs[current]) {
+                current = MATCHED;
+            }
+        }
+        return current;
+    }
+
+    private int step(int state, char c) {
+        int current = state;
+        while (true) {
+            int i = Arrays.binarySearch(keys[current], c);
+            if (i >= 0) {
+                return targets[current][i];
+            }
+            if (current == START) {
+                return START;
+            }
+            current = failures[current];
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.forgerock.cuppa.CuppaException;
+import org.forgerock.cuppa.internal.filters.TagQuery.TagPredicate;
+
+/**
+ * A recursive descent parser for tag expressions such as {@code "(smoke or fast) and not slow"}.
+ *
+ * <pre>
+ * expression := and (("or" | "|" | ",") and)*
+ * and        := unary (("and" | "&amp;") unary)*
+ * unary      := ("not" | "!") unary | "(" expression ")" | tag
+ * </pre>
+ */
+final class TagExpressionParser {
+    private static final String SYMBOLS = "()!&|,";
+    private static final Set<String> OPERATORS = new HashSet<>(Arrays.asList("and", "or", "not", "&", "|", ",", "!",
+            "(", ")"));
+
+    private final String expression;
+    private final ToIntFunction<String> interner;
+    private final List<String> tokens;
+    private int position;
+
+    TagExpressionParser(String expression, ToIntFunction<String> interner) {
+        this.expression = expression;
+        this.interner = interner;
+        this.tokens = tokenize(expression);
+    }
+
+    TagPredicate parse() {
+        TagPredicate predicate = parseOr();
+        if (position < tokens.size()) {
+            throw error("unexpected '" + tokens.get(position) + "'");
+        }
+        return predicate;
+    }
+
+    private TagPredicate parseOr() {
+        TagPredicate predicate = parseAnd();
+        while (accept("or", "|", ",")) {
+            predicate = TagQuery.or(predicate, parseAnd());
+        }
+        return predicate;
+    }
+
+    private TagPredicate parseAnd() {
+        TagPredicate predicate = parseUnary();
+        while (accept("and", "&")) {
+            predicate = TagQuery.and(predicate, parseUnary());
+        }
+        return predicate;
+    }
+
+    private TagPredicate parseUnary() {
+        if (accept("not", "!")) {
+            return TagQuery.not(parseUnary());
+        }
+        if (accept("(")) {
+            TagPredicate predicate = parseOr();
+            if (!accept(")")) {
+                throw error("missing ')'");
+            }
+            return predicate;
+        }
+        if (position == tokens.size()) {
+            throw error("unexpected end of expression");
+        }
+        String tag = tokens.get(position);
+        if (isOperator(tag)) {
+            throw error("unexpected '" + tag + "'");
+        }
+        position++;
+        return TagQuery.tag(interner.applyAsInt(tag));
+    }
+
+    private boolean accept(String... operators) {
+        if (position == tokens.size()) {
+            return false;
+        }
+        String token = tokens.get(position).toLowerCase(Locale.ROOT);
+        for (String operator : operators) {
+            if (operator.equals(token)) {
+                position++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given string uses any operator other than a comma, which on its own also separates the
+     * tags of a plain list of tags.
+     *
+     * @param tags A tag expression or list of tags.
+     * @return {@code true} if the string must be parsed as an expression.
+     */
+    static boolean isExpression(String tags) {
+        return tokenize(tags).stream().anyMatch(t -> !",".equals(t) && isOperator(t));
+    }
+
+    private CuppaException error(String reason) {
+        return new CuppaException("Invalid tag expression \"" + expression + "\": " + reason);
+    }
+
+    private static boolean isOperator(String token) {
+        return OPERATORS.contains(token.toLowerCase(Locale.ROOT));
+    }
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (isSymbol(c)) {
+                tokens.add(String.valueOf(c));
+                i++;
+                while ((c == '&' || c == '|') && i < expression.length() && expression.charAt(i) == c) {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < expression.length() && !Character.isWhitespace(expression.charAt(i))
+                        && !isSymbol(expression.charAt(i))) {
+                    i++;
+                }
+                tokens.add(expression.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isSymbol(char c) {
+        return SYMBOLS.indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.filters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.cuppa.model.CompactTestTree;
+import org.forgerock.cuppa.model.Options;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TagsOption;
+
+/**
+ * A compiled form of {@link Tags} that can be evaluated against tests without allocating.
+ *
+ * <p>Only the tags that the run tags refer to can affect whether a test runs, so each of those is interned to a small
+ * integer id and the tags of a block or test are represented as a bitset of those ids. All other tags are ignored.
+ * Bitsets are inherited down the tree with {@link #inherit(long[], Options)} and a test is checked against its
+ * block's bitset with {@link #matches(long[], Options, long[])}.</p>
+ */
+public final class TagQuery {
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final TagPredicate predicate;
+    private final boolean matchesEverything;
+
+    private TagQuery(Tags tags) {
+        List<TagPredicate> predicates = new ArrayList<>();
+        if (!tags.tags.isEmpty()) {
+            predicates.add(anyOf(intern(tags.tags)));
+        }
+        if (!tags.excludedTags.isEmpty()) {
+            predicates.add(not(anyOf(intern(tags.excludedTags))));
+        }
+        if (tags.expression.isPresent()) {
+            predicates.add(new TagExpressionParser(tags.expression.get(), this::intern).parse());
+        }
+        matchesEverything = predicates.isEmpty();
+        predicate = predicates.stream().reduce(t -> true, TagQuery::and);
+    }
+
+    /**
+     * Compiles the given run tags. Throws a {@link org.forgerock.cuppa.CuppaException} if the tag expression is not
+     * valid.
+     *
+     * @param tags The run tags.
+     * @return A compiled query.
+     */
+    public static TagQuery compile(Tags tags) {
+        return new TagQuery(tags);
+    }
+
+    /**
+     * Returns whether the given value of a run tags option is a tag expression, rather than a comma separated list of
+     * tags. A value is an expression if it contains any operator other than a comma, as recognised by the same
+     * tokenizer that parses expressions, so tags such as {@code not-slow} are not mistaken for operators.
+     *
+     * @param tags The value of a run tags option.
+     * @return {@code true} if the value should be passed to {@link Tags#expression(String)}.
+     */
+    public static boolean isExpression(String tags) {
+        return TagExpressionParser.isExpression(tags);
+    }
+
+    /**
+     * Whether every test will match this query, regardless of its tags.
+     *
+     * @return {@code true} if there is nothing to filter on.
+     */
+    public boolean matchesEverything() {
+        return matchesEverything;
+    }
+
+    /**
+     * Creates an empty bitset, suitable for the root of a tree or for use as a scratch bitset.
+     *
+     * @return A new bitset with no tags set.
+     */
+    public long[] newTagSet() {
+        return new long[Math.max(1, (ids.size() + Long.SIZE - 1) >>> ADDRESS_BITS_PER_WORD)];
+    }
+
+    /**
+     * Computes the tags of a block from the tags of its parent and the block's own options.
+     *
+     * @param parentTags The bitset of the parent block.
+     * @param options The options of the block.
+     * @return The bitset of the block. This is {@code parentTags} itself if the block adds no relevant tags.
+     */
+    public long[] inherit(long[] parentTags, Options options) {
+        long[] tags = parentTags;
+        for (String tag : getTags(options)) {
+            Integer id = ids.get(tag);
+            if (id != null && !isSet(tags, id)) {
+                if (tags == parentTags) {
+                    tags = parentTags.clone();
+                }
+                set(tags, id);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Whether a test matches this query.
+     *
+     * @param blockTags The bitset of the block containing the test.
+     * @param options The options of the test.
+     * @param scratch A bitset of the same size as {@code blockTags} which may be overwritten.
+     * @return {@code true} if the test should be run.
+     */
+    public boolean matches(long[] blockTags, Options options, long[] scratch) {
+        Set<String> testTags = getTags(options);
+        if (testTags.isEmpty()) {
+            return predicate.matches(blockTags);
+        }
+        System.arraycopy(blockTags, 0, scratch, 0, blockTags.length);
+        for (String tag : testTags) {
+            Integer id = ids.get(tag);
+            if (id != null) {
+                set(scratch, id);
+            }
+        }
+        return predicate.matches(scratch);
+    }
+
+    /**
+     * Whether a bitset of tags matches this query.
+     *
+     * @param tags The bitset of a test, including the tags that it inherits from its blocks.
+     * @return {@code true} if the test should be run.
+     */
+    public boolean matches(long[] tags) {
+        return predicate.matches(tags);
+    }
+
+    /**
+     * Computes the bitsets of the distinct sets of options of a compact tree, from the tree's own bitsets of all of
+     * its tags.
+     *
+     * @param tree The compact tree.
+     * @return The bitset of each set of options, by index, or null where the options have no tags that this query
+     *     refers to.
+     */
+    public long[][] getTagSets(CompactTestTree tree) {
+        int[] queryIds = new int[tree.getTagCount()];
+        for (int tag = 0; tag < queryIds.length; tag++) {
+            Integer id = ids.get(tree.getTag(tag));
+            queryIds[tag] = id == null ? -1 : id;
+        }
+        long[][] tagSets = new long[tree.getOptionsCount()][];
+        for (int options = 0; options < tagSets.length; options++) {
+            for (int tag = 0; tag < queryIds.length; tag++) {
+                if (queryIds[tag] >= 0 && tree.hasTag(options, tag)) {
+                    if (tagSets[options] == null) {
+                        tagSets[options] = newTagSet();
+                    }
+                    set(tagSets[options], queryIds[tag]);
+                }
+            }
+        }
+        return tagSets;
+    }
+
+    private int intern(String tag) {
+        return ids.computeIfAbsent(tag, t -> ids.size());
+    }
+
+    private int[] intern(Set<String> tags) {
+        return tags.stream().mapToInt(this::intern).toArray();
+    }
+
+    private static Set<String> getTags(Options options) {
+        return options.getOrDefault(TagsOption.class, Collections.emptySet());
+    }
+
+    private static boolean isSet(long[] tags, int id) {
+        return (tags[id >>> ADDRESS_BITS_PER_WORD] & (1L << id)) != 0;
+    }
+
+    private static void set(long[] tags, int id) {
+        tags[id >>> ADDRESS_BITS_PER_WORD] |= 1L << id;
+    }
+
+    static TagPredicate tag(int id) {
+        return t -> isSet(t, id);
+    }
+
+    static TagPredicate anyOf(int[] ids) {
+        return t -> {
+            for (int id : ids) {
+                if (isSet(t, id)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    static TagPredicate and(TagPredicate a, TagPredicate b) {
+        return t -> a.matches(t) && b.matches(t);
+    }
+
+    static TagPredicate or(TagPredicate a, TagPredicate b) {
+        return t -> a.matches(t) || b.matches(t);
+    }
+
+    static TagPredicate not(TagPredicate a) {
+        return t -> !a.matches(t);
+    }
+
+    /**
+     * A boolean function of a tag bitset.
+     */
+    @FunctionalInterface
+    interface TagPredicate {
+        boolean matches(long[] tags);
+    }
+}
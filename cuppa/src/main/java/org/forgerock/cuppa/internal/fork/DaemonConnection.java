@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * A session with a {@link DaemonServer}, as seen from the client. Test classes are run in the session one at a time.
+ */
+public final class DaemonConnection implements Worker {
+    private final Socket socket;
+    private final WorkerChannel channel;
+
+    /**
+     * Connects to a daemon and starts a session.
+     *
+     * @param address The address that the daemon listens on.
+     * @param token The token that the daemon wrote to its token file, see {@link DaemonServer#readToken(Path)}.
+     * @param classPath The directories and jars, as paths on the daemon's machine, that hold the test classes and any
+     *     libraries that are not on the daemon's own class path.
+     * @param runTags Tags to filter the tests on.
+     * @param selection The selection of tests to run, if any.
+     * @throws IOException If the daemon cannot be reached.
+     */
+    public DaemonConnection(InetSocketAddress address, String token, List<String> classPath, Tags runTags,
+            Optional<TestSelection> selection) throws IOException {
+        socket = new Socket(address.getAddress(), address.getPort());
+        try {
+            channel = new WorkerChannel(socket.getOutputStream(), socket.getInputStream());
+            channel.session(token, classPath);
+            channel.init(runTags, selection);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Consumer<Reporter>> run(Class<?> testClass, TestBlock rootBlock) throws IOException {
+        return channel.run(testClass, rootBlock);
+    }
+
+    /**
+     * Ends the session and closes the connection. The daemon keeps running.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.exit();
+        } catch (IOException ignored) {
+            // The daemon has already closed the connection.
+        }
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // The connection is unusable either way.
+        }
+    }
+}
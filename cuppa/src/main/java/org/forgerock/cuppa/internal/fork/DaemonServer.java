@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long-lived JVM that runs test classes for any number of clients, so that each run does not pay for starting a JVM
+ * and loading the libraries that the tests use.
+ *
+ * <p>The daemon listens on the loopback interface only. Each connection is a session, served on a thread of its own:
+ * the client first sends the class path of its test classes, and then talks to a {@link ForkedWorker} as it would to a
+ * forked JVM. The classes on the session's class path are loaded by a new class loader, which is discarded when the
+ * session ends, so that every session sees the current version of the test classes and none of the static state of
+ * earlier sessions. The class loader delegates to the daemon's own class loader first, so Cuppa and the libraries on
+ * the daemon's class path are loaded once and shared by all sessions. Use {@link DaemonConnection} to connect to a
+ * daemon.</p>
+ *
+ * <p>As a session can load and run any class, clients must prove that they run as the same user as the daemon. When
+ * it starts, the daemon writes a random token to a file that only its owner can read, by default
+ * {@code ~/.cuppa/daemon-<port>.token}, and rejects any session that does not start with that token before reading
+ * anything else from it.</p>
+ */
+public final class DaemonServer implements AutoCloseable {
+    private static final int BACKLOG = 50;
+    private static final int TOKEN_BYTES = 32;
+    private static final int MAX_CLASS_PATH_ENTRIES = 65536;
+    private static final AtomicInteger SESSION_COUNTER = new AtomicInteger();
+
+    private final ServerSocket serverSocket;
+    private final byte[] token;
+    private final Path tokenFile;
+
+    /**
+     * Creates a daemon that listens on a port of the loopback interface and writes its token to the default token
+     * file for that port. Connections are not accepted until {@link #serve()} is called.
+     *
+     * @param port The port to listen on, or zero to use any free port.
+     * @throws IOException If the port cannot be listened on, or the token cannot be written.
+     */
+    public DaemonServer(int port) throws IOException {
+        this(port, getDefaultTokenDirectory());
+    }
+
+    /**
+     * Creates a daemon that listens on a port of the loopback interface and writes its token to a file in the given
+     * directory. Connections are not accepted until {@link #serve()} is called.
+     *
+     * @param port The port to listen on, or zero to use any free port.
+     * @param tokenDirectory The directory to write the token file to. It is created if it does not exist.
+     * @throws IOException If the port cannot be listened on, or the token cannot be written.
+     */
+    public DaemonServer(int port, Path tokenDirectory) throws IOException {
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        try {
+            byte[] randomBytes = new byte[TOKEN_BYTES];
+            new SecureRandom().nextBytes(randomBytes);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : randomBytes) {
+                hex.append(String.format("%02x", b));
+            }
+            token = hex.toString().getBytes(UTF_8);
+            tokenFile = tokenDirectory.resolve(getTokenFileName(getPort()));
+            writeTokenFile(tokenDirectory, tokenFile, token);
+        } catch (IOException | RuntimeException e) {
+            serverSocket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a daemon until the JVM is stopped.
+     *
+     * @param args The port to listen on. Defaults to any free port. The port and the token file are printed to
+     *     standard output once the daemon is listening.
+     * @throws IOException If the port cannot be listened on.
+     */
+    public static void main(String[] args) throws IOException { // @Checkstyle:ignore
+        try (DaemonServer server = new DaemonServer(args.length > 0 ? Integer.parseInt(args[0]) : 0)) {
+            System.out.println("Cuppa daemon listening on port " + server.getPort() + ", with its token in "
+                    + server.getTokenFile());
+            server.serve();
+        }
+    }
+
+    /**
+     * Get the token file that a daemon listening on the given port writes by default.
+     *
+     * @param port The port that the daemon listens on.
+     * @return The path of the token file.
+     */
+    public static Path getDefaultTokenFile(int port) {
+        return getDefaultTokenDirectory().resolve(getTokenFileName(port));
+    }
+
+    /**
+     * Reads the token that a client must send to start a session.
+     *
+     * @param tokenFile The token file written by the daemon.
+     * @return The token.
+     * @throws IOException If the token file cannot be read.
+     */
+    public static String readToken(Path tokenFile) throws IOException {
+        return new String(Files.readAllBytes(tokenFile), UTF_8).trim();
+    }
+
+    /**
+     * Get the file that the daemon wrote its token to.
+     *
+     * @return The path of the token file.
+     */
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Get the port that the daemon listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections, and serves each on a new thread, until the daemon is closed.
+     *
+     * @throws IOException If a connection cannot be accepted.
+     */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            Thread session = new Thread(() -> serveSession(socket, token),
+                    "cuppa-daemon-session-" + SESSION_COUNTER.incrementAndGet());
+            session.setDaemon(true);
+            session.start();
+        }
+    }
+
+    /**
+     * Stops accepting connections and deletes the token file. Sessions that have already started are served until
+     * their clients exit.
+     *
+     * @throws IOException If the server socket cannot be closed or the token file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            serverSocket.close();
+        } finally {
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+
+    private static Path getDefaultTokenDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".cuppa");
+    }
+
+    private static String getTokenFileName(int port) {
+        return "daemon-" + port + ".token";
+    }
+
+    /**
+     * Writes the token to a new file that only the owner can read and write, replacing the file of an earlier daemon
+     * that listened on the same port. The permissions are set when the file is created, so the token is never
+     * readable by other users, on file systems that support POSIX permissions.
+     */
+    private static void writeTokenFile(Path tokenDirectory, Path tokenFile, byte[] token) throws IOException {
+        Files.createDirectories(tokenDirectory);
+        Files.deleteIfExists(tokenFile);
+        if (tokenDirectory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(
+                    EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+        } else {
+            Files.createFile(tokenFile);
+        }
+        Files.write(tokenFile, token);
+    }
+
+    private static void serveSession(Socket socket, byte[] token) {
+        try (Socket s = socket) {
+            EventDecoder commands = new EventDecoder(s.getInputStream());
+            EventEncoder events = new EventEncoder(s.getOutputStream());
+            try (URLClassLoader classLoader = new URLClassLoader(readClassPath(commands, token),
+                    DaemonServer.class.getClassLoader())) {
+                Thread.currentThread().setContextClassLoader(classLoader);
+                new ForkedWorker(commands, events, classLoader).serve();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Cuppa daemon session " + Thread.currentThread().getName() + " failed");
+            e.printStackTrace();
+        }
+    }
+
+    private static URL[] readClassPath(EventDecoder commands, byte[] token) throws IOException {
+        if (commands.readByte() != Protocol.SESSION) {
+            throw new IOException("Expected session to start with its token and class path");
+        }
+        if (!MessageDigest.isEqual(commands.readString().getBytes(UTF_8), token)) {
+            throw new IOException("Rejected session with a missing or wrong token");
+        }
+        URL[] urls = new URL[commands.readCount(MAX_CLASS_PATH_ENTRIES)];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = toUrl(commands.readString());
+        }
+        return urls;
+    }
+
+    private static URL toUrl(String classPathEntry) throws MalformedURLException {
+        return Paths.get(classPathEntry).toUri().toURL();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.forgerock.cuppa.CuppaException;
+
+/**
+ * Reads the fields of protocol frames written by an {@link EventEncoder}.
+ */
+final class EventDecoder {
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7f;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int VARINT_MAX_SHIFT = 28;
+    /** The maximum length of the bytes of a string or throwable, which is far more than any legitimate frame. */
+    private static final int MAX_BYTES_LENGTH = 64 * 1024 * 1024;
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+
+    EventDecoder(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    long readLong() throws IOException {
+        return in.readLong();
+    }
+
+    int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift <= VARINT_MAX_SHIFT; shift += VARINT_PAYLOAD_BITS) {
+            int b = in.readUnsignedByte();
+            value |= (b & VARINT_PAYLOAD_MASK) << shift;
+            if ((b & VARINT_CONTINUATION) == 0) {
+                if (value < 0) {
+                    throw new IOException("Variable length integer out of range");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    /**
+     * Reads a count or length written by {@link EventEncoder#writeVarInt(int)}. It is checked against the maximum
+     * before anything is allocated for it, so a corrupt stream cannot exhaust the memory of the reader.
+     */
+    int readCount(int max) throws IOException {
+        int count = readVarInt();
+        if (count > max) {
+            throw new IOException("Count " + count + " is more than the maximum of " + max);
+        }
+        return count;
+    }
+
+    /**
+     * Reads an enum constant written by {@link EventEncoder#writeEnum(Enum)}. An ordinal that does not belong to the
+     * enum, as sent by a corrupt stream or a worker with a different version of Cuppa, is a protocol error.
+     */
+    <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+        int ordinal = readVarInt();
+        E[] values = type.getEnumConstants();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Unknown " + type.getSimpleName() + " " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    String readString() throws IOException {
+        int index = readVarInt();
+        if (index > 0) {
+            if (index > strings.size()) {
+                throw new IOException("Reference to unknown string " + index);
+            }
+            return strings.get(index - 1);
+        }
+        byte[] bytes = new byte[readCount(MAX_BYTES_LENGTH)];
+        in.readFully(bytes);
+        String value = new String(bytes, UTF_8);
+        strings.add(value);
+        return value;
+    }
+
+    Optional<String> readOptionalString() throws IOException {
+        return readBoolean() ? Optional.of(readString()) : Optional.empty();
+    }
+
+    Set<String> readStrings() throws IOException {
+        int size = readVarInt();
+        if (size == 0) {
+            return Collections.emptySet();
+        }
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    /**
+     * Reads a throwable written by {@link EventEncoder#writeThrowable(Throwable)}. If the throwable cannot be
+     * deserialized, a {@link CuppaException} describing the problem is returned in its place.
+     */
+    Throwable readThrowable() throws IOException {
+        byte[] bytes = new byte[readCount(MAX_BYTES_LENGTH)];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Throwable) objects.readObject();
+        } catch (ClassNotFoundException | ClassCastException | IOException e) {
+            return new CuppaException("Failed to decode exception from forked worker", e);
+        }
+    }
+}
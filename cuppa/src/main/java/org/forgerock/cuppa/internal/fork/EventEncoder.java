@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Writes the fields of protocol frames to a stream. Output is buffered until {@link #flush()} is called.
+ */
+final class EventEncoder {
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7f;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    EventEncoder(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    void writeByte(byte value) throws IOException {
+        out.writeByte(value);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        out.writeLong(value);
+    }
+
+    /**
+     * Writes a non-negative integer using as few bytes as possible, seven bits per byte.
+     */
+    void writeVarInt(int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+            out.writeByte((remaining & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        out.writeByte(remaining);
+    }
+
+    /**
+     * Writes an enum constant as its ordinal.
+     */
+    void writeEnum(Enum<?> value) throws IOException {
+        writeVarInt(value.ordinal());
+    }
+
+    /**
+     * Writes a string. The first time a string is written, it is sent in full as a zero followed by its UTF-8 length
+     * and bytes and assigned the next index. Subsequent writes of an equal string send only the index plus one.
+     */
+    void writeString(String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarInt(index + 1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarInt(0);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+            strings.put(value, strings.size());
+        }
+    }
+
+    void writeOptionalString(Optional<String> value) throws IOException {
+        writeBoolean(value.isPresent());
+        if (value.isPresent()) {
+            writeString(value.get());
+        }
+    }
+
+    void writeStrings(Set<String> values) throws IOException {
+        writeVarInt(values.size());
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    /**
+     * Writes a throwable using Java serialization. Throwables that cannot be serialized are replaced with a
+     * {@link RemoteTestException} that carries their type, message and stack trace.
+     */
+    void writeThrowable(Throwable throwable) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = serialize(throwable);
+        } catch (IOException e) {
+            bytes = serialize(new RemoteTestException(throwable));
+        }
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private static byte[] serialize(Throwable throwable) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(throwable);
+        }
+        return bytes.toByteArray();
+    }
+}
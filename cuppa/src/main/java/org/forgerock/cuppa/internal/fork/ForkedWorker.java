@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.forgerock.cuppa.Runner;
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * The entry point of a forked worker JVM. A worker reads commands from its standard input and runs the requested test
+ * classes one at a time, streaming reporter events back to the parent on its standard output. Anything the tests
+ * themselves print to standard output is redirected to standard error.
+ *
+ * <p>The same loop serves each session of a {@link DaemonServer}, with the test classes loaded by a class loader of
+ * the session's own.</p>
+ */
+public final class ForkedWorker {
+    private final EventDecoder commands;
+    private final EventEncoder events;
+    private final ClassLoader classLoader;
+
+    ForkedWorker(InputStream commands, OutputStream events) {
+        this(new EventDecoder(commands), new EventEncoder(events), ForkedWorker.class.getClassLoader());
+    }
+
+    /**
+     * Creates a worker that continues a conversation already started on the given streams.
+     *
+     * @param commands The decoder to read commands with.
+     * @param events The encoder to write events with.
+     * @param classLoader The class loader to load test classes, and the configuration provider, with.
+     */
+    ForkedWorker(EventDecoder commands, EventEncoder events, ClassLoader classLoader) {
+        this.commands = commands;
+        this.events = events;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Runs a worker on the standard streams of this JVM and exits once the parent sends no more work.
+     *
+     * @param args Unused.
+     * @throws IOException If communication with the parent fails.
+     */
+    public static void main(String[] args) throws IOException { // @Checkstyle:ignore
+        PrintStream protocolOut = System.out;
+        System.setOut(System.err);
+        new ForkedWorker(System.in, protocolOut).serve();
+        System.exit(0);
+    }
+
+    void serve() throws IOException {
+        if (commands.readByte() != Protocol.INIT) {
+            throw new IOException("Expected worker to be initialised by the parent");
+        }
+        Runner runner = new Runner(new Tags(commands.readStrings(), commands.readStrings(),
+                commands.readOptionalString()), classLoader);
+        Function<TestBlock, TestBlock> selection = readSelection();
+        Reporter reporter = new StreamingReporter(events);
+        for (byte command = commands.readByte(); command != Protocol.EXIT; command = commands.readByte()) {
+            if (command != Protocol.RUN) {
+                throw new IOException("Unknown command " + command);
+            }
+            runTestClass(runner, selection, commands.readString(), reporter);
+            events.flush();
+        }
+    }
+
+    private Function<TestBlock, TestBlock> readSelection() throws IOException {
+        if (!commands.readBoolean()) {
+            return Function.identity();
+        }
+        List<String> selectors = new ArrayList<>();
+        for (int i = commands.readVarInt(); i > 0; i--) {
+            selectors.add(commands.readString());
+        }
+        return TestSelection.of(selectors);
+    }
+
+    private void runTestClass(Runner runner, Function<TestBlock, TestBlock> selection, String className,
+            Reporter reporter) throws IOException {
+        try {
+            Class<?> testClass = Class.forName(className, true, classLoader);
+            runner.run(selection.apply(runner.defineTests(Collections.singletonList(testClass))), reporter);
+            events.writeByte(Protocol.CLASS_END);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (ClassNotFoundException | RuntimeException | LinkageError e) {
+            events.writeByte(Protocol.CLASS_ERROR);
+            events.writeThrowable(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+/**
+ * Frame types of the binary protocol spoken between a {@code ForkedRunner} and its {@link ForkedWorker}s.
+ *
+ * <p>Each frame is a single type byte followed by the fields of that frame. Commands are sent from the parent to a
+ * worker on the worker's standard input and events are sent back on its standard output, or both are sent over a
+ * socket connected to a {@link DaemonServer}. Strings are sent once per stream and afterwards referred to by their
+ * index, see {@link EventEncoder#writeString(String)}.</p>
+ */
+final class Protocol {
+    /**
+     * Parent to worker: the run tags, as their sets and optional expression, followed by the optional test selection,
+     * as a count followed by that many selectors.
+     */
+    static final byte INIT = 1;
+    /** Parent to worker: define and run the tests in the named class. */
+    static final byte RUN = 2;
+    /** Parent to worker: no more work, exit. */
+    static final byte EXIT = 3;
+    /**
+     * Parent to daemon: the token of the daemon, followed by the class path to load test classes from, as a count
+     * followed by that many strings. Sent once, before {@link #INIT}.
+     */
+    static final byte SESSION = 4;
+
+    /** Worker to parent: a test block has started. Followed by its id, type, behaviour, description and tags. */
+    static final byte BLOCK_START = 10;
+    /** Worker to parent: the innermost started test block has ended. */
+    static final byte BLOCK_END = 11;
+    /** Worker to parent: a hook failed. Followed by its id, type, description, parent count and cause. */
+    static final byte HOOK_FAIL = 12;
+    /**
+     * Worker to parent: makes a test current for the test events that follow. Followed by its id, behaviour,
+     * description, whether it has a function and tags.
+     */
+    static final byte TEST = 13;
+    /** Worker to parent: the current test has started. */
+    static final byte TEST_START = 14;
+    /** Worker to parent: the current test has passed. */
+    static final byte TEST_PASS = 15;
+    /** Worker to parent: the current test has failed. Followed by the cause. */
+    static final byte TEST_FAIL = 16;
+    /** Worker to parent: the current test has ended. */
+    static final byte TEST_END = 17;
+    /** Worker to parent: the current test is pending. */
+    static final byte TEST_PENDING = 18;
+    /** Worker to parent: the current test was skipped. */
+    static final byte TEST_SKIP = 19;
+    /** Worker to parent: all tests of the requested class have been run. */
+    static final byte CLASS_END = 20;
+    /** Worker to parent: the requested class could not be defined or run. Followed by the cause. */
+    static final byte CLASS_ERROR = 21;
+
+    private Protocol() {
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.forgerock.cuppa.CuppaException;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.model.Behaviour;
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.HookType;
+import org.forgerock.cuppa.model.Options;
+import org.forgerock.cuppa.model.TagsOption;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.model.TestBlockType;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Decodes the events sent by a {@link ForkedWorker} for a single test class into reporter calls, rebuilding the test
+ * blocks, tests and hooks they refer to. The rebuilt model objects have the ids, descriptions, behaviours and tags of
+ * the originals, but no nested blocks or hooks, and their functions cannot be run.
+ */
+final class RemoteEventReader {
+    private static final TestFunction FORKED_TEST_FUNCTION = () -> {
+        throw new CuppaException("Test was defined in a forked worker and cannot be run in this JVM");
+    };
+    private static final Map<Byte, TestEvent> TEST_EVENTS = new HashMap<>();
+
+    static {
+        TEST_EVENTS.put(Protocol.TEST_START, Reporter::testStart);
+        TEST_EVENTS.put(Protocol.TEST_PASS, Reporter::testPass);
+        TEST_EVENTS.put(Protocol.TEST_END, Reporter::testEnd);
+        TEST_EVENTS.put(Protocol.TEST_PENDING, Reporter::testPending);
+        TEST_EVENTS.put(Protocol.TEST_SKIP, Reporter::testSkip);
+    }
+
+    private final EventDecoder events;
+    private final Class<?> testClass;
+    private final List<TestBlock> blocks = new ArrayList<>();
+    private Test currentTest;
+
+    RemoteEventReader(EventDecoder events, Class<?> testClass, TestBlock rootBlock) {
+        this.events = events;
+        this.testClass = testClass;
+        blocks.add(rootBlock);
+    }
+
+    /**
+     * Reads events until the worker has finished running the test class.
+     *
+     * @return The decoded events, in order, to be replayed against a reporter.
+     * @throws IOException If the stream is malformed or ends before the test class has finished. A
+     *     {@code CuppaException} is thrown if the worker failed to define or run the test class.
+     */
+    List<Consumer<Reporter>> readTestClass() throws IOException {
+        List<Consumer<Reporter>> replay = new ArrayList<>();
+        for (byte event = events.readByte(); event != Protocol.CLASS_END; event = events.readByte()) {
+            if (event == Protocol.CLASS_ERROR) {
+                throw new CuppaException("Failed to run tests in " + testClass.getName() + " in forked worker",
+                        events.readThrowable());
+            } else if (event == Protocol.TEST) {
+                currentTest = readTest();
+            } else {
+                replay.add(readEvent(event));
+            }
+        }
+        return replay;
+    }
+
+    private Consumer<Reporter> readEvent(byte event) throws IOException {
+        if (event == Protocol.BLOCK_START) {
+            TestBlock testBlock = readTestBlock();
+            List<TestBlock> parents = parents(blocks.size());
+            blocks.add(testBlock);
+            return r -> r.testBlockStart(testBlock, parents);
+        } else if (event == Protocol.BLOCK_END) {
+            if (blocks.size() == 1) {
+                throw new IOException("Test block ended that was never started");
+            }
+            TestBlock testBlock = blocks.remove(blocks.size() - 1);
+            List<TestBlock> parents = parents(blocks.size());
+            return r -> r.testBlockEnd(testBlock, parents);
+        } else if (event == Protocol.HOOK_FAIL) {
+            return readHookFail();
+        }
+        return readTestEvent(event);
+    }
+
+    private Consumer<Reporter> readHookFail() throws IOException {
+        Hook hook = new Hook(events.readLong(), events.readEnum(HookType.class), testClass,
+                events.readOptionalString(), () -> { });
+        int parentCount = events.readVarInt();
+        if (parentCount > blocks.size()) {
+            throw new IOException("Hook failed in a test block that was never started");
+        }
+        List<TestBlock> parents = parents(parentCount);
+        Throwable cause = events.readThrowable();
+        return r -> r.hookFail(hook, parents, cause);
+    }
+
+    private Consumer<Reporter> readTestEvent(byte event) throws IOException {
+        Test test = currentTest;
+        if (test == null) {
+            throw new IOException("Test event " + event + " sent before any test");
+        }
+        List<TestBlock> parents = parents(blocks.size());
+        if (event == Protocol.TEST_FAIL) {
+            Throwable cause = events.readThrowable();
+            return r -> r.testFail(test, parents, cause);
+        }
+        TestEvent testEvent = TEST_EVENTS.get(event);
+        if (testEvent == null) {
+            throw new IOException("Unknown event " + event);
+        }
+        return r -> testEvent.report(r, test, parents);
+    }
+
+    private TestBlock readTestBlock() throws IOException {
+        long id = events.readLong();
+        TestBlockType type = events.readEnum(TestBlockType.class);
+        Behaviour behaviour = events.readEnum(Behaviour.class);
+        String description = events.readString();
+        Options options = readOptions();
+        return new TestBlock(id, type, behaviour, testClass, description, Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(), options);
+    }
+
+    private Test readTest() throws IOException {
+        long id = events.readLong();
+        Behaviour behaviour = events.readEnum(Behaviour.class);
+        String description = events.readString();
+        Optional<TestFunction> function = events.readBoolean() ? Optional.of(FORKED_TEST_FUNCTION) : Optional.empty();
+        return new Test(id, behaviour, testClass, description, function, readOptions());
+    }
+
+    private Options readOptions() throws IOException {
+        Set<String> tags = events.readStrings();
+        if (tags.isEmpty()) {
+            return Options.EMPTY_OPTIONS;
+        }
+        Options options = new Options();
+        options.set(new TagsOption(tags));
+        return options;
+    }
+
+    private List<TestBlock> parents(int count) {
+        return Collections.unmodifiableList(new ArrayList<>(blocks.subList(0, count)));
+    }
+
+    @FunctionalInterface
+    private interface TestEvent {
+        void report(Reporter reporter, Test test, List<TestBlock> parents);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+/**
+ * Stands in for an exception thrown in a forked worker that could not be serialized. It carries the type, message
+ * and stack trace of the original exception and of its causes.
+ */
+public final class RemoteTestException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String className;
+
+    RemoteTestException(Throwable original) {
+        super(original.getMessage(), original.getCause() == null ? null : new RemoteTestException(original.getCause()));
+        this.className = original.getClass().getName();
+        setStackTrace(original.getStackTrace());
+    }
+
+    /**
+     * Get the fully qualified class name of the original exception.
+     *
+     * @return The class name.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    @Override
+    public String toString() {
+        String message = getLocalizedMessage();
+        return message == null ? className : className + ": " + message;
+    }
+}
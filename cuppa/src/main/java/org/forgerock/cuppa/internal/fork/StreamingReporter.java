@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.Options;
+import org.forgerock.cuppa.model.TagsOption;
+import org.forgerock.cuppa.model.Test;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * Encodes reporter events as protocol frames so that they can be replayed in the parent JVM. The root test block is
+ * not sent, as each class is reported under the parent's own root block.
+ */
+final class StreamingReporter implements Reporter {
+    private final EventEncoder encoder;
+    private Test currentTest;
+
+    StreamingReporter(EventEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+        if (parents.isEmpty()) {
+            return;
+        }
+        try {
+            encoder.writeByte(Protocol.BLOCK_START);
+            encoder.writeLong(testBlock.id);
+            encoder.writeEnum(testBlock.type);
+            encoder.writeEnum(testBlock.behaviour);
+            encoder.writeString(testBlock.description);
+            encoder.writeStrings(getTags(testBlock.options));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void testBlockEnd(TestBlock testBlock, List<TestBlock> parents) {
+        if (!parents.isEmpty()) {
+            write(Protocol.BLOCK_END);
+        }
+    }
+
+    @Override
+    public void hookFail(Hook hook, List<TestBlock> parents, Throwable cause) {
+        try {
+            encoder.writeByte(Protocol.HOOK_FAIL);
+            encoder.writeLong(hook.id);
+            encoder.writeEnum(hook.type);
+            encoder.writeOptionalString(hook.description);
+            encoder.writeVarInt(parents.size());
+            encoder.writeThrowable(cause);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void testStart(Test test, List<TestBlock> parents) {
+        writeTestEvent(test, Protocol.TEST_START);
+    }
+
+    @Override
+    public void testEnd(Test test, List<TestBlock> parents) {
+        writeTestEvent(test, Protocol.TEST_END);
+    }
+
+    @Override
+    public void testPass(Test test, List<TestBlock> parents) {
+        writeTestEvent(test, Protocol.TEST_PASS);
+    }
+
+    @Override
+    public void testFail(Test test, List<TestBlock> parents, Throwable cause) {
+        writeTestEvent(test, Protocol.TEST_FAIL);
+        try {
+            encoder.writeThrowable(cause);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void testPending(Test test, List<TestBlock> parents) {
+        writeTestEvent(test, Protocol.TEST_PENDING);
+    }
+
+    @Override
+    public void testSkip(Test test, List<TestBlock> parents) {
+        writeTestEvent(test, Protocol.TEST_SKIP);
+    }
+
+    private void writeTestEvent(Test test, byte event) {
+        try {
+            if (test != currentTest) {
+                encoder.writeByte(Protocol.TEST);
+                encoder.writeLong(test.id);
+                encoder.writeEnum(test.behaviour);
+                encoder.writeString(test.description);
+                encoder.writeBoolean(test.function.isPresent());
+                encoder.writeStrings(getTags(test.options));
+                currentTest = test;
+            }
+            encoder.writeByte(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(byte event) {
+        try {
+            encoder.writeByte(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Set<String> getTags(Options options) {
+        return options.getOrDefault(TagsOption.class, Collections.emptySet());
+    }
+}
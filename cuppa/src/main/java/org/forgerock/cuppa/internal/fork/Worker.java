@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * A JVM that runs test classes on behalf of this one, one at a time, and streams back the reporter events.
+ */
+public interface Worker extends AutoCloseable {
+
+    /**
+     * Runs the tests in a test class in the worker and waits for them to finish.
+     *
+     * @param testClass The test class, which must be loadable by the worker.
+     * @param rootBlock The block to report the top-level test blocks of the class under.
+     * @return The reporter events of the run, in order, to be replayed against a reporter.
+     * @throws IOException If communication with the worker fails, for example because the worker JVM exited. A
+     *     {@code CuppaException} is thrown if the worker could not define or run the test class.
+     */
+    List<Consumer<Reporter>> run(Class<?> testClass, TestBlock rootBlock) throws IOException;
+
+    /**
+     * Tells the worker that there is no more work and releases the resources used to communicate with it.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * The commands sent to a {@link ForkedWorker}, and the events read back from it, however the worker is reached.
+ */
+final class WorkerChannel {
+    private final EventEncoder commands;
+    private final EventDecoder events;
+
+    WorkerChannel(OutputStream commands, InputStream events) {
+        this.commands = new EventEncoder(commands);
+        this.events = new EventDecoder(events);
+    }
+
+    /**
+     * Sends the token and class path of a daemon session. See {@link DaemonServer}.
+     *
+     * @param token The token that the daemon wrote to its token file.
+     * @param classPath The directories and jars that hold the test classes.
+     * @throws IOException If the command could not be sent.
+     */
+    void session(String token, List<String> classPath) throws IOException {
+        commands.writeByte(Protocol.SESSION);
+        commands.writeString(token);
+        commands.writeVarInt(classPath.size());
+        for (String entry : classPath) {
+            commands.writeString(entry);
+        }
+    }
+
+    /**
+     * Initialises the worker.
+     *
+     * @param runTags Tags to filter the tests on.
+     * @param selection The selection of tests to run, if any.
+     * @throws IOException If the command could not be sent.
+     */
+    void init(Tags runTags, Optional<TestSelection> selection) throws IOException {
+        commands.writeByte(Protocol.INIT);
+        commands.writeStrings(runTags.tags);
+        commands.writeStrings(runTags.excludedTags);
+        commands.writeOptionalString(runTags.expression);
+        commands.writeBoolean(selection.isPresent());
+        if (selection.isPresent()) {
+            List<String> selectors = selection.get().getSelectors();
+            commands.writeVarInt(selectors.size());
+            for (String selector : selectors) {
+                commands.writeString(selector);
+            }
+        }
+        commands.flush();
+    }
+
+    /**
+     * Runs the tests in a test class in the worker and waits for them to finish. See {@link Worker#run}.
+     *
+     * @param testClass The test class.
+     * @param rootBlock The block to report the top-level test blocks of the class under.
+     * @return The reporter events of the run.
+     * @throws IOException If communication with the worker fails.
+     */
+    List<Consumer<Reporter>> run(Class<?> testClass, TestBlock rootBlock) throws IOException {
+        commands.writeByte(Protocol.RUN);
+        commands.writeString(testClass.getName());
+        commands.flush();
+        return new RemoteEventReader(events, testClass, rootBlock).readTestClass();
+    }
+
+    /**
+     * Tells the worker that there is no more work.
+     *
+     * @throws IOException If the command could not be sent.
+     */
+    void exit() throws IOException {
+        commands.writeByte(Protocol.EXIT);
+        commands.flush();
+    }
+}
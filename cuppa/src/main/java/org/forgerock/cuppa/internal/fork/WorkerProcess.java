@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+
+/**
+ * A forked worker JVM, as seen from the parent. Test classes are run in the worker one at a time.
+ */
+public final class WorkerProcess implements Worker {
+    private static final long EXIT_TIMEOUT_SECONDS = 10;
+
+    private final Process process;
+    private final WorkerChannel channel;
+
+    /**
+     * Starts a worker JVM.
+     *
+     * @param javaCommand The command, and its arguments, that starts a JVM with the test classes on its classpath. The
+     *     worker's main class is appended to it.
+     * @param runTags Tags to filter the tests on.
+     * @param selection The selection of tests to run, if any.
+     * @throws IOException If the JVM cannot be started.
+     */
+    public WorkerProcess(List<String> javaCommand, Tags runTags, Optional<TestSelection> selection)
+            throws IOException {
+        List<String> command = new ArrayList<>(javaCommand);
+        command.add(ForkedWorker.class.getName());
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        channel = new WorkerChannel(process.getOutputStream(), process.getInputStream());
+        channel.init(runTags, selection);
+    }
+
+    @Override
+    public List<Consumer<Reporter>> run(Class<?> testClass, TestBlock rootBlock) throws IOException {
+        return channel.run(testClass, rootBlock);
+    }
+
+    /**
+     * Asks the worker to exit and waits for it to do so, killing it if it does not exit in time.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.exit();
+            if (!process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+}
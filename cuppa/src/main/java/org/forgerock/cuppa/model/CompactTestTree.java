@@ -0,0 +1,465 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.forgerock.cuppa.functions.TestFunction;
+
+/**
+ * A compact, read-only form of a test tree, held as parallel arrays rather than as a {@link TestBlock} object per
+ * block and a {@link Test} object per test.
+ *
+ * <p>Test blocks are numbered depth first, so a block comes before all of its descendants, and the root block is
+ * block zero. The descendants of block {@code b} are the blocks from {@code b + 1} up to, but not including,
+ * {@link #getTestBlockEnd(int)}. Tests are numbered in the order of their blocks, so the tests of block {@code b} are
+ * the tests from {@link #getTestsStart(int)} up to, but not including, {@link #getTestsEnd(int)}. For each block and
+ * test, the tree holds the index of its parent block, its ID, its behaviour, and indices into tables of the distinct
+ * descriptions, test classes and options in the tree. The tags of each distinct set of options are held as a bitset
+ * over the distinct tags in the tree.</p>
+ *
+ * <p>{@link TestBlock} and {@link Test} objects are only created when a block or test is viewed, with
+ * {@link #getTestBlock(int)}, {@link #getTest(int)} or {@link #toTestBlock()}, and are not retained by the tree. The
+ * hooks of each block, and the function of each test, are kept as they are.</p>
+ */
+public final class CompactTestTree {
+    private static final Behaviour[] BEHAVIOURS = Behaviour.values();
+    private static final TestBlockType[] TEST_BLOCK_TYPES = TestBlockType.values();
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    final Tables tables;
+
+    final long[] blockIds;
+    final int[] blockParents;
+    final int[] blockEnds;
+    final byte[] blockTypes;
+    final byte[] blockBehaviours;
+    final int[] blockDescriptions;
+    final int[] blockClasses;
+    final int[] blockOptions;
+    final int[] blockTestsStarts;
+    final List<List<Hook>> blockHooks;
+
+    final long[] testIds;
+    final int[] testParents;
+    final byte[] testBehaviours;
+    final int[] testDescriptions;
+    final int[] testClasses;
+    final int[] testOptions;
+    final TestFunction[] testFunctions;
+
+    CompactTestTree(Tables tables, int blockCount, int testCount) {
+        this.tables = tables;
+        blockIds = new long[blockCount];
+        blockParents = new int[blockCount];
+        blockEnds = new int[blockCount];
+        blockTypes = new byte[blockCount];
+        blockBehaviours = new byte[blockCount];
+        blockDescriptions = new int[blockCount];
+        blockClasses = new int[blockCount];
+        blockOptions = new int[blockCount];
+        blockTestsStarts = new int[blockCount + 1];
+        blockHooks = new ArrayList<>(Collections.nCopies(blockCount, null));
+        testIds = new long[testCount];
+        testParents = new int[testCount];
+        testBehaviours = new byte[testCount];
+        testDescriptions = new int[testCount];
+        testClasses = new int[testCount];
+        testOptions = new int[testCount];
+        testFunctions = new TestFunction[testCount];
+    }
+
+    /**
+     * Creates a compact form of the given test tree.
+     *
+     * @param rootBlock The root test block.
+     * @return The compact tree.
+     */
+    public static CompactTestTree of(TestBlock rootBlock) {
+        int[] counts = new int[2];
+        rootBlock.accept(new TestTreeVisitor() {
+            @Override
+            public boolean visitTestBlock(TestBlock testBlock, int depth) {
+                counts[0]++;
+                counts[1] += testBlock.tests.size();
+                return true;
+            }
+        });
+        TestTreeCompactor compactor = new TestTreeCompactor(counts[0], counts[1]);
+        rootBlock.accept(compactor);
+        return compactor.finish();
+    }
+
+    /**
+     * Get the number of test blocks, including the root block.
+     *
+     * @return The number of test blocks.
+     */
+    public int getTestBlockCount() {
+        return blockIds.length;
+    }
+
+    /**
+     * Get the number of tests.
+     *
+     * @return The number of tests.
+     */
+    public int getTestCount() {
+        return testIds.length;
+    }
+
+    /**
+     * Get the ID of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The ID.
+     */
+    public long getTestBlockId(int testBlock) {
+        return blockIds[testBlock];
+    }
+
+    /**
+     * Get the parent of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The index of the parent test block, or -1 for the root block.
+     */
+    public int getTestBlockParent(int testBlock) {
+        return blockParents[testBlock];
+    }
+
+    /**
+     * Get the end of the descendants of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The index of the first test block after this block that is not one of its descendants, or the number of
+     *     test blocks if there is none.
+     */
+    public int getTestBlockEnd(int testBlock) {
+        return blockEnds[testBlock];
+    }
+
+    /**
+     * Get the behaviour of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The behaviour.
+     */
+    public Behaviour getTestBlockBehaviour(int testBlock) {
+        return BEHAVIOURS[blockBehaviours[testBlock]];
+    }
+
+    /**
+     * Get the description of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The description.
+     */
+    public String getTestBlockDescription(int testBlock) {
+        return tables.descriptions[blockDescriptions[testBlock]];
+    }
+
+    /**
+     * Get the options of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The index of the options, for use with {@link #getOptions(int)} and {@link #hasTag(int, int)}.
+     */
+    public int getTestBlockOptions(int testBlock) {
+        return blockOptions[testBlock];
+    }
+
+    /**
+     * Get the first test of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The index of the first test of the block. If the block has no tests, this is equal to
+     *     {@link #getTestsEnd(int)}.
+     */
+    public int getTestsStart(int testBlock) {
+        return blockTestsStarts[testBlock];
+    }
+
+    /**
+     * Get the end of the tests of a test block.
+     *
+     * @param testBlock The index of the test block.
+     * @return The index after the last test of the block.
+     */
+    public int getTestsEnd(int testBlock) {
+        return blockTestsStarts[testBlock + 1];
+    }
+
+    /**
+     * Get the ID of a test.
+     *
+     * @param test The index of the test.
+     * @return The ID.
+     */
+    public long getTestId(int test) {
+        return testIds[test];
+    }
+
+    /**
+     * Get the test block that a test belongs to.
+     *
+     * @param test The index of the test.
+     * @return The index of the test block.
+     */
+    public int getTestParent(int test) {
+        return testParents[test];
+    }
+
+    /**
+     * Get the behaviour of a test.
+     *
+     * @param test The index of the test.
+     * @return The behaviour.
+     */
+    public Behaviour getTestBehaviour(int test) {
+        return BEHAVIOURS[testBehaviours[test]];
+    }
+
+    /**
+     * Get the description of a test.
+     *
+     * @param test The index of the test.
+     * @return The description.
+     */
+    public String getTestDescription(int test) {
+        return tables.descriptions[testDescriptions[test]];
+    }
+
+    /**
+     * Get the options of a test.
+     *
+     * @param test The index of the test.
+     * @return The index of the options, for use with {@link #getOptions(int)} and {@link #hasTag(int, int)}.
+     */
+    public int getTestOptions(int test) {
+        return testOptions[test];
+    }
+
+    /**
+     * Get the number of distinct sets of options in the tree.
+     *
+     * @return The number of sets of options.
+     */
+    public int getOptionsCount() {
+        return tables.options.length;
+    }
+
+    /**
+     * Get a set of options.
+     *
+     * @param options The index of the options.
+     * @return The options, which are immutable.
+     */
+    public Options getOptions(int options) {
+        return tables.options[options];
+    }
+
+    /**
+     * Get the number of distinct tags in the tree.
+     *
+     * @return The number of tags.
+     */
+    public int getTagCount() {
+        return tables.tags.length;
+    }
+
+    /**
+     * Get the name of a tag.
+     *
+     * @param tag The index of the tag.
+     * @return The name of the tag.
+     */
+    public String getTag(int tag) {
+        return tables.tags[tag];
+    }
+
+    /**
+     * Whether a set of options has a tag. Only the tags of the options themselves are considered, not the tags
+     * inherited from parent test blocks.
+     *
+     * @param options The index of the options.
+     * @param tag The index of the tag.
+     * @return {@code true} if the options have the tag.
+     */
+    public boolean hasTag(int options, int tag) {
+        long word = tables.optionTags[options * tables.tagWords + (tag >>> ADDRESS_BITS_PER_WORD)];
+        return (word & (1L << tag)) != 0;
+    }
+
+    /**
+     * Creates a view of a test. The test is created on each call.
+     *
+     * @param test The index of the test.
+     * @return The test.
+     */
+    public Test getTest(int test) {
+        return new Test(testIds[test], BEHAVIOURS[testBehaviours[test]], tables.classes[testClasses[test]],
+                tables.descriptions[testDescriptions[test]], Optional.ofNullable(testFunctions[test]),
+                tables.options[testOptions[test]]);
+    }
+
+    /**
+     * Creates a view of a test block, with all of its hooks, tests and nested test blocks. The blocks and tests are
+     * created on each call, from the deepest blocks up, so the depth of the tree is not limited by the stack.
+     *
+     * @param testBlock The index of the test block.
+     * @return The test block.
+     */
+    public TestBlock getTestBlock(int testBlock) {
+        int end = blockEnds[testBlock];
+        TestBlock[] built = new TestBlock[end - testBlock];
+        List<TestBlock> children = new ArrayList<>();
+        List<Test> tests = new ArrayList<>();
+        for (int b = end - 1; b >= testBlock; b--) {
+            children.clear();
+            for (int child = b + 1; child < blockEnds[b]; child = blockEnds[child]) {
+                children.add(built[child - testBlock]);
+            }
+            tests.clear();
+            for (int t = blockTestsStarts[b]; t < blockTestsStarts[b + 1]; t++) {
+                tests.add(getTest(t));
+            }
+            built[b - testBlock] = new TestBlock(blockIds[b], TEST_BLOCK_TYPES[blockTypes[b]],
+                    BEHAVIOURS[blockBehaviours[b]], tables.classes[blockClasses[b]],
+                    tables.descriptions[blockDescriptions[b]], children, blockHooks.get(b), tests,
+                    tables.options[blockOptions[b]]);
+        }
+        return built[0];
+    }
+
+    /**
+     * Creates a view of the whole tree. Equivalent to {@code getTestBlock(0)}.
+     *
+     * @return The root test block.
+     */
+    public TestBlock toTestBlock() {
+        return getTestBlock(0);
+    }
+
+    /**
+     * Returns a tree with only the given tests, and the test blocks that contain them. The root block is always kept.
+     * The tables of descriptions, classes, options and tags are shared with this tree.
+     *
+     * @param tests The indices of the tests to keep.
+     * @return The tree with the selected tests, or this tree if every test is selected.
+     */
+    public CompactTestTree select(BitSet tests) {
+        int testCount = tests.cardinality();
+        if (testCount == testIds.length) {
+            return this;
+        }
+        boolean[] keepBlocks = new boolean[blockIds.length];
+        keepBlocks[0] = true;
+        for (int t = tests.nextSetBit(0); t >= 0 && t < testIds.length; t = tests.nextSetBit(t + 1)) {
+            int b = testParents[t];
+            while (b >= 0 && !keepBlocks[b]) {
+                keepBlocks[b] = true;
+                b = blockParents[b];
+            }
+        }
+        int[] newIndices = new int[blockIds.length];
+        int blockCount = 0;
+        for (int b = 0; b < blockIds.length; b++) {
+            newIndices[b] = keepBlocks[b] ? blockCount++ : -1;
+        }
+        CompactTestTree selected = new CompactTestTree(tables, blockCount, testCount);
+        int t = 0;
+        for (int b = 0; b < blockIds.length; b++) {
+            if (keepBlocks[b]) {
+                int nb = newIndices[b];
+                selected.copyTestBlock(this, b, nb, b == 0 ? -1 : newIndices[blockParents[b]]);
+                selected.blockTestsStarts[nb] = t;
+                for (int test = blockTestsStarts[b]; test < blockTestsStarts[b + 1]; test++) {
+                    if (tests.get(test)) {
+                        selected.copyTest(this, test, t++, nb);
+                    }
+                }
+            }
+        }
+        selected.blockTestsStarts[blockCount] = t;
+        selected.computeBlockEnds();
+        return selected;
+    }
+
+    private void copyTestBlock(CompactTestTree from, int b, int to, int parent) {
+        blockIds[to] = from.blockIds[b];
+        blockParents[to] = parent;
+        blockTypes[to] = from.blockTypes[b];
+        blockBehaviours[to] = from.blockBehaviours[b];
+        blockDescriptions[to] = from.blockDescriptions[b];
+        blockClasses[to] = from.blockClasses[b];
+        blockOptions[to] = from.blockOptions[b];
+        blockHooks.set(to, from.blockHooks.get(b));
+    }
+
+    private void copyTest(CompactTestTree from, int t, int to, int parent) {
+        testIds[to] = from.testIds[t];
+        testParents[to] = parent;
+        testBehaviours[to] = from.testBehaviours[t];
+        testDescriptions[to] = from.testDescriptions[t];
+        testClasses[to] = from.testClasses[t];
+        testOptions[to] = from.testOptions[t];
+        testFunctions[to] = from.testFunctions[t];
+    }
+
+    void computeBlockEnds() {
+        int[] sizes = new int[blockIds.length];
+        for (int b = blockIds.length - 1; b >= 0; b--) {
+            sizes[b]++;
+            if (b > 0) {
+                sizes[blockParents[b]] += sizes[b];
+            }
+            blockEnds[b] = b + sizes[b];
+        }
+    }
+
+    /**
+     * The tables of distinct values that the blocks and tests of a tree refer to by index. Shared between a tree and
+     * the trees selected from it. The tables are set once, when the whole tree has been compacted, and are not
+     * changed after that.
+     */
+    static final class Tables {
+        private String[] descriptions;
+        private Class<?>[] classes;
+        private Options[] options;
+        private String[] tags;
+        private int tagWords;
+        private long[] optionTags;
+
+        void set(String[] descriptions, Class<?>[] classes, Options[] options, String[] tags) {
+            this.descriptions = descriptions;
+            this.classes = classes;
+            this.options = options;
+            this.tags = tags;
+            this.tagWords = Math.max(1, (tags.length + Long.SIZE - 1) >>> ADDRESS_BITS_PER_WORD);
+            this.optionTags = new long[options.length * tagWords];
+        }
+
+        void setTag(int options, int tag) {
+            optionTags[options * tagWords + (tag >>> ADDRESS_BITS_PER_WORD)] |= 1L << tag;
+        }
+    }
+}
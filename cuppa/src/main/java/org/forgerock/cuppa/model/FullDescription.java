@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.model;
+
+/**
+ * A full description of a test or test block, remembered together with the full description of the parent that it
+ * was built from. Model objects are immutable once built, so a node's full description only changes if it is
+ * reported under different parents; comparing the parent's description by identity detects that without comparing
+ * or building any strings.
+ */
+final class FullDescription {
+    private final String parentDescription;
+    private final String description;
+
+    private FullDescription(String parentDescription, String description) {
+        this.parentDescription = parentDescription;
+        this.description = description;
+    }
+
+    /**
+     * Joins a description to the full description of its parent.
+     *
+     * @param parentDescription The full description of the parent.
+     * @param description The description of the node, to be appended to its parent's.
+     * @param leadingSpace Whether to keep the leading space that joining to an empty parent description creates.
+     * @return A cache entry holding the full description.
+     */
+    static FullDescription of(String parentDescription, String description, boolean leadingSpace) {
+        String fullDescription = (parentDescription.isEmpty() && !leadingSpace)
+                ? stripLeadingWhitespace(description)
+                : parentDescription + " " + description;
+        return new FullDescription(parentDescription, fullDescription);
+    }
+
+    private static String stripLeadingWhitespace(String description) {
+        int start = 0;
+        while (start < description.length() && description.charAt(start) <= ' ') {
+            start++;
+        }
+        return description.substring(start);
+    }
+
+    /**
+     * Returns whether this entry was built from the given instance of the parent's full description.
+     *
+     * @param parentDescription The full description of the parent.
+     * @return {@code true} if the cached full description may be reused.
+     */
+    boolean isFor(String parentDescription) {
+        return this.parentDescription == parentDescription;
+    }
+
+    String get() {
+        return description;
+    }
+}
@@ -27,6 +27,11 @@ import org.forgerock.cuppa.functions.HookFunction;
  */
 public final class Hook {
 
+    /**
+     * A stable ID that uniquely identifies the hook. See {@link Ids}. IDs are not compared by {@link #equals}.
+     */
+    public final long id;
+
     /**
      * The type of the hook.
      */
@@ -48,23 +53,49 @@ public final class Hook {
     public final HookFunction function;
 
     /**
-     * Constructs a new hook.
-     *  @param type The type of the hook.
+     * Constructs a new hook with an ID derived from its class, type and description.
+     *
+     * @param type The type of the hook.
      * @param testClass The class that the hook was defined in.
      * @param description An optional description.
      * @param function A function to be executed (possibly more than once).
+     * @deprecated Derived IDs are not unique, as sibling hooks with the same type and description share an ID, so
+     *     they cannot be told apart by ID. Use {@link #Hook(long, HookType, Class, Optional, HookFunction)} with an ID
+     *     from {@link Ids}, or with the ID of the hook that is being replaced.
      */
+    @Deprecated
     public Hook(HookType type, Class<?> testClass, Optional<String> description, HookFunction function) {
+        this(defaultId(type, testClass, description), type, testClass, description, function);
+    }
+
+    /**
+     * Constructs a new hook.
+     *
+     * @param id A stable ID that uniquely identifies the hook.
+     * @param type The type of the hook.
+     * @param testClass The class that the hook was defined in.
+     * @param description An optional description.
+     * @param function A function to be executed (possibly more than once).
+     */
+    public Hook(long id, HookType type, Class<?> testClass, Optional<String> description, HookFunction function) {
         Objects.requireNonNull(type, "Hook must have a type");
         Objects.requireNonNull(testClass, "Hook must have a testClass");
         Objects.requireNonNull(description, "Hook must have a description");
         Objects.requireNonNull(function, "Hook must have a function");
+        this.id = id;
         this.type = type;
         this.testClass = testClass;
         this.description = description;
         this.function = function;
     }
 
+    private static long defaultId(HookType type, Class<?> testClass, Optional<String> description) {
+        Objects.requireNonNull(type, "Hook must have a type");
+        Objects.requireNonNull(testClass, "Hook must have a testClass");
+        Objects.requireNonNull(description, "Hook must have a description");
+        return Ids.hook(Ids.root(testClass), type, description);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -90,7 +121,8 @@ public final class Hook {
     @Override
     public String toString() {
         return "Hook{"
-            + "type=" + type
+            + "id=" + Long.toHexString(id)
+            + ", type=" + type
             + ", testClass=" + testClass
             + (description.isPresent() ? ", description='" + description.get() + '\'' : "")
             + '}';
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.model;
+
+import java.util.Optional;
+
+/**
+ * Computes the IDs of tests, test blocks and hooks.
+ *
+ * <p>An ID is a 64-bit hash of the test class, the path from the root block and the position of the object amongst
+ * siblings of the same kind with the same description. IDs are therefore stable between runs of the same tests, even
+ * if other tests are added or removed, and are unique within the tests defined by Cuppa (barring hash
+ * collisions).</p>
+ */
+public final class Ids {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+    private static final int ROOT = 'R';
+    private static final int TEST_BLOCK = 'B';
+    private static final int TEST = 'T';
+    private static final int HOOK = 'H';
+
+    private Ids() {
+    }
+
+    /**
+     * Computes the ID of the root test block of a test class.
+     *
+     * @param testClass The class that the tests were defined in.
+     * @return An ID.
+     */
+    public static long root(Class<?> testClass) {
+        return hash(FNV_OFFSET_BASIS, ROOT, testClass.getName());
+    }
+
+    /**
+     * Computes the ID of the first test block with the given description within a parent block.
+     *
+     * @param parentId The ID of the parent test block.
+     * @param type The type of the test block.
+     * @param description The description of the test block.
+     * @return An ID.
+     */
+    public static long testBlock(long parentId, TestBlockType type, String description) {
+        return hash(hash(parentId, TEST_BLOCK, type.name()), TEST_BLOCK, description);
+    }
+
+    /**
+     * Computes the ID of the first test with the given description within a parent block.
+     *
+     * @param parentId The ID of the parent test block.
+     * @param description The description of the test.
+     * @return An ID.
+     */
+    public static long test(long parentId, String description) {
+        return hash(parentId, TEST, description);
+    }
+
+    /**
+     * Computes the ID of the first hook of the given type and description within a parent block.
+     *
+     * @param parentId The ID of the parent test block.
+     * @param type The type of the hook.
+     * @param description The optional description of the hook.
+     * @return An ID.
+     */
+    public static long hook(long parentId, HookType type, Optional<String> description) {
+        return hash(hash(parentId, HOOK, type.name()), HOOK, description.orElse(""));
+    }
+
+    /**
+     * Computes the ID of a later sibling with the same kind and description as the sibling with the given ID.
+     *
+     * @param firstId The ID of the first such sibling.
+     * @param occurrence The zero-based position of the sibling amongst siblings of the same kind and description.
+     * @return An ID. This is {@code firstId} if {@code occurrence} is zero.
+     */
+    public static long occurrence(long firstId, int occurrence) {
+        return occurrence == 0 ? firstId : mix((firstId ^ occurrence) * FNV_PRIME);
+    }
+
+    private static long hash(long seed, int kind, String s) {
+        long hash = (seed ^ kind) * FNV_PRIME;
+        for (int i = 0; i < s.length(); i++) {
+            hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        long h = hash;
+        h = (h ^ (h >>> MIX_SHIFT)) * MIX_MULTIPLIER_1;
+        h = (h ^ (h >>> MIX_SHIFT)) * MIX_MULTIPLIER_2;
+        return h ^ (h >>> MIX_SHIFT);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list backed by an array. Model objects store their lists as instances of this class so that they can
+ * recognise lists that have come from other model objects and share them rather than copying them again.
+ *
+ * @param <E> The type of the elements.
+ */
+final class ImmutableList<E> extends AbstractList<E> implements RandomAccess {
+    private static final ImmutableList<Object> EMPTY = new ImmutableList<>(new Object[0]);
+
+    private final Object[] elements;
+
+    private ImmutableList(Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Returns an immutable list with the same elements as the given list. If the given list is already immutable then
+     * it is returned as is.
+     *
+     * @param list The list to copy.
+     * @param <E> The type of the elements.
+     * @return An immutable list.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> List<E> copyOf(List<? extends E> list) {
+        if (list instanceof ImmutableList) {
+            return (List<E>) list;
+        }
+        if (list.isEmpty()) {
+            return (List<E>) EMPTY;
+        }
+        return new ImmutableList<>(list.toArray());
+    }
+
+    /**
+     * Whether two lists contain the identical elements in the same order.
+     *
+     * @param a The first list.
+     * @param b The second list.
+     * @return {@code true} if the lists are the same size and each element of one is the same instance as the element
+     *     at the same position in the other.
+     */
+    static boolean sameElements(List<?> a, List<?> b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+}
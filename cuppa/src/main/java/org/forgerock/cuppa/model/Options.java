@@ -16,36 +16,52 @@
 
 package org.forgerock.cuppa.model;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Optional;
 
 /**
  * A set of options. Options allow Cuppa's data model to be extended to include additional metadata about tests and test
  * blocks.
+ *
+ * <p>Most tests and test blocks have no options, or only one or two, so options are stored in a small array rather
+ * than a map and all immutable empty sets of options share a single instance.</p>
  */
 public final class Options {
-    private final Map<Class<? extends Option>, Option> options;
+    /**
+     * An immutable empty set of options.
+     */
+    public static final Options EMPTY_OPTIONS = new Options(new Option<?>[0], true);
+
+    private Option<?>[] options;
+    private final boolean immutable;
 
     /**
      * Creates a empty mutable options set.
      */
     public Options() {
-        this(new HashMap<>());
+        this(EMPTY_OPTIONS.options, false);
     }
 
-    private Options(Map<Class<? extends Option>, Option> options) {
+    private Options(Option<?>[] options, boolean immutable) {
         this.options = options;
+        this.immutable = immutable;
     }
 
     /**
-     * Creates an immutable options set from the given options.
+     * Creates an immutable options set from the given options. If the given options are already immutable then they
+     * are returned as is.
+     *
      * @param options A set of options to copy.
      * @return An immutable set of options.
      */
     public static Options immutableCopyOf(Options options) {
-        return new Options(Collections.unmodifiableMap(new HashMap<>(options.options)));
+        if (options.immutable) {
+            return options;
+        }
+        if (options.options.length == 0) {
+            return EMPTY_OPTIONS;
+        }
+        return new Options(options.options.clone(), true);
     }
 
     /**
@@ -55,7 +71,7 @@ public final class Options {
      * @return An mutable set of options.
      */
     public static Options copyOf(Options options) {
-        return new Options(new HashMap<>(options.options));
+        return new Options(options.options.clone(), false);
     }
 
     /**
@@ -67,13 +83,31 @@ public final class Options {
      * @return An optional value.
      */
     public <V, O extends Option<V>> Optional<V> get(Class<O> optionClass) {
-        if (options.containsKey(optionClass)) {
-            O option = optionClass.cast(options.get(optionClass));
-            return Optional.of(option.get());
+        int index = indexOf(optionClass);
+        if (index >= 0) {
+            return Optional.of(optionClass.cast(options[index]).get());
         }
         return Optional.empty();
     }
 
+    /**
+     * Get the value of an option of the given type, or the given default value if no such option has been set. Unlike
+     * {@link #get(Class)}, this does not allocate.
+     *
+     * @param optionClass The class that corresponds to the option.
+     * @param defaultValue The value to return if there is no option of the given type.
+     * @param <V> The type of the value stored in the option.
+     * @param <O> The type of the option.
+     * @return The value of the option, or the default value.
+     */
+    public <V, O extends Option<V>> V getOrDefault(Class<O> optionClass, V defaultValue) {
+        int index = indexOf(optionClass);
+        if (index >= 0) {
+            return optionClass.cast(options[index]).get();
+        }
+        return defaultValue;
+    }
+
     /**
      * Set an option. If an option of the given type is already set, then it will be overwritten.
      *
@@ -82,7 +116,25 @@ public final class Options {
      * @throws UnsupportedOperationException if this class is immutable.
      */
     public <T> void set(Option<T> option) {
-        options.put(option.getClass(), option);
+        if (immutable) {
+            throw new UnsupportedOperationException("Options are immutable");
+        }
+        int index = indexOf(option.getClass());
+        if (index >= 0) {
+            options[index] = option;
+        } else {
+            options = Arrays.copyOf(options, options.length + 1);
+            options[options.length - 1] = option;
+        }
+    }
+
+    private int indexOf(Class<?> optionClass) {
+        for (int i = 0; i < options.length; i++) {
+            if (options[i].getClass() == optionClass) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Override
@@ -96,17 +148,36 @@ public final class Options {
 
         Options options1 = (Options) o;
 
-        return options.equals(options1.options);
-
+        if (options.length != options1.options.length) {
+            return false;
+        }
+        for (Option<?> option : options) {
+            int index = options1.indexOf(option.getClass());
+            if (index < 0 || !option.equals(options1.options[index])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return options.hashCode();
+        int hashCode = 0;
+        for (Option<?> option : options) {
+            hashCode += option.getClass().hashCode() ^ option.hashCode();
+        }
+        return hashCode;
     }
 
     @Override
     public String toString() {
-        return options.toString();
+        StringBuilder builder = new StringBuilder("{");
+        for (Option<?> option : options) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(option.getClass()).append('=').append(option);
+        }
+        return builder.append('}').toString();
     }
 }
@@ -17,6 +17,7 @@
 package org.forgerock.cuppa.model;
 
 import java.util.Collections;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -39,6 +40,15 @@ public class Tags {
      */
     public final Set<String> excludedTags;
 
+    /**
+     * An optional boolean expression over tags which tests must match to be included in the test run.
+     *
+     * <p>Expressions are made up of tag names combined with {@code and} (or {@code &}), {@code or} (or {@code |} or
+     * {@code ,}) and {@code not} (or {@code !}), grouped with parentheses, for example
+     * {@code "(smoke or fast) and not slow"}.</p>
+     */
+    public final Optional<String> expression;
+
     /**
      * Constructs a {@code Tags} instance with the specified tags and anti-tags (excluded tags).
      *
@@ -47,8 +57,23 @@ public class Tags {
      *     in the test run.
      */
     public Tags(Set<String> tags, Set<String> excludedTags) {
+        this(tags, excludedTags, Optional.empty());
+    }
+
+    /**
+     * Constructs a {@code Tags} instance with the specified tags, anti-tags (excluded tags) and tag expression. A test
+     * must satisfy all three to be included in the test run.
+     *
+     * @param tags The set of tags which tests must be tagged with to be included in the test run.
+     * @param excludedTags The set of excluded tags which tests must not be tagged with to be included
+     *     in the test run.
+     * @param expression An optional boolean expression over tags which tests must match to be included in the test
+     *     run.
+     */
+    public Tags(Set<String> tags, Set<String> excludedTags, Optional<String> expression) {
         this.tags = tags;
         this.excludedTags = excludedTags;
+        this.expression = expression;
     }
 
     /**
@@ -71,4 +96,15 @@ public class Tags {
     public static Tags excludedTags(Set<String> excludedTags) {
         return new Tags(Collections.emptySet(), excludedTags);
     }
+
+    /**
+     * Constructs a {@code Tags} instance with the specified tag expression.
+     *
+     * @param expression A boolean expression over tags which tests must match to be included in the test run, for
+     *     example {@code "(smoke or fast) and not slow"}.
+     * @return The {@code Tags} instance.
+     */
+    public static Tags expression(String expression) {
+        return new Tags(Collections.emptySet(), Collections.emptySet(), Optional.of(expression));
+    }
 }
@@ -26,6 +26,11 @@ import org.forgerock.cuppa.functions.TestFunction;
  */
 public final class Test {
 
+    /**
+     * A stable ID that uniquely identifies the test. See {@link Ids}. IDs are not compared by {@link #equals}.
+     */
+    public final long id;
+
     /**
      * Controls how the test behaves.
      */
@@ -51,8 +56,10 @@ public final class Test {
      */
     public final Options options;
 
+    private volatile FullDescription fullDescription;
+
     /**
-     * Constructs a new test.
+     * Constructs a new test with an ID derived from its class and description.
      *
      * @param behaviour The behaviour of the test.
      * @param testClass The class that the test was defined in.
@@ -60,13 +67,36 @@ public final class Test {
      * @param function The body of the test. If the {@link Optional} is empty the test is
      *     classified as pending.
      * @param options The set of options applied to the test.
+     * @deprecated Derived IDs are not unique, as sibling tests with the same description share an ID, so they
+     *     cannot be told apart by selection or lookup by ID. Use
+     *     {@link #Test(long, Behaviour, Class, String, Optional, Options)} with an ID from {@link Ids}, or with the ID
+     *     of the test that is being replaced.
      */
+    @Deprecated
     public Test(Behaviour behaviour, Class<?> testClass, String description, Optional<TestFunction> function,
             Options options) {
+        this(defaultId(testClass, description), behaviour, testClass, description, function, options);
+    }
+
+    /**
+     * Constructs a new test. Will convert mutable options to an immutable copy. Options that were taken from another
+     * test or test block are already immutable and are shared rather than copied.
+     *
+     * @param id A stable ID that uniquely identifies the test.
+     * @param behaviour The behaviour of the test.
+     * @param testClass The class that the test was defined in.
+     * @param description The description of the test. Will be used for reporting.
+     * @param function The body of the test. If the {@link Optional} is empty the test is
+     *     classified as pending.
+     * @param options The set of options applied to the test.
+     */
+    public Test(long id, Behaviour behaviour, Class<?> testClass, String description,
+            Optional<TestFunction> function, Options options) {
         Objects.requireNonNull(behaviour, "Test must have a behaviour");
         Objects.requireNonNull(testClass, "Test must have a testClass");
         Objects.requireNonNull(description, "Test must have a description");
         Objects.requireNonNull(function, "Test must have a function");
+        this.id = id;
         this.behaviour = behaviour;
         this.testClass = testClass;
         this.description = description;
@@ -74,6 +104,29 @@ public final class Test {
         this.options = Options.immutableCopyOf(options);
     }
 
+    /**
+     * Get the full description of this test, given the full description of its parent. The result is cached against
+     * the identity of the parent description, so reporting a tree a second time returns the same strings rather than
+     * building them again.
+     *
+     * @param parentDescription The full description of the parent block.
+     * @return The full description of this test.
+     */
+    public String getFullDescription(String parentDescription) {
+        FullDescription cached = fullDescription;
+        if (cached == null || !cached.isFor(parentDescription)) {
+            cached = FullDescription.of(parentDescription, description, true);
+            fullDescription = cached;
+        }
+        return cached.get();
+    }
+
+    private static long defaultId(Class<?> testClass, String description) {
+        Objects.requireNonNull(testClass, "Test must have a testClass");
+        Objects.requireNonNull(description, "Test must have a description");
+        return Ids.test(Ids.root(testClass), description);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -98,7 +151,8 @@ public final class Test {
     @Override
     public String toString() {
         return "Test{"
-            + "behaviour=" + behaviour
+            + "id=" + Long.toHexString(id)
+            + ", behaviour=" + behaviour
             + ", testClass=" + testClass
             + ", description='" + description + '\''
             + ", options=" + options
@@ -16,6 +16,8 @@
 
 package org.forgerock.cuppa.model;
 
+import static org.forgerock.cuppa.model.TestBlockType.WHEN;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -28,6 +30,11 @@ import java.util.stream.Collectors;
  */
 public final class TestBlock {
 
+    /**
+     * A stable ID that uniquely identifies the test block. See {@link Ids}. IDs are not compared by {@link #equals}.
+     */
+    public final long id;
+
     /**
      * The type of the test block.
      */
@@ -68,8 +75,10 @@ public final class TestBlock {
      */
     public final Options options;
 
+    private volatile FullDescription fullDescription;
+
     /**
-     * Constructs a new TestBlock. Will convert mutable lists to immutable lists.
+     * Constructs a new TestBlock with an ID derived from its class, type and description.
      *
      * @param type The type of the test block.
      * @param behaviour Controls how the test block and its descendants behave.
@@ -79,9 +88,34 @@ public final class TestBlock {
      * @param hooks Hooks associated with this test block.
      * @param tests Nested tests.
      * @param options The set of options applied to the block.
+     * @deprecated Derived IDs are not unique, as sibling test blocks with the same type and description share an ID,
+     *     so they cannot be told apart by selection or lookup by ID. Use
+     *     {@link #TestBlock(long, TestBlockType, Behaviour, Class, String, List, List, List, Options)} with an ID from
+     *     {@link Ids}, or with the ID of the test block that is being replaced.
      */
+    @Deprecated
     public TestBlock(TestBlockType type, Behaviour behaviour, Class<?> testClass, String description,
             List<TestBlock> testBlocks, List<Hook> hooks, List<Test> tests, Options options) {
+        this(defaultId(type, testClass, description), type, behaviour, testClass, description, testBlocks, hooks,
+                tests, options);
+    }
+
+    /**
+     * Constructs a new TestBlock. Will convert mutable lists and options to immutable copies. Lists and options that
+     * were taken from another test block or test are already immutable and are shared rather than copied.
+     *
+     * @param id A stable ID that uniquely identifies the test block.
+     * @param type The type of the test block.
+     * @param behaviour Controls how the test block and its descendants behave.
+     * @param testClass The class that the test block was defined in.
+     * @param description The description of the test block. Will be used for reporting.
+     * @param testBlocks Nested test blocks.
+     * @param hooks Hooks associated with this test block.
+     * @param tests Nested tests.
+     * @param options The set of options applied to the block.
+     */
+    public TestBlock(long id, TestBlockType type, Behaviour behaviour, Class<?> testClass, String description,
+            List<TestBlock> testBlocks, List<Hook> hooks, List<Test> tests, Options options) {
         Objects.requireNonNull(type, "TestBlock must have a type");
         Objects.requireNonNull(behaviour, "TestBlock must have a behaviour");
         Objects.requireNonNull(testClass, "TestBlock must have a testClass");
@@ -90,16 +124,82 @@ public final class TestBlock {
         Objects.requireNonNull(hooks, "TestBlock must have hooks");
         Objects.requireNonNull(tests, "TestBlock must have tests");
         Objects.requireNonNull(options, "TestBlock must have options");
+        this.id = id;
         this.type = type;
         this.behaviour = behaviour;
         this.testClass = testClass;
         this.description = description;
-        this.testBlocks = Collections.unmodifiableList(new ArrayList<>(testBlocks));
-        this.hooks = Collections.unmodifiableList(new ArrayList<>(hooks));
-        this.tests = Collections.unmodifiableList(new ArrayList<>(tests));
+        this.testBlocks = ImmutableList.copyOf(testBlocks);
+        this.hooks = ImmutableList.copyOf(hooks);
+        this.tests = ImmutableList.copyOf(tests);
         this.options = Options.immutableCopyOf(options);
     }
 
+    private static long defaultId(TestBlockType type, Class<?> testClass, String description) {
+        Objects.requireNonNull(type, "TestBlock must have a type");
+        Objects.requireNonNull(testClass, "TestBlock must have a testClass");
+        Objects.requireNonNull(description, "TestBlock must have a description");
+        return Ids.testBlock(Ids.root(testClass), type, description);
+    }
+
+    /**
+     * Creates a builder initialised with the properties of this test block. Use this to create a modified copy of
+     * this test block; any properties that are not changed are shared with this test block rather than copied.
+     *
+     * @return A new builder.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .setId(id)
+                .setType(type)
+                .setBehaviour(behaviour)
+                .setTestClass(testClass)
+                .setDescription(description)
+                .setTestBlocks(testBlocks)
+                .setHooks(hooks)
+                .setTests(tests)
+                .setOptions(options);
+    }
+
+    /**
+     * Returns a test block with the given nested test blocks in place of this block's nested test blocks. If the given
+     * list contains the same test block instances as this block, in the same order, then this block is returned.
+     *
+     * @param testBlocks Nested test blocks.
+     * @return A test block with the given nested test blocks.
+     */
+    public TestBlock withTestBlocks(List<TestBlock> testBlocks) {
+        return ImmutableList.sameElements(this.testBlocks, testBlocks)
+                ? this
+                : toBuilder().setTestBlocks(testBlocks).build();
+    }
+
+    /**
+     * Returns a test block with the given hooks in place of this block's hooks. If the given list contains the same
+     * hook instances as this block, in the same order, then this block is returned.
+     *
+     * @param hooks Hooks associated with the test block.
+     * @return A test block with the given hooks.
+     */
+    public TestBlock withHooks(List<Hook> hooks) {
+        return ImmutableList.sameElements(this.hooks, hooks)
+                ? this
+                : toBuilder().setHooks(hooks).build();
+    }
+
+    /**
+     * Returns a test block with the given nested tests in place of this block's nested tests. If the given list
+     * contains the same test instances as this block, in the same order, then this block is returned.
+     *
+     * @param tests Nested tests.
+     * @return A test block with the given nested tests.
+     */
+    public TestBlock withTests(List<Test> tests) {
+        return ImmutableList.sameElements(this.tests, tests)
+                ? this
+                : toBuilder().setTests(tests).build();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -129,7 +229,8 @@ public final class TestBlock {
     @Override
     public String toString() {
         return "TestBlock{"
-            + "type=" + type
+            + "id=" + Long.toHexString(id)
+            + ", type=" + type
             + ", behaviour=" + behaviour
             + ", testClass=" + testClass
             + ", description='" + description + '\''
@@ -140,6 +241,28 @@ public final class TestBlock {
             + '}';
     }
 
+    /**
+     * Get the full description of this test block, given the full description of its parent. Descriptions are joined
+     * with spaces and 'when' blocks are prefixed with "when"; leading whitespace is removed but trailing whitespace
+     * is kept, so the result should be trimmed before it is displayed.
+     *
+     * <p>The result is cached against the identity of the parent description, so reporting a tree a second time
+     * returns the same strings rather than building them again. Callers should therefore pass the string returned
+     * by the parent's {@code getFullDescription}, or {@code ""} for the root.</p>
+     *
+     * @param parentDescription The full description of the parent block, or {@code ""} if there is no parent.
+     * @return The full description of this test block.
+     */
+    public String getFullDescription(String parentDescription) {
+        FullDescription cached = fullDescription;
+        if (cached == null || !cached.isFor(parentDescription)) {
+            cached = FullDescription.of(parentDescription, (type == WHEN) ? "when " + description : description,
+                    false);
+            fullDescription = cached;
+        }
+        return cached.get();
+    }
+
     /**
      * Get all the registered hooks of the given type, in the order they were defined.
      *
@@ -151,4 +274,210 @@ public final class TestBlock {
                 .filter(h -> h.type == type)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Visits this test block and everything beneath it, depth first: each test block is followed by its hooks, its
+     * tests and then its nested test blocks. This test block is visited at depth zero.
+     *
+     * @param visitor The visitor.
+     */
+    public void accept(TestTreeVisitor visitor) {
+        accept(this, visitor, 0);
+    }
+
+    private static void accept(TestBlock testBlock, TestTreeVisitor visitor, int depth) {
+        if (visitor.visitTestBlock(testBlock, depth)) {
+            for (int i = 0; i < testBlock.hooks.size(); i++) {
+                visitor.visitHook(testBlock.hooks.get(i), testBlock, depth);
+            }
+            for (int i = 0; i < testBlock.tests.size(); i++) {
+                visitor.visitTest(testBlock.tests.get(i), testBlock, depth);
+            }
+            for (int i = 0; i < testBlock.testBlocks.size(); i++) {
+                accept(testBlock.testBlocks.get(i), visitor, depth + 1);
+            }
+        }
+        visitor.leaveTestBlock(testBlock, depth);
+    }
+
+    /**
+     * Builds {@link TestBlock}s. Lists and options that were taken from existing test blocks or tests are handed over
+     * to the new test block without being copied, so use {@link #toBuilder()} to create a modified copy of a block
+     * cheaply.
+     */
+    public static final class Builder {
+        private Long id;
+        private TestBlockType type;
+        private Behaviour behaviour = Behaviour.NORMAL;
+        private Class<?> testClass;
+        private String description;
+        private List<TestBlock> testBlocks = Collections.emptyList();
+        private List<Hook> hooks = Collections.emptyList();
+        private List<Test> tests = Collections.emptyList();
+        private Options options = Options.EMPTY_OPTIONS;
+
+        /**
+         * Sets the ID of the test block. If no ID is set then one is derived from the test class, type and description,
+         * which is not unique among sibling test blocks with the same type and description.
+         *
+         * @param id A stable ID that uniquely identifies the test block.
+         * @return This builder.
+         */
+        public Builder setId(long id) {
+            this.id = id;
+            return this;
+        }
+
+        /**
+         * Sets the type of the test block.
+         *
+         * @param type The type of the test block.
+         * @return This builder.
+         */
+        public Builder setType(TestBlockType type) {
+            this.type = type;
+            return this;
+        }
+
+        /**
+         * Sets the behaviour of the test block. Defaults to {@link Behaviour#NORMAL}.
+         *
+         * @param behaviour Controls how the test block and its descendants behave.
+         * @return This builder.
+         */
+        public Builder setBehaviour(Behaviour behaviour) {
+            this.behaviour = behaviour;
+            return this;
+        }
+
+        /**
+         * Sets the class that the test block was defined in.
+         *
+         * @param testClass The class that the test block was defined in.
+         * @return This builder.
+         */
+        public Builder setTestClass(Class<?> testClass) {
+            this.testClass = testClass;
+            return this;
+        }
+
+        /**
+         * Sets the description of the test block.
+         *
+         * @param description The description of the test block. Will be used for reporting.
+         * @return This builder.
+         */
+        public Builder setDescription(String description) {
+            this.description = description;
+            return this;
+        }
+
+        /**
+         * Sets the nested test blocks, replacing any that have already been set or added. Defaults to an empty list.
+         *
+         * @param testBlocks Nested test blocks.
+         * @return This builder.
+         */
+        public Builder setTestBlocks(List<TestBlock> testBlocks) {
+            this.testBlocks = testBlocks;
+            return this;
+        }
+
+        /**
+         * Adds a nested test block.
+         *
+         * @param testBlock A nested test block.
+         * @return This builder.
+         */
+        public Builder addTestBlock(TestBlock testBlock) {
+            testBlocks = mutable(testBlocks);
+            testBlocks.add(testBlock);
+            return this;
+        }
+
+        /**
+         * Sets the hooks, replacing any that have already been set or added. Defaults to an empty list.
+         *
+         * @param hooks Hooks associated with the test block.
+         * @return This builder.
+         */
+        public Builder setHooks(List<Hook> hooks) {
+            this.hooks = hooks;
+            return this;
+        }
+
+        /**
+         * Adds a hook.
+         *
+         * @param hook A hook associated with the test block.
+         * @return This builder.
+         */
+        public Builder addHook(Hook hook) {
+            hooks = mutable(hooks);
+            hooks.add(hook);
+            return this;
+        }
+
+        /**
+         * Sets the nested tests, replacing any that have already been set or added. Defaults to an empty list.
+         *
+         * @param tests Nested tests.
+         * @return This builder.
+         */
+        public Builder setTests(List<Test> tests) {
+            this.tests = tests;
+            return this;
+        }
+
+        /**
+         * Adds a nested test.
+         *
+         * @param test A nested test.
+         * @return This builder.
+         */
+        public Builder addTest(Test test) {
+            tests = mutable(tests);
+            tests.add(test);
+            return this;
+        }
+
+        /**
+         * Sets the options of the test block. Defaults to {@link Options#EMPTY_OPTIONS}.
+         *
+         * @param options The set of options applied to the block.
+         * @return This builder.
+         */
+        public Builder setOptions(Options options) {
+            this.options = options;
+            return this;
+        }
+
+        /**
+         * Builds the test block.
+         *
+         * @return A new test block.
+         * @throws NullPointerException If the type, test class or description have not been set.
+         */
+        public TestBlock build() {
+            if (id == null) {
+                return new TestBlock(type, behaviour, testClass, description, testBlocks, hooks, tests, options);
+            }
+            return new TestBlock(id, type, behaviour, testClass, description, testBlocks, hooks, tests, options);
+        }
+
+        private static <T> List<T> mutable(List<T> list) {
+            return list instanceof BuilderList ? list : new BuilderList<>(list);
+        }
+
+        /**
+         * A list owned by the builder, which may be added to without affecting any list that was passed to the builder.
+         */
+        private static final class BuilderList<T> extends ArrayList<T> {
+            private static final long serialVersionUID = 1L;
+
+            private BuilderList(List<T> list) {
+                super(list);
+            }
+        }
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fills in the arrays of a {@link CompactTestTree} in a single traversal, interning descriptions, classes, options and
+ * tags as they are found.
+ */
+final class TestTreeCompactor implements TestTreeVisitor {
+    private static final int INITIAL_DEPTH = 16;
+
+    private final Map<String, Integer> descriptions = new HashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+    private final Map<Options, Integer> options = new HashMap<>();
+    private final Map<String, Integer> tags = new HashMap<>();
+    private final CompactTestTree.Tables tables = new CompactTestTree.Tables();
+    private final CompactTestTree tree;
+    private int[] path = new int[INITIAL_DEPTH];
+    private int block;
+    private int test;
+
+    TestTreeCompactor(int blockCount, int testCount) {
+        this.tree = new CompactTestTree(tables, blockCount, testCount);
+    }
+
+    @Override
+    public boolean visitTestBlock(TestBlock testBlock, int depth) {
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth] = block;
+        tree.blockIds[block] = testBlock.id;
+        tree.blockParents[block] = depth == 0 ? -1 : path[depth - 1];
+        tree.blockTypes[block] = (byte) testBlock.type.ordinal();
+        tree.blockBehaviours[block] = (byte) testBlock.behaviour.ordinal();
+        tree.blockDescriptions[block] = intern(descriptions, testBlock.description);
+        tree.blockClasses[block] = intern(classes, testBlock.testClass);
+        tree.blockOptions[block] = intern(options, testBlock.options);
+        tree.blockTestsStarts[block] = test;
+        tree.blockHooks.set(block, testBlock.hooks);
+        block++;
+        return true;
+    }
+
+    @Override
+    public void visitTest(Test t, TestBlock parent, int depth) {
+        tree.testIds[test] = t.id;
+        tree.testParents[test] = path[depth];
+        tree.testBehaviours[test] = (byte) t.behaviour.ordinal();
+        tree.testDescriptions[test] = intern(descriptions, t.description);
+        tree.testClasses[test] = intern(classes, t.testClass);
+        tree.testOptions[test] = intern(options, t.options);
+        tree.testFunctions[test] = t.function.orElse(null);
+        test++;
+    }
+
+    private static <T> int intern(Map<T, Integer> table, T value) {
+        Integer index = table.get(value);
+        if (index == null) {
+            index = table.size();
+            table.put(value, index);
+        }
+        return index;
+    }
+
+    CompactTestTree finish() {
+        Options[] optionsTable = toArray(options, new Options[options.size()]);
+        for (Options o : optionsTable) {
+            for (String tag : getTags(o)) {
+                intern(tags, tag);
+            }
+        }
+        tables.set(toArray(descriptions, new String[descriptions.size()]),
+                toArray(classes, new Class<?>[classes.size()]), optionsTable,
+                toArray(tags, new String[tags.size()]));
+        for (int i = 0; i < optionsTable.length; i++) {
+            for (String tag : getTags(optionsTable[i])) {
+                tables.setTag(i, tags.get(tag));
+            }
+        }
+        tree.blockTestsStarts[block] = test;
+        tree.computeBlockEnds();
+        return tree;
+    }
+
+    private static <T> T[] toArray(Map<T, Integer> table, T[] array) {
+        table.forEach((value, index) -> array[index] = value);
+        return array;
+    }
+
+    private static Set<String> getTags(Options options) {
+        return options.getOrDefault(TagsOption.class, Collections.emptySet());
+    }
+}
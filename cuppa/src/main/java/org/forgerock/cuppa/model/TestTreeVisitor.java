@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.model;
+
+/**
+ * Visits the test blocks, hooks and tests of a test tree, depth first. See {@link TestBlock#accept(TestTreeVisitor)}.
+ *
+ * <p>The traversal itself allocates nothing: rather than a list of parents, each call is given the depth of the
+ * visited object and its immediate parent. A visitor that needs the full path can keep its own stack, pushing in
+ * {@link #visitTestBlock(TestBlock, int)} and popping in {@link #leaveTestBlock(TestBlock, int)}. All methods do
+ * nothing by default.</p>
+ */
+public interface TestTreeVisitor {
+
+    /**
+     * Called when a test block is reached, before its hooks, tests and nested test blocks.
+     *
+     * @param testBlock The test block.
+     * @param depth The depth of the test block. The block that the traversal started from has depth zero.
+     * @return {@code true} to visit the contents of the test block, or {@code false} to skip them.
+     */
+    default boolean visitTestBlock(TestBlock testBlock, int depth) {
+        return true;
+    }
+
+    /**
+     * Called for each hook of a test block, in the order they were defined.
+     *
+     * @param hook The hook.
+     * @param parent The test block that the hook belongs to.
+     * @param depth The depth of the parent test block.
+     */
+    default void visitHook(Hook hook, TestBlock parent, int depth) {
+    }
+
+    /**
+     * Called for each test of a test block, after its hooks and before its nested test blocks.
+     *
+     * @param test The test.
+     * @param parent The test block that the test belongs to.
+     * @param depth The depth of the parent test block.
+     */
+    default void visitTest(Test test, TestBlock parent, int depth) {
+    }
+
+    /**
+     * Called when the traversal leaves a test block, whether or not its contents were visited.
+     *
+     * @param testBlock The test block.
+     * @param depth The depth of the test block.
+     */
+    default void leaveTestBlock(TestBlock testBlock, int depth) {
+    }
+}
@@ -30,6 +30,11 @@ public interface Reporter {
     /**
      * Called before any tests are run.
      *
+     * <p>The root block is the one that was passed to the runner, before test tree transforms, run tags and
+     * {@link org.forgerock.cuppa.Cuppa#only()} are applied, so it may contain tests that will not be run. When a
+     * {@link org.forgerock.cuppa.model.CompactTestTree} is run without any test tree transforms, the run tags and
+     * {@code only()} have already been applied to it instead.</p>
+     *
      * @param rootBlock The root test block containing all the tests that will be run.
      */
     default void start(TestBlock rootBlock) {
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.forgerock.cuppa.Cuppa.afterEach;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.tags;
+import static org.forgerock.cuppa.Cuppa.when;
+import static org.forgerock.cuppa.Cuppa.with;
+import static org.forgerock.cuppa.TestCuppaSupport.defineTests;
+
+import org.forgerock.cuppa.functions.HookFunction;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.model.TestBlock;
+
+final class CalculatorFixture {
+
+    private CalculatorFixture() {
+    }
+
+    static TestBlock defineCalculatorTests() {
+        return defineCalculatorTests(TestFunction.identity());
+    }
+
+    static TestBlock defineCalculatorTests(TestFunction slowTest) {
+        return defineTests(() -> {
+            with(tags("maths")).
+            describe("calculator", () -> {
+                beforeEach("reset", HookFunction.identity());
+                when("adding", () -> {
+                    with(tags("fast")).
+                    it("returns the sum", TestFunction.identity());
+                });
+                when("subtracting", () -> {
+                    afterEach(HookFunction.identity());
+                    with(tags("fast")).
+                    it("returns the difference", TestFunction.identity());
+                    it("allows negative results", TestFunction.identity());
+                });
+            });
+            describe("history", () -> {
+                with(tags("slow")).
+                it("remembers results", slowTest);
+            });
+        });
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.CalculatorFixture.defineCalculatorTests;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.only;
+import static org.forgerock.cuppa.TestCuppaSupport.defineTests;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.internal.filters.CoreTestBlockFilter;
+import org.forgerock.cuppa.model.Behaviour;
+import org.forgerock.cuppa.model.CompactTestTree;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class CompactTestTreeTest {
+
+    @Test
+    public void shouldViewTheSameTreeThatItWasCreatedFrom() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests(TestFunction.identity());
+
+        //When
+        CompactTestTree tree = CompactTestTree.of(rootBlock);
+
+        //Then
+        assertThat(tree.toTestBlock()).isEqualTo(rootBlock);
+        assertThat(tree.getTestBlockCount()).isEqualTo(5);
+        assertThat(tree.getTestCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldNumberTestBlocksDepthFirstWithTheirTestsInOrder() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests(TestFunction.identity());
+
+        //When
+        CompactTestTree tree = CompactTestTree.of(rootBlock);
+
+        //Then
+        assertThat(tree.getTestBlockDescription(1)).isEqualTo("calculator");
+        assertThat(tree.getTestBlockParent(1)).isEqualTo(0);
+        assertThat(tree.getTestBlockEnd(1)).isEqualTo(4);
+        assertThat(tree.getTestBlockDescription(2)).isEqualTo("adding");
+        assertThat(tree.getTestBlockParent(2)).isEqualTo(1);
+        assertThat(tree.getTestsEnd(2) - tree.getTestsStart(2)).isEqualTo(1);
+        assertThat(tree.getTestDescription(tree.getTestsStart(3))).isEqualTo("returns the difference");
+        assertThat(tree.getTestParent(tree.getTestsStart(3))).isEqualTo(3);
+        assertThat(tree.getTestBlockDescription(4)).isEqualTo("history");
+        assertThat(tree.getTestBlockParent(4)).isEqualTo(0);
+        assertThat(tree.getTestBlock(3)).isEqualTo(TestCuppaSupport.findTestBlock(rootBlock, "subtracting"));
+    }
+
+    @DataProvider
+    public Object[][] runTags() {
+        return new Object[][]{
+            {Tags.EMPTY_TAGS},
+            {Tags.tags(singleton("fast"))},
+            {Tags.tags(singleton("maths"))},
+            {Tags.excludedTags(singleton("fast"))},
+            {Tags.expression("maths and not fast")},
+            {Tags.tags(singleton("unknown"))},
+        };
+    }
+
+    @Test(dataProvider = "runTags")
+    public void shouldFilterTheSameTestsAsTheTestBlockFilter(Tags runTags) {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests(TestFunction.identity());
+        CoreTestBlockFilter filter = new CoreTestBlockFilter(runTags);
+
+        //When
+        CompactTestTree filtered = filter.apply(CompactTestTree.of(rootBlock));
+
+        //Then
+        assertThat(filtered.toTestBlock()).isEqualTo(filter.apply(rootBlock));
+    }
+
+    @Test
+    public void shouldFilterTestsThatAreNotMarkedAsOnly() {
+
+        //Given
+        TestBlock rootBlock = defineTests(() -> {
+            describe("first", () -> {
+                it("runs", TestFunction.identity());
+                only().it("runs only this", TestFunction.identity());
+            });
+            only().describe("second", () -> {
+                it("runs too", TestFunction.identity());
+            });
+        });
+        CoreTestBlockFilter filter = new CoreTestBlockFilter(Tags.EMPTY_TAGS);
+
+        //When
+        CompactTestTree filtered = filter.apply(CompactTestTree.of(rootBlock));
+
+        //Then
+        assertThat(filtered.toTestBlock()).isEqualTo(filter.apply(rootBlock));
+        assertThat(filtered.getTestCount()).isEqualTo(2);
+        assertThat(filtered.getTestBehaviour(0)).isEqualTo(Behaviour.ONLY);
+    }
+
+    @Test
+    public void shouldReturnTheSameTreeIfNoTestsAreFiltered() {
+
+        //Given
+        CompactTestTree tree = CompactTestTree.of(defineCalculatorTests(TestFunction.identity()));
+
+        //When
+        CompactTestTree filtered = new CoreTestBlockFilter(Tags.excludedTags(singleton("unknown"))).apply(tree);
+
+        //Then
+        assertThat(filtered).isSameAs(tree);
+    }
+
+    @Test
+    public void shouldRunOnlyTheTestsThatMatchTheRunTags() throws Exception {
+
+        //Given
+        TestFunction testFunction = mock(TestFunction.class);
+        CompactTestTree tree = CompactTestTree.of(defineCalculatorTests(testFunction));
+        Reporter reporter = mock(Reporter.class);
+
+        //When
+        new Runner(Tags.tags(singleton("slow"))).run(tree, reporter);
+
+        //Then
+        verify(testFunction).apply();
+        verify(reporter).testPass(any(), anyListOf(TestBlock.class));
+        verify(reporter, never()).testFail(any(), anyListOf(TestBlock.class), any());
+    }
+}
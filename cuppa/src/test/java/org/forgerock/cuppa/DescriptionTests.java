@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.*;
+import static org.forgerock.cuppa.TestCuppaSupport.defineTests;
+import static org.forgerock.cuppa.TestCuppaSupport.findTest;
+import static org.forgerock.cuppa.TestCuppaSupport.findTestBlock;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.forgerock.cuppa.functions.HookFunction;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.internal.TestContainer;
+import org.forgerock.cuppa.model.TestBlock;
+import org.testng.annotations.Test;
+
+public class DescriptionTests {
+    @Test
+    public void shouldShareInstancesOfEqualDescriptionsWithinATestClass() {
+
+        //Given
+        long savedBefore = TestContainer.INSTANCE.getInternedDescriptionBytes();
+
+        //When
+        TestBlock rootBlock = defineTests(() -> {
+            for (int i = 0; i < 2; i++) {
+                describe("block " + i, () -> {
+                    beforeEach(new StringBuilder("hook").toString(), HookFunction.identity());
+                    it(new StringBuilder("test").toString(), TestFunction.identity());
+                });
+            }
+        });
+
+        //Then
+        TestBlock first = rootBlock.testBlocks.get(0);
+        TestBlock second = rootBlock.testBlocks.get(1);
+        assertThat(second.tests.get(0).description).isSameAs(first.tests.get(0).description);
+        assertThat(second.hooks.get(0).description.get()).isSameAs(first.hooks.get(0).description.get());
+        assertThat(second.description).isNotSameAs(first.description);
+        assertThat(TestContainer.INSTANCE.getInternedDescriptionBytes()).isGreaterThan(savedBefore);
+    }
+
+    @Test
+    public void shouldCacheFullDescriptions() {
+
+        //Given
+        TestBlock rootBlock = defineTests(() -> {
+            describe("calculator", () -> {
+                when("adding", () -> {
+                    it("returns the sum", TestFunction.identity());
+                });
+            });
+        });
+        TestBlock calculator = findTestBlock(rootBlock, "calculator");
+        TestBlock adding = findTestBlock(rootBlock, "adding");
+        org.forgerock.cuppa.model.Test test = findTest(rootBlock, "returns the sum");
+
+        //When
+        String first = ReporterSupport.getFullDescription(test, Arrays.asList(rootBlock, calculator, adding));
+        String second = ReporterSupport.getFullDescription(test, Arrays.asList(rootBlock, calculator, adding));
+
+        //Then
+        assertThat(first).isEqualTo("calculator when adding returns the sum");
+        assertThat(second).isSameAs(first);
+        assertThat(ReporterSupport.getFullDescription(adding, Arrays.asList(rootBlock, calculator)))
+                .isEqualTo("calculator when adding");
+    }
+
+    @Test
+    public void shouldRebuildFullDescriptionsWhenReportedUnderDifferentParents() {
+
+        //Given
+        TestBlock rootBlock = defineTests(() -> {
+            describe("calculator", () -> {
+                when("adding", () -> {
+                    it("returns the sum", TestFunction.identity());
+                });
+            });
+        });
+        TestBlock adding = findTestBlock(rootBlock, "adding");
+        org.forgerock.cuppa.model.Test test = findTest(rootBlock, "returns the sum");
+        ReporterSupport.getFullDescription(test, Arrays.asList(rootBlock, findTestBlock(rootBlock, "calculator"),
+                adding));
+
+        //When
+        String description = ReporterSupport.getFullDescription(test, Collections.singletonList(adding));
+        String blockDescription = ReporterSupport.getFullDescription(adding, Collections.emptyList());
+
+        //Then
+        assertThat(description).isEqualTo("when adding returns the sum");
+        assertThat(blockDescription).isEqualTo("when adding");
+    }
+}
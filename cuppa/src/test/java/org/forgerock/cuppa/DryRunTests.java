@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.beforeEach;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.skip;
+import static org.forgerock.cuppa.Cuppa.tags;
+import static org.forgerock.cuppa.Cuppa.when;
+import static org.forgerock.cuppa.Cuppa.with;
+import static org.forgerock.cuppa.TestCuppaSupport.defineTests;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.cuppa.functions.HookFunction;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.testng.annotations.Test;
+
+public class DryRunTests {
+
+    @Test
+    public void shouldNotRunHooksOrTests() throws Exception {
+
+        //Given
+        HookFunction hook = mock(HookFunction.class);
+        TestFunction test = mock(TestFunction.class);
+        TestBlock rootBlock = defineTests(() -> {
+            describe("calculator", () -> {
+                beforeEach(hook);
+                it("adds", test);
+            });
+        });
+
+        //When
+        List<String> plan = dryRun(new Runner(Tags.EMPTY_TAGS, new Configuration()), rootBlock);
+
+        //Then
+        verify(hook, never()).apply();
+        verify(test, never()).apply();
+        assertThat(plan).hasSize(4);
+        assertThat(plan.get(1)).contains("\"blockType\":\"DESCRIBE\"", "\"fullDescription\":\"calculator\"",
+                "\"hooks\":{\"before\":0,\"beforeEach\":1,\"afterEach\":0,\"after\":0}");
+        assertThat(plan.get(2)).startsWith("{\"type\":\"test\"")
+                .contains("\"fullDescription\":\"calculator adds\"", "\"behaviour\":\"NORMAL\"",
+                        "\"pending\":false");
+        assertThat(plan.get(3)).isEqualTo("{\"type\":\"summary\",\"blocks\":2,\"tests\":1}");
+    }
+
+    @Test
+    public void shouldPlanOnlyTheTestsThatWouldRun() throws Exception {
+
+        //Given
+        Configuration configuration = new Configuration();
+        configuration.registerTestTreeTransform(TestSelection.of(Collections.singletonList("when adding")));
+        TestBlock rootBlock = defineTests(() -> {
+            with(tags("maths")).
+            describe("calculator", () -> {
+                skip().when("adding", () -> {
+                    with(tags("fast")).
+                    it("returns the sum", TestFunction.identity());
+                    it("overflows");
+                    with(tags("slow")).
+                    it("handles big numbers", TestFunction.identity());
+                });
+                when("subtracting", () -> {
+                    with(tags("fast")).
+                    it("returns the difference", TestFunction.identity());
+                });
+            });
+        });
+
+        //When
+        Runner runner = new Runner(Tags.excludedTags(Collections.singleton("slow")), configuration);
+        List<String> plan = dryRun(runner, rootBlock);
+
+        //Then
+        assertThat(plan).hasSize(6);
+        assertThat(plan.get(3)).contains("\"fullDescription\":\"calculator when adding returns the sum\"",
+                "\"behaviour\":\"SKIP\"", "\"tags\":[\"fast\",\"maths\"]");
+        assertThat(plan.get(4)).contains("\"fullDescription\":\"calculator when adding overflows\"",
+                "\"pending\":true", "\"tags\":[\"maths\"]");
+    }
+
+    @Test
+    public void shouldEscapeDescriptions() throws Exception {
+
+        //Given
+        TestBlock rootBlock = defineTests(() -> {
+            describe("a \"quoted\" block", () -> {
+                it("has a \\ and a\nnew line", TestFunction.identity());
+            });
+        });
+
+        //When
+        List<String> plan = dryRun(new Runner(Tags.EMPTY_TAGS, new Configuration()), rootBlock);
+
+        //Then
+        assertThat(plan).hasSize(4);
+        assertThat(plan.get(2)).contains("\"fullDescription\":\"a \\\"quoted\\\" block has a \\\\ and a");
+    }
+
+    private static List<String> dryRun(Runner runner, TestBlock rootBlock) throws IOException {
+        StringBuilder plan = new StringBuilder();
+        runner.dryRun(rootBlock, plan);
+        return Arrays.asList(plan.toString().split("\n"));
+    }
+}
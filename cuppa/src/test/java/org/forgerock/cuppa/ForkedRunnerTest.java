@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.testng.annotations.Test;
+
+public class ForkedRunnerTest {
+
+    @Test
+    public void shouldReportTestsRunInForkedWorkers() {
+
+        //Given
+        RecordingReporter reporter = new RecordingReporter();
+        ForkedRunner runner = new ForkedRunner(Tags.EMPTY_TAGS, 2);
+
+        //When
+        runner.run(Collections.singletonList(ForkedTestClass.class), reporter);
+
+        //Then
+        assertThat(reporter.events).containsExactly(
+                "start",
+                "blockStart ",
+                "blockStart forked test class",
+                "pass passes",
+                "fail fails java.lang.AssertionError: failed",
+                "pending is pending",
+                "blockEnd forked test class",
+                "blockEnd ",
+                "end");
+    }
+
+    @Test
+    public void shouldNotShareStaticStateWithForkedWorkers() {
+
+        //Given
+        RecordingReporter reporter = new RecordingReporter();
+        ForkedRunner runner = new ForkedRunner(Tags.EMPTY_TAGS, 1);
+        StaticStateTestClass.state = "parent";
+
+        //When
+        runner.run(Collections.singletonList(StaticStateTestClass.class), reporter);
+
+        //Then
+        assertThat(reporter.events).contains("pass does not see state set in the parent");
+    }
+
+    @Test
+    public void shouldRunRemainingClassesWhenAClassCannotBeDefined() {
+
+        //Given
+        RecordingReporter reporter = new RecordingReporter();
+        ForkedRunner runner = new ForkedRunner(Tags.EMPTY_TAGS, 1);
+
+        //When
+        try {
+            runner.run(Arrays.asList(BrokenTestClass.class, StaticStateTestClass.class), reporter);
+            fail("Expected the broken test class to fail the run");
+        } catch (CuppaException e) {
+
+            //Then
+            assertThat(e.getCause()).hasMessageContaining(BrokenTestClass.class.getName());
+        }
+        assertThat(reporter.events).contains("pass does not see state set in the parent", "end");
+    }
+
+    public static class ForkedTestClass {
+        {
+            describe("forked test class", () -> {
+                it("passes", TestFunction.identity());
+                it("fails", () -> {
+                    throw new AssertionError("failed");
+                });
+                it("is pending");
+            });
+        }
+    }
+
+    public static class StaticStateTestClass {
+        static String state = "worker";
+
+        {
+            describe("static state", () -> {
+                it("does not see state set in the parent", () -> {
+                    assertThat(state).isEqualTo("worker");
+                });
+            });
+        }
+    }
+
+    public static class BrokenTestClass {
+        public BrokenTestClass() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    private static final class RecordingReporter implements Reporter {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void start(TestBlock rootBlock) {
+            events.add("start");
+        }
+
+        @Override
+        public void end() {
+            events.add("end");
+        }
+
+        @Override
+        public void testBlockStart(TestBlock testBlock, List<TestBlock> parents) {
+            events.add("blockStart " + testBlock.description);
+        }
+
+        @Override
+        public void testBlockEnd(TestBlock testBlock, List<TestBlock> parents) {
+            events.add("blockEnd " + testBlock.description);
+        }
+
+        @Override
+        public void testPass(org.forgerock.cuppa.model.Test test, List<TestBlock> parents) {
+            events.add("pass " + test.description);
+        }
+
+        @Override
+        public void testFail(org.forgerock.cuppa.model.Test test, List<TestBlock> parents, Throwable cause) {
+            events.add("fail " + test.description + " " + cause);
+        }
+
+        @Override
+        public void testPending(org.forgerock.cuppa.model.Test test, List<TestBlock> parents) {
+            events.add("pending " + test.description);
+        }
+    }
+}
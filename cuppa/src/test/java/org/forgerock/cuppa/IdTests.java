@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.Cuppa.*;
+import static org.forgerock.cuppa.TestCuppaSupport.defineTests;
+import static org.forgerock.cuppa.TestCuppaSupport.findHook;
+import static org.forgerock.cuppa.TestCuppaSupport.findTest;
+import static org.forgerock.cuppa.TestCuppaSupport.findTestBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.forgerock.cuppa.functions.HookFunction;
+import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.testng.annotations.Test;
+
+public class IdTests {
+    @Test
+    public void shouldAssignUniqueIdsToTestsWithTheSameDescription() {
+
+        //Given
+        TestBlock rootBlock = defineTests(() -> {
+            describe("a", () -> {
+                it("test", TestFunction.identity());
+                it("test", TestFunction.identity());
+                when("b", () -> {
+                    it("test", TestFunction.identity());
+                });
+                describe("b", () -> {
+                    it("test", TestFunction.identity());
+                });
+            });
+            describe("a", () -> {
+                it("test", TestFunction.identity());
+            });
+        });
+
+        //When
+        List<Long> ids = getIds(rootBlock);
+
+        //Then
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void shouldAssignTheSameIdsWhenTestsAreDefinedAgain() {
+
+        //Given
+        Runnable definition = () -> {
+            describe("a", () -> {
+                before("hook", HookFunction.identity());
+                it("test", TestFunction.identity());
+            });
+        };
+
+        //When
+        TestBlock first = defineTests(definition);
+        TestBlock second = defineTests(definition);
+
+        //Then
+        assertThat(getIds(first)).isEqualTo(getIds(second));
+    }
+
+    @Test
+    public void shouldNotChangeIdsWhenOtherTestsAreAdded() {
+
+        //Given
+        TestBlock before = defineTests(() -> {
+            describe("a", () -> {
+                it("test", TestFunction.identity());
+            });
+        });
+
+        //When
+        TestBlock after = defineTests(() -> {
+            describe("new", () -> {
+                it("test", TestFunction.identity());
+            });
+            describe("a", () -> {
+                it("new test", TestFunction.identity());
+                it("test", TestFunction.identity());
+            });
+        });
+
+        //Then
+        assertThat(findTestBlock(after, "a").id).isEqualTo(findTestBlock(before, "a").id);
+        assertThat(findTestBlock(after, "a").tests.get(1).id).isEqualTo(findTest(before, "test").id);
+    }
+
+    @Test
+    public void shouldAssignUniqueIdsToHooks() {
+
+        //Given
+        TestBlock rootBlock = defineTests(() -> {
+            describe("a", () -> {
+                before(HookFunction.identity());
+                before(HookFunction.identity());
+                after(HookFunction.identity());
+                beforeEach("hook", HookFunction.identity());
+                it("test", TestFunction.identity());
+            });
+        });
+
+        //When
+        TestBlock block = findTestBlock(rootBlock, "a");
+
+        //Then
+        assertThat(block.hooks.stream().map(h -> h.id).collect(Collectors.toList())).doesNotHaveDuplicates();
+        assertThat(findHook(rootBlock, "hook").id).isNotEqualTo(block.id);
+    }
+
+    @Test
+    public void shouldPreserveIdsWhenTestsAreFiltered() {
+
+        //Given
+        List<Long> reportedIds = new ArrayList<>();
+        TestBlock rootBlock = defineTests(() -> {
+            describe("a", () -> {
+                it("test", TestFunction.identity());
+                skip().it("skipped", TestFunction.identity());
+            });
+        });
+
+        //When
+        TestCuppaSupport.runTests(rootBlock, new Reporter() {
+            @Override
+            public void testPass(org.forgerock.cuppa.model.Test test, List<TestBlock> parents) {
+                reportedIds.add(test.id);
+            }
+        });
+
+        //Then
+        assertThat(reportedIds).containsExactly(findTest(rootBlock, "test").id);
+    }
+
+    private static List<Long> getIds(TestBlock testBlock) {
+        return Stream.concat(
+                Stream.concat(Stream.of(testBlock.id), testBlock.tests.stream().map(t -> t.id)),
+                Stream.concat(testBlock.hooks.stream().map(h -> h.id),
+                        testBlock.testBlocks.stream().flatMap(b -> getIds(b).stream())))
+                .collect(Collectors.toList());
+    }
+}
@@ -19,9 +19,11 @@ package org.forgerock.cuppa;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.forgerock.cuppa.model.Behaviour.NORMAL;
+import static org.forgerock.cuppa.model.TestBlockType.DESCRIBE;
 import static org.forgerock.cuppa.model.TestBlockType.ROOT;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +35,7 @@ import org.forgerock.cuppa.model.Options;
 import org.forgerock.cuppa.model.TestBlock;
 import org.testng.annotations.Test;
 
+@SuppressWarnings("deprecation")
 public class ModelTests {
     @Test
     public void testBlockShouldBeImmutable() {
@@ -97,9 +100,126 @@ public class ModelTests {
         assertThat(test.options.get(TestOption.class)).isEmpty();
     }
 
+    @Test
+    public void modelObjectsShouldBeEqualRegardlessOfTheirIds() {
+        org.forgerock.cuppa.model.Test test = new org.forgerock.cuppa.model.Test(1L, NORMAL, ModelTests.class, "",
+                Optional.empty(), new Options());
+        org.forgerock.cuppa.model.Test sameTest = new org.forgerock.cuppa.model.Test(2L, NORMAL, ModelTests.class, "",
+                Optional.empty(), new Options());
+        TestBlock testBlock = new TestBlock(1L, ROOT, NORMAL, ModelTests.class, "", Collections.emptyList(),
+                Collections.emptyList(), Collections.singletonList(test), new Options());
+        TestBlock sameTestBlock = new TestBlock(2L, ROOT, NORMAL, ModelTests.class, "", Collections.emptyList(),
+                Collections.emptyList(), Collections.singletonList(sameTest), new Options());
+
+        assertThat(sameTest).isEqualTo(test);
+        assertThat(sameTest.hashCode()).isEqualTo(test.hashCode());
+        assertThat(sameTestBlock).isEqualTo(testBlock);
+        assertThat(sameTestBlock.hashCode()).isEqualTo(testBlock.hashCode());
+    }
+
+    @Test
+    public void testBlockShouldShareImmutableObjectsFromOtherTestBlocks() {
+        TestBlock original = new TestBlock(ROOT, NORMAL, ModelTests.class, "", new ArrayList<>(),
+                Collections.singletonList(new Hook(HookType.BEFORE, ModelTests.class, Optional.empty(),
+                        HookFunction.identity())),
+                Collections.singletonList(new org.forgerock.cuppa.model.Test(NORMAL, ModelTests.class, "",
+                        Optional.empty(), new Options())), new Options());
+
+        TestBlock copy = new TestBlock(DESCRIBE, NORMAL, ModelTests.class, "copy", original.testBlocks,
+                original.hooks, original.tests, original.options);
+
+        assertThat(copy.testBlocks).isSameAs(original.testBlocks);
+        assertThat(copy.hooks).isSameAs(original.hooks);
+        assertThat(copy.tests).isSameAs(original.tests);
+        assertThat(copy.options).isSameAs(original.options);
+    }
+
+    @Test
+    public void testBlockTransformHelpersShouldReturnSameInstanceWhenUnchanged() {
+        org.forgerock.cuppa.model.Test test = new org.forgerock.cuppa.model.Test(NORMAL, ModelTests.class, "",
+                Optional.empty(), new Options());
+        TestBlock testBlock = new TestBlock.Builder()
+                .setType(ROOT)
+                .setTestClass(ModelTests.class)
+                .setDescription("")
+                .addTest(test)
+                .build();
+
+        assertThat(testBlock.withTests(new ArrayList<>(testBlock.tests))).isSameAs(testBlock);
+        assertThat(testBlock.withTestBlocks(Collections.emptyList())).isSameAs(testBlock);
+        assertThat(testBlock.withHooks(testBlock.hooks)).isSameAs(testBlock);
+
+        TestBlock changed = testBlock.withTests(Collections.emptyList());
+        assertThat(changed).isNotSameAs(testBlock);
+        assertThat(changed.tests).isEmpty();
+        assertThat(changed.testBlocks).isSameAs(testBlock.testBlocks);
+        assertThat(changed.options).isSameAs(testBlock.options);
+    }
+
+    @Test
+    public void testBlockBuilderShouldNotModifyListsPassedToIt() {
+        List<org.forgerock.cuppa.model.Test> tests = new ArrayList<>();
+        TestBlock testBlock = new TestBlock.Builder()
+                .setType(ROOT)
+                .setTestClass(ModelTests.class)
+                .setDescription("")
+                .setTests(tests)
+                .addTest(new org.forgerock.cuppa.model.Test(NORMAL, ModelTests.class, "", Optional.empty(),
+                        new Options()))
+                .build();
+
+        assertThat(tests).isEmpty();
+        assertThat(testBlock.tests).hasSize(1);
+    }
+
+    @Test
+    public void optionsShouldReplaceOptionsOfTheSameType() {
+        Options options = new Options();
+        options.set(new TestOption("a"));
+        options.set(new OtherTestOption("b"));
+        options.set(new TestOption("c"));
+
+        assertThat(options.get(TestOption.class)).contains("c");
+        assertThat(options.getOrDefault(OtherTestOption.class, "default")).isEqualTo("b");
+    }
+
+    @Test
+    public void optionsShouldReturnDefaultValueForMissingOption() {
+        assertThat(Options.EMPTY_OPTIONS.getOrDefault(TestOption.class, "default")).isEqualTo("default");
+        assertThat(Options.EMPTY_OPTIONS.get(TestOption.class)).isEmpty();
+    }
+
+    @Test
+    public void optionsShouldBeEqualRegardlessOfOrder() {
+        Options first = new Options();
+        first.set(new TestOption("a"));
+        first.set(new OtherTestOption("b"));
+        Options second = new Options();
+        second.set(new OtherTestOption("b"));
+        second.set(new TestOption("a"));
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.hashCode()).isEqualTo(second.hashCode());
+        assertThat(Options.immutableCopyOf(first)).isEqualTo(second);
+        assertThat(first).isNotEqualTo(Options.EMPTY_OPTIONS);
+    }
+
+    @Test
+    public void immutableCopiesOfEmptyOptionsShouldBeShared() {
+        assertThat(Options.immutableCopyOf(new Options())).isSameAs(Options.EMPTY_OPTIONS);
+        assertThatThrownBy(() -> Options.EMPTY_OPTIONS.set(new TestOption("a")))
+                .isExactlyInstanceOf(UnsupportedOperationException.class);
+    }
+
     private static final class TestOption extends Option<String> {
         private TestOption(String value) {
             super(value);
         }
     }
+
+    private static final class OtherTestOption extends Option<String> {
+        private OtherTestOption(String value) {
+            super(value);
+        }
+    }
 }
@@ -16,14 +16,35 @@
 
 package org.forgerock.cuppa;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.forgerock.cuppa.Cuppa.describe;
 import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.Cuppa.only;
+import static org.forgerock.cuppa.Cuppa.tags;
+import static org.forgerock.cuppa.Cuppa.with;
 import static org.forgerock.cuppa.TestCuppaSupport.defineTests;
 import static org.forgerock.cuppa.TestCuppaSupport.runTests;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.model.Tags;
 import org.forgerock.cuppa.model.TestBlock;
 import org.forgerock.cuppa.reporters.Reporter;
 import org.testng.annotations.Test;
@@ -50,4 +71,231 @@ public class RunnerTest {
         //Then
         verify(function).apply();
     }
+
+    @Test
+    public void shouldRunTestsFromAllClassesWhenPipelined() {
+
+        //Given
+        TestLog.RUN.clear();
+        Runner runner = new Runner(Tags.EMPTY_TAGS, new Configuration());
+
+        //When
+        runner.runPipelined(Arrays.asList(FirstTestClass.class, SecondTestClass.class), mock(Reporter.class));
+
+        //Then
+        assertThat(TestLog.RUN).containsExactly("first", "second");
+    }
+
+    @Test
+    public void shouldFailInsteadOfRunningTestsThatOnlyWouldSkipWhenPipelined() {
+
+        //Given
+        TestLog.RUN.clear();
+        Runner runner = new Runner(Tags.EMPTY_TAGS, new Configuration());
+
+        //When
+        try {
+            runner.runPipelined(Arrays.asList(OnlyTestClass.class, FirstTestClass.class), mock(Reporter.class));
+            fail("Expected only() to be rejected");
+        } catch (CuppaException e) {
+
+            //Then
+            assertThat(TestLog.RUN).isEmpty();
+        }
+    }
+
+    @Test
+    public void shouldFailWithoutRunningEarlierClassesWhenALaterClassUsesOnlyWhenPipelined() {
+
+        //Given
+        TestLog.RUN.clear();
+        Reporter reporter = mock(Reporter.class);
+        Runner runner = new Runner(Tags.EMPTY_TAGS, new Configuration());
+
+        //When
+        try {
+            runner.runPipelined(Arrays.asList(FirstTestClass.class, OnlyTestClass.class), reporter);
+            fail("Expected only() to be rejected");
+        } catch (CuppaException e) {
+
+            //Then
+            assertThat(TestLog.RUN).isEmpty();
+            verify(reporter, never()).start(any());
+        }
+    }
+
+    @Test
+    public void shouldReportAllPipelinedTestsUnderASingleRootBlock() {
+
+        //Given
+        Reporter reporter = mock(Reporter.class);
+        Runner runner = new Runner(Tags.EMPTY_TAGS, new Configuration());
+
+        //When
+        runner.runPipelined(Arrays.asList(FirstTestClass.class, SecondTestClass.class), reporter);
+
+        //Then
+        verify(reporter).start(any());
+        verify(reporter).testBlockStart(any(), eq(Collections.emptyList()));
+        verify(reporter).end();
+    }
+
+    @Test
+    public void shouldRunEarlierClassesAndThrowWhenALaterClassFailsToInstantiate() {
+
+        //Given
+        TestLog.RUN.clear();
+        Runner runner = new Runner(Tags.EMPTY_TAGS, new Configuration());
+
+        //When
+        try {
+            runner.runPipelined(Arrays.asList(FirstTestClass.class, BrokenTestClass.class), mock(Reporter.class));
+            fail("Expected instantiation failure");
+        } catch (IllegalStateException e) {
+
+            //Then
+            assertThat(TestLog.RUN).containsExactly("first");
+        }
+    }
+
+    @Test
+    public void shouldOnlyRebuildTestBlocksChangedByFilters() {
+
+        //Given
+        Reporter reporter = mock(Reporter.class);
+        TestBlock rootBlock = defineTests(() -> {
+            describe("unfiltered", () -> {
+                it("runs", TestFunction.identity());
+            });
+            describe("filtered", () -> {
+                with(tags("slow")).
+                it("does not run", TestFunction.identity());
+                it("runs", TestFunction.identity());
+            });
+        });
+        TestBlock unfilteredBlock = TestCuppaSupport.findTestBlock(rootBlock, "unfiltered");
+        TestBlock filteredBlock = TestCuppaSupport.findTestBlock(rootBlock, "filtered");
+
+        //When
+        runTests(rootBlock, reporter, Tags.excludedTags(Collections.singleton("slow")));
+
+        //Then
+        verify(reporter).testBlockStart(same(unfilteredBlock), anyListOf(TestBlock.class));
+        verify(reporter, never()).testBlockStart(same(filteredBlock), anyListOf(TestBlock.class));
+        verify(reporter, times(2)).testPass(any(), anyListOf(TestBlock.class));
+    }
+
+    @Test
+    public void shouldRunTestClassesConcurrentlyWhenParallel() {
+
+        //Given
+        ParallelLog.reset(2);
+        Runner runner = new Runner(Tags.EMPTY_TAGS, new Configuration());
+        TestBlock rootBlock = runner.defineTests(Arrays.asList(FirstParallelTestClass.class,
+                SecondParallelTestClass.class));
+        Reporter reporter = mock(Reporter.class);
+
+        //When
+        runner.runParallel(rootBlock, reporter, 2);
+
+        //Then
+        assertThat(ParallelLog.RUN).containsOnly("first", "second");
+        verify(reporter, times(2)).testPass(any(), anyListOf(TestBlock.class));
+        verify(reporter, never()).testFail(any(), anyListOf(TestBlock.class), any());
+    }
+
+    @Test
+    public void shouldNotCallReporterConcurrentlyWhenParallel() {
+
+        //Given
+        ParallelLog.reset(0);
+        Runner runner = new Runner(Tags.EMPTY_TAGS, new Configuration());
+        TestBlock rootBlock = runner.defineTests(Arrays.asList(FirstParallelTestClass.class,
+                SecondParallelTestClass.class));
+        AtomicInteger activeCalls = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        Reporter reporter = new Reporter() {
+            @Override
+            public void testStart(org.forgerock.cuppa.model.Test test, List<TestBlock> parents) {
+                if (activeCalls.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                Thread.yield();
+                activeCalls.decrementAndGet();
+            }
+        };
+
+        //When
+        runner.runParallel(rootBlock, reporter, 2);
+
+        //Then
+        assertThat(overlapped.get()).isFalse();
+        assertThat(ParallelLog.RUN).containsOnly("first", "second");
+    }
+
+    private static final class TestLog {
+        private static final List<String> RUN = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    public static class FirstTestClass {
+        {
+            describe("first class", () -> {
+                it("runs", () -> TestLog.RUN.add("first"));
+            });
+        }
+    }
+
+    public static class SecondTestClass {
+        {
+            describe("second class", () -> {
+                it("runs", () -> TestLog.RUN.add("second"));
+            });
+        }
+    }
+
+    public static class OnlyTestClass {
+        {
+            describe("only class", () -> {
+                only().it("runs", () -> TestLog.RUN.add("only"));
+                it("does not run", () -> TestLog.RUN.add("not only"));
+            });
+        }
+    }
+
+    public static class BrokenTestClass {
+        public BrokenTestClass(String argument) {
+        }
+    }
+
+    private static final class ParallelLog {
+        private static final List<String> RUN = Collections.synchronizedList(new ArrayList<>());
+        private static CountDownLatch bothRunning;
+
+        private static void reset(int count) {
+            RUN.clear();
+            bothRunning = new CountDownLatch(count);
+        }
+
+        private static void run(String name) throws InterruptedException {
+            bothRunning.countDown();
+            assertThat(bothRunning.await(10, TimeUnit.SECONDS)).isTrue();
+            RUN.add(name);
+        }
+    }
+
+    public static class FirstParallelTestClass {
+        {
+            describe("first parallel class", () -> {
+                it("runs", () -> ParallelLog.run("first"));
+            });
+        }
+    }
+
+    public static class SecondParallelTestClass {
+        {
+            describe("second parallel class", () -> {
+                it("runs", () -> ParallelLog.run("second"));
+            });
+        }
+    }
 }
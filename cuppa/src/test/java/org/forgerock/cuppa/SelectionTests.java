@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.CalculatorFixture.defineCalculatorTests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.cuppa.model.TestBlock;
+import org.testng.annotations.Test;
+
+public class SelectionTests {
+
+    @Test
+    public void shouldSelectTestsWhoseFullDescriptionContainsAPattern() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+
+        //When
+        TestBlock selected = TestSelection.of(Collections.singletonList("when adding returns")).apply(rootBlock);
+
+        //Then
+        assertThat(getFullDescriptions(selected)).containsExactly("calculator when adding returns the sum");
+    }
+
+    @Test
+    public void shouldSelectAllTestsInABlockWhoseDescriptionContainsAPattern() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+
+        //When
+        TestBlock selected = TestSelection.of(Collections.singletonList("when subtracting")).apply(rootBlock);
+
+        //Then
+        assertThat(getFullDescriptions(selected)).containsExactly(
+                "calculator when subtracting returns the difference",
+                "calculator when subtracting allows negative results");
+    }
+
+    @Test
+    public void shouldMatchOverlappingPatternsAtOnce() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+
+        //When
+        TestBlock selected = TestSelection.of(Arrays.asList("sums", "the summ", "ative res", "negat"))
+                .apply(rootBlock);
+
+        //Then
+        assertThat(getFullDescriptions(selected)).containsExactly(
+                "calculator when subtracting allows negative results");
+    }
+
+    @Test
+    public void shouldSelectTestsAndTestBlocksById() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+        TestBlock calculator = rootBlock.testBlocks.get(0);
+        long addingId = calculator.testBlocks.get(0).id;
+        long differenceId = calculator.testBlocks.get(1).tests.get(0).id;
+
+        //When
+        TestBlock selected = TestSelection.of(Arrays.asList("id:" + Long.toHexString(addingId),
+                "id:" + Long.toHexString(differenceId))).apply(rootBlock);
+
+        //Then
+        assertThat(getFullDescriptions(selected)).containsExactly(
+                "calculator when adding returns the sum",
+                "calculator when subtracting returns the difference");
+    }
+
+    @Test
+    public void shouldReadSelectorsFromAFile() throws IOException {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+        Path file = Files.createTempFile("cuppa-selection", ".txt");
+        Files.write(file, Arrays.asList("# tests to rerun", "", "the difference"), StandardCharsets.UTF_8);
+
+        //When
+        TestBlock selected;
+        try {
+            selected = TestSelection.read(file).apply(rootBlock);
+        } finally {
+            Files.delete(file);
+        }
+
+        //Then
+        assertThat(getFullDescriptions(selected)).containsExactly(
+                "calculator when subtracting returns the difference");
+    }
+
+    @Test
+    public void shouldRemoveAllTestsIfNoneAreSelected() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+
+        //When
+        TestBlock selected = TestSelection.of(Collections.singletonList("multiplying")).apply(rootBlock);
+
+        //Then
+        assertThat(selected.testBlocks).isEmpty();
+        assertThat(selected.tests).isEmpty();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectIdsThatAreNotHexadecimal() {
+
+        //When
+        TestSelection.of(Collections.singletonList("id:not hex"));
+    }
+
+    private static List<String> getFullDescriptions(TestBlock rootBlock) {
+        List<String> descriptions = new ArrayList<>();
+        addFullDescriptions(rootBlock, Collections.emptyList(), descriptions);
+        return descriptions;
+    }
+
+    private static void addFullDescriptions(TestBlock testBlock, List<TestBlock> parents, List<String> descriptions) {
+        List<TestBlock> path = new ArrayList<>(parents);
+        path.add(testBlock);
+        testBlock.tests.forEach(t -> descriptions.add(ReporterSupport.getFullDescription(t, path)));
+        testBlock.testBlocks.forEach(b -> addFullDescriptions(b, path, descriptions));
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.forgerock.cuppa;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.forgerock.cuppa.Cuppa.*;
 import static org.forgerock.cuppa.TestCuppaSupport.defineTests;
 import static org.forgerock.cuppa.TestCuppaSupport.runTests;
@@ -25,9 +26,13 @@ import static org.mockito.Mockito.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.forgerock.cuppa.functions.TestFunction;
+import org.forgerock.cuppa.internal.filters.TagQuery;
 import org.forgerock.cuppa.model.Tags;
 import org.forgerock.cuppa.model.TestBlock;
 import org.forgerock.cuppa.reporters.Reporter;
@@ -407,4 +412,138 @@ public class TaggedTests {
         verify(testFunctionNotRun, never()).apply();
         verify(testFunctionRun).apply();
     }
+
+    @DataProvider
+    private Object[][] tagExpressions() {
+        return new Object[][]{
+            {"smoke and not slow", true, false, false},
+            {"smoke & !slow", true, false, false},
+            {"smoke or big", true, true, true},
+            {"smoke | big", true, true, true},
+            {"smoke, big", true, true, true},
+            {"(smoke or big) and not (slow and big)", true, true, false},
+            {"not smoke", false, false, true},
+            {"SMOKE", false, false, false},
+            {"smoke AND slow", false, true, false},
+        };
+    }
+
+    @Test(dataProvider = "tagExpressions")
+    public void shouldRunTestsWhichMatchTagExpression(String expression, boolean runsFirst, boolean runsSecond,
+            boolean runsThird) throws Exception {
+
+        //Given
+        Reporter reporter = mock(Reporter.class);
+        TestFunction first = mock(TestFunction.class);
+        TestFunction second = mock(TestFunction.class);
+        TestFunction third = mock(TestFunction.class);
+        TestBlock rootBlock = defineTests(() -> {
+            describe("tagged tests", () -> {
+                with(tags("smoke")).
+                it("runs the first test", first);
+                with(tags("smoke")).
+                when("slow", () -> {
+                    with(tags("slow")).
+                    it("runs the second test", second);
+                });
+                with(tags("big", "slow")).
+                it("runs the third test", third);
+            });
+        });
+
+        //When
+        runTests(rootBlock, reporter, Tags.expression(expression));
+
+        //Then
+        verify(first, times(runsFirst ? 1 : 0)).apply();
+        verify(second, times(runsSecond ? 1 : 0)).apply();
+        verify(third, times(runsThird ? 1 : 0)).apply();
+    }
+
+    @Test
+    public void shouldCombineTagExpressionWithRunTagsAndExcludedTags() throws Exception {
+
+        //Given
+        Reporter reporter = mock(Reporter.class);
+        TestFunction testFunctionNotRun = mock(TestFunction.class);
+        TestFunction testFunctionRun = mock(TestFunction.class);
+        TestBlock rootBlock = defineTests(() -> {
+            describe("tagged tests", () -> {
+                with(tags("smoke", "fast")).
+                it("runs the tagged test", testFunctionRun);
+                with(tags("smoke", "fast", "flaky")).
+                it("does not run the excluded test", testFunctionNotRun);
+                with(tags("smoke")).
+                it("does not run the test which does not match the expression", testFunctionNotRun);
+            });
+        });
+
+        //When
+        runTests(rootBlock, reporter, new Tags(Collections.singleton("smoke"), Collections.singleton("flaky"),
+                Optional.of("fast")));
+
+        //Then
+        verify(testFunctionNotRun, never()).apply();
+        verify(testFunctionRun).apply();
+    }
+
+    @Test
+    public void shouldSupportMoreThanSixtyFourTagsInAnExpression() throws Exception {
+
+        //Given
+        Reporter reporter = mock(Reporter.class);
+        TestFunction testFunctionNotRun = mock(TestFunction.class);
+        TestFunction testFunctionRun = mock(TestFunction.class);
+        String expression = IntStream.range(0, 100).mapToObj(i -> "tag" + i).collect(Collectors.joining(" or "));
+        TestBlock rootBlock = defineTests(() -> {
+            describe("tagged tests", () -> {
+                with(tags("tag99")).
+                it("runs the tagged test", testFunctionRun);
+                with(tags("tag100")).
+                it("does not run the test", testFunctionNotRun);
+            });
+        });
+
+        //When
+        runTests(rootBlock, reporter, Tags.expression(expression));
+
+        //Then
+        verify(testFunctionNotRun, never()).apply();
+        verify(testFunctionRun).apply();
+    }
+
+    @DataProvider
+    private Object[][] invalidTagExpressions() {
+        return new Object[][]{
+            {""},
+            {"smoke and"},
+            {"(smoke or fast"},
+            {"smoke fast"},
+            {"smoke or )"},
+        };
+    }
+
+    @Test(dataProvider = "invalidTagExpressions", expectedExceptions = CuppaException.class)
+    public void shouldRejectInvalidTagExpressions(String expression) throws Exception {
+        runTests(defineTests(() -> {
+        }), mock(Reporter.class), Tags.expression(expression));
+    }
+
+    @DataProvider
+    private Object[][] runTagsOptions() {
+        return new Object[][]{
+            {"smoke", false},
+            {"smoke, fast", false},
+            {"not-slow,and-more", false},
+            {"smoke and fast", true},
+            {"!slow", true},
+            {"(smoke|fast)", true},
+            {"NOT slow", true},
+        };
+    }
+
+    @Test(dataProvider = "runTagsOptions")
+    public void shouldOnlyTreatValuesWithOperatorsAsTagExpressions(String tags, boolean isExpression) {
+        assertThat(TagQuery.isExpression(tags)).isEqualTo(isExpression);
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.cuppa.CalculatorFixture.defineCalculatorTests;
+import static org.forgerock.cuppa.TestCuppaSupport.findHook;
+import static org.forgerock.cuppa.TestCuppaSupport.findTest;
+import static org.forgerock.cuppa.TestCuppaSupport.findTestBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.cuppa.model.Hook;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.model.TestTreeVisitor;
+import org.testng.annotations.Test;
+
+public class TestTreeIndexTest {
+
+    @Test
+    public void shouldLookUpByIdAndDescription() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+        org.forgerock.cuppa.model.Test sum = findTest(rootBlock, "returns the sum");
+        TestBlock adding = findTestBlock(rootBlock, "adding");
+        Hook hook = findHook(rootBlock, "reset");
+
+        //When
+        TestTreeIndex index = new TestTreeIndex(rootBlock);
+
+        //Then
+        assertThat(index.getTest(sum.id)).contains(sum);
+        assertThat(index.getTestBlock(adding.id)).contains(adding);
+        assertThat(index.getHook(hook.id)).contains(hook);
+        assertThat(index.findTest("returns the sum")).contains(sum);
+        assertThat(index.findTestBlock("adding")).contains(adding);
+        assertThat(index.findHook("reset")).contains(hook);
+        assertThat(index.findTestByFullDescription("calculator when adding returns the sum")).contains(sum);
+        assertThat(index.findTestBlockByFullDescription("calculator when adding")).contains(adding);
+        assertThat(index.findTest("does not exist")).isEmpty();
+    }
+
+    @Test
+    public void shouldListTestsByClassAndInheritedTag() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+
+        //When
+        TestTreeIndex index = new TestTreeIndex(rootBlock);
+
+        //Then
+        assertThat(index.getTests(TestCuppaSupport.class)).extracting(t -> t.description)
+                .containsExactly("returns the sum", "returns the difference", "allows negative results",
+                        "remembers results");
+        assertThat(index.getTestsWithTag("maths")).hasSize(3);
+        assertThat(index.getTestsWithTag("fast")).extracting(t -> t.description)
+                .containsExactly("returns the sum", "returns the difference");
+        assertThat(index.getTestsWithTag("slow")).extracting(t -> t.description)
+                .containsExactly("remembers results");
+    }
+
+    @Test
+    public void shouldGetParentsAndTestBlocksByDepth() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+        org.forgerock.cuppa.model.Test difference = findTest(rootBlock, "returns the difference");
+
+        //When
+        TestTreeIndex index = new TestTreeIndex(rootBlock);
+
+        //Then
+        assertThat(index.getParents(difference)).extracting(b -> b.description)
+                .containsExactly("", "calculator", "subtracting");
+        assertThat(index.getParents(rootBlock)).isEmpty();
+        assertThat(index.getTestBlocksAtDepth(2)).extracting(b -> b.description)
+                .containsExactly("adding", "subtracting");
+        assertThat(index.getTestBlocksAtDepth(3)).isEmpty();
+    }
+
+    @Test
+    public void shouldVisitTestBlocksThenHooksThenTestsThenNestedTestBlocks() {
+
+        //Given
+        TestBlock rootBlock = defineCalculatorTests();
+        List<String> visits = new ArrayList<>();
+
+        //When
+        rootBlock.accept(new RecordingVisitor(visits));
+
+        //Then
+        assertThat(visits).containsExactly(
+                "0 block ",
+                "1 block calculator",
+                "1 hook reset",
+                "2 block adding",
+                "2 test returns the sum",
+                "2 leave adding",
+                "2 block subtracting",
+                "2 leave subtracting",
+                "1 leave calculator",
+                "1 block history",
+                "1 test remembers results",
+                "1 leave history",
+                "0 leave ");
+    }
+
+    private static final class RecordingVisitor implements TestTreeVisitor {
+        private final List<String> visits;
+
+        RecordingVisitor(List<String> visits) {
+            this.visits = visits;
+        }
+
+        @Override
+        public boolean visitTestBlock(TestBlock testBlock, int depth) {
+            visits.add(depth + " block " + testBlock.description);
+            return !testBlock.description.equals("subtracting");
+        }
+
+        @Override
+        public void visitHook(Hook hook, TestBlock parent, int depth) {
+            visits.add(depth + " hook " + hook.description.get());
+        }
+
+        @Override
+        public void visitTest(org.forgerock.cuppa.model.Test test, TestBlock parent, int depth) {
+            visits.add(depth + " test " + test.description);
+        }
+
+        @Override
+        public void leaveTestBlock(TestBlock testBlock, int depth) {
+            visits.add(depth + " leave " + testBlock.description);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.forgerock.cuppa.Cuppa.describe;
+import static org.forgerock.cuppa.Cuppa.it;
+import static org.forgerock.cuppa.model.Behaviour.NORMAL;
+import static org.forgerock.cuppa.model.TestBlockType.ROOT;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.forgerock.cuppa.Cuppa;
+import org.forgerock.cuppa.TestSelection;
+import org.forgerock.cuppa.model.Ids;
+import org.forgerock.cuppa.model.Options;
+import org.forgerock.cuppa.model.Tags;
+import org.forgerock.cuppa.model.TestBlock;
+import org.forgerock.cuppa.reporters.Reporter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DaemonServerTest {
+    private static final TestBlock ROOT_TEST_BLOCK = new TestBlock(Ids.root(Cuppa.class), ROOT, NORMAL, Cuppa.class,
+            "", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Options.EMPTY_OPTIONS);
+
+    private Path tokenDirectory;
+    private DaemonServer server;
+    private InetSocketAddress address;
+    private String token;
+
+    @BeforeMethod
+    public void startDaemon() throws IOException {
+        tokenDirectory = Files.createTempDirectory("cuppa-daemon-token");
+        server = new DaemonServer(0, tokenDirectory);
+        token = DaemonServer.readToken(server.getTokenFile());
+        address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterMethod
+    public void stopDaemon() throws IOException {
+        server.close();
+        Files.delete(tokenDirectory);
+    }
+
+    @Test
+    public void shouldRunTestClassesInEachSession() throws IOException {
+
+        //Given
+        Reporter reporter = mock(Reporter.class);
+
+        //When
+        for (int i = 0; i < 2; i++) {
+            try (DaemonConnection connection = new DaemonConnection(address, token, Collections.emptyList(),
+                    Tags.EMPTY_TAGS, Optional.empty())) {
+                replay(connection.run(DaemonTestClass.class, ROOT_TEST_BLOCK), reporter);
+            }
+        }
+
+        //Then
+        verify(reporter, times(2)).testPass(any(org.forgerock.cuppa.model.Test.class), anyListOf(TestBlock.class));
+        verify(reporter, times(2)).testFail(any(org.forgerock.cuppa.model.Test.class), anyListOf(TestBlock.class),
+                any(AssertionError.class));
+    }
+
+    @Test
+    public void shouldLoadTestClassesWithTheClassLoaderOfTheSession() throws IOException {
+
+        //Given
+        Path classPathEntry = Files.createTempDirectory("cuppa-daemon");
+
+        //When
+        try (DaemonConnection connection = new DaemonConnection(address, token,
+                Collections.singletonList(classPathEntry.toString()), Tags.EMPTY_TAGS, Optional.empty())) {
+            replay(connection.run(ClassLoaderTestClass.class, ROOT_TEST_BLOCK), mock(Reporter.class));
+        }
+
+        //Then
+        assertThat(ClassLoaderTestClass.contextClassLoader).isInstanceOf(URLClassLoader.class);
+        assertThat(((URLClassLoader) ClassLoaderTestClass.contextClassLoader).getURLs())
+                .containsExactly(classPathEntry.toUri().toURL());
+        Files.delete(classPathEntry);
+    }
+
+    @Test
+    public void shouldWriteTheTokenToAFileThatOnlyTheOwnerCanRead() throws IOException {
+
+        //When
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(server.getTokenFile());
+
+        //Then
+        assertThat(token).isNotEmpty();
+        assertThat(permissions).containsOnly(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+    }
+
+    @Test
+    public void shouldRejectSessionsWithAWrongTokenBeforeLoadingAnyClasses() throws IOException {
+
+        //Given
+        ClassLoaderTestClass.contextClassLoader = null;
+
+        //When
+        Throwable thrown;
+        try (DaemonConnection connection = new DaemonConnection(address, "wrong", Collections.emptyList(),
+                Tags.EMPTY_TAGS, Optional.empty())) {
+            thrown = catchThrowable(() -> connection.run(ClassLoaderTestClass.class, ROOT_TEST_BLOCK));
+        }
+
+        //Then
+        assertThat(thrown).isInstanceOf(IOException.class);
+        assertThat(ClassLoaderTestClass.contextClassLoader).isNull();
+    }
+
+    @Test
+    public void shouldApplyTheTestSelectionInTheSession() throws IOException {
+
+        //Given
+        Reporter reporter = mock(Reporter.class);
+
+        //When
+        try (DaemonConnection connection = new DaemonConnection(address, token, Collections.emptyList(),
+                Tags.EMPTY_TAGS, Optional.of(TestSelection.of(Collections.singletonList("passes"))))) {
+            replay(connection.run(DaemonTestClass.class, ROOT_TEST_BLOCK), reporter);
+        }
+
+        //Then
+        verify(reporter).testPass(any(org.forgerock.cuppa.model.Test.class), anyListOf(TestBlock.class));
+        verify(reporter, never()).testFail(any(org.forgerock.cuppa.model.Test.class), anyListOf(TestBlock.class),
+                any(AssertionError.class));
+    }
+
+    private static void replay(List<Consumer<Reporter>> events, Reporter reporter) {
+        events.forEach(e -> e.accept(reporter));
+    }
+
+    public static class DaemonTestClass {
+        {
+            describe("daemon test class", () -> {
+                it("passes", () -> {
+                });
+                it("fails", () -> {
+                    throw new AssertionError("failed");
+                });
+            });
+        }
+    }
+
+    public static class ClassLoaderTestClass {
+        static volatile ClassLoader contextClassLoader;
+
+        {
+            describe("class loader test class", () -> {
+                it("records the context class loader", () -> {
+                    contextClassLoader = Thread.currentThread().getContextClassLoader();
+                });
+            });
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 ForgeRock AS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.forgerock.cuppa.internal.fork;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+
+import org.forgerock.cuppa.model.HookType;
+import org.testng.annotations.Test;
+
+public class EventCodecTest {
+
+    @Test
+    public void shouldSendRepeatedStringsByIndex() throws IOException {
+
+        //Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventEncoder encoder = new EventEncoder(bytes);
+
+        //When
+        encoder.writeString("a repeated description");
+        encoder.flush();
+        int firstSize = bytes.size();
+        encoder.writeString("a repeated description");
+        encoder.writeVarInt(300);
+        encoder.flush();
+
+        //Then
+        assertThat(bytes.size() - firstSize).isEqualTo(3);
+        EventDecoder decoder = new EventDecoder(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThat(decoder.readString()).isEqualTo("a repeated description");
+        assertThat(decoder.readString()).isEqualTo("a repeated description");
+        assertThat(decoder.readVarInt()).isEqualTo(300);
+    }
+
+    @Test
+    public void shouldRejectEnumOrdinalsThatAreOutOfRange() throws IOException {
+
+        //Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventEncoder encoder = new EventEncoder(bytes);
+        encoder.writeEnum(HookType.AFTER);
+        encoder.writeVarInt(HookType.values().length);
+        encoder.flush();
+        EventDecoder decoder = new EventDecoder(new ByteArrayInputStream(bytes.toByteArray()));
+
+        //When
+        HookType type = decoder.readEnum(HookType.class);
+
+        //Then
+        assertThat(type).isEqualTo(HookType.AFTER);
+        assertThatThrownBy(() -> decoder.readEnum(HookType.class)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldRejectVariableLengthIntegersThatOverflow() {
+
+        //Given
+        byte[] bytes = {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f};
+        EventDecoder decoder = new EventDecoder(new ByteArrayInputStream(bytes));
+
+        //When
+        Throwable thrown = catchThrowable(decoder::readVarInt);
+
+        //Then
+        assertThat(thrown).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldRejectStringLengthsBeforeAllocatingThem() throws IOException {
+
+        //Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventEncoder encoder = new EventEncoder(bytes);
+        encoder.writeVarInt(0);
+        encoder.writeVarInt(Integer.MAX_VALUE);
+        encoder.flush();
+        EventDecoder decoder = new EventDecoder(new ByteArrayInputStream(bytes.toByteArray()));
+
+        //When
+        Throwable thrown = catchThrowable(decoder::readString);
+
+        //Then
+        assertThat(thrown).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldReplaceThrowablesThatCannotBeSerialized() throws IOException {
+
+        //Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventEncoder encoder = new EventEncoder(bytes);
+        UnserializableException exception = new UnserializableException(new IllegalStateException("cause"));
+
+        //When
+        encoder.writeThrowable(exception);
+        encoder.flush();
+        Throwable decoded = new EventDecoder(new ByteArrayInputStream(bytes.toByteArray())).readThrowable();
+
+        //Then
+        assertThat(decoded).isInstanceOf(RemoteTestException.class);
+        assertThat(decoded.toString()).isEqualTo(exception.toString());
+        assertThat(decoded.getStackTrace()).isEqualTo(exception.getStackTrace());
+        assertThat(decoded.getCause().toString()).isEqualTo("java.lang.IllegalStateException: cause");
+    }
+
+    private static final class UnserializableException extends RuntimeException {
+        private final Object state = new Object();
+
+        UnserializableException(Throwable cause) {
+            super("unserializable", cause);
+        }
+
+        private void writeObject(java.io.ObjectOutputStream out) throws IOException {
+            throw new NotSerializableException(state.toString());
+        }
+    }
+}